@@ -1,5 +1,7 @@
 package com.company.ratelimiter.config;
 
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.EndpointCost;
 import com.company.ratelimiter.model.RateLimitRule;
 import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
 import lombok.extern.slf4j.Slf4j;
@@ -31,12 +33,15 @@ public class RateLimiterAutoConfiguration {
 
     private final RateLimiterProperties properties;
     private final RateLimitStrategyResolver strategyResolver;
+    private final LocalDenyCache denyCache;
 
     public RateLimiterAutoConfiguration(
             RateLimiterProperties properties,
-            RateLimitStrategyResolver strategyResolver) {
+            RateLimitStrategyResolver strategyResolver,
+            LocalDenyCache denyCache) {
         this.properties = properties;
         this.strategyResolver = strategyResolver;
+        this.denyCache = denyCache;
     }
 
     @PostConstruct
@@ -45,6 +50,9 @@ public class RateLimiterAutoConfiguration {
         log.info("Distributed Rate Limiter Auto-Configuration");
         log.info("=".repeat(80));
         
+        // Cached denials were decided under the previous limits
+        strategyResolver.onIndexSwapped(denyCache::clear);
+        
         // Register rules from configuration
         List<RateLimitRule> rules = properties.getRules().stream()
             .map(this::convertToRule)
@@ -52,6 +60,12 @@ public class RateLimiterAutoConfiguration {
 
         strategyResolver.registerRules(rules);
         
+        List<EndpointCost> endpointCosts = properties.getEndpointCosts().stream()
+            .map(this::convertToEndpointCost)
+            .collect(Collectors.toList());
+        
+        strategyResolver.registerEndpointCosts(endpointCosts);
+        
         log.info("Rate Limiter Configuration:");
         log.info("  - Enabled: {}", properties.isEnabled());
         log.info("  - Redis: {}:{}", properties.getRedis().getHost(), properties.getRedis().getPort());
@@ -59,19 +73,33 @@ public class RateLimiterAutoConfiguration {
             properties.getCircuitBreaker().isEnabled(),
             properties.getCircuitBreaker().getFallbackStrategy());
         log.info("  - Rules Registered: {}", rules.size());
+        log.info("  - Endpoint Costs Registered: {}", endpointCosts.size());
         log.info("  - Headers Enabled: {}", properties.getHeaders().isIncludeRateLimitHeaders());
+        log.info("  - Filter Mode: {}", properties.getFilterMode());
         log.info("=".repeat(80));
     }
 
     private RateLimitRule convertToRule(RateLimiterProperties.RuleConfig config) {
         return RateLimitRule.builder()
             .dimension(config.getDimension())
+            .combinedWith(config.getCombinedWith())
             .limit(config.getLimit())
             .window(config.getWindow())
+            .algorithm(config.getAlgorithm())
             .priority(config.getPriority())
             .enabled(config.isEnabled())
             .identifier(config.getIdentifier())
+            .httpMethod(config.getHttpMethod())
+            .cost(config.getCost())
             .description(config.getDescription())
             .build();
     }
+
+    private EndpointCost convertToEndpointCost(RateLimiterProperties.EndpointCostConfig config) {
+        return EndpointCost.builder()
+            .pattern(config.getPattern())
+            .httpMethod(config.getHttpMethod())
+            .cost(config.getCost())
+            .build();
+    }
 }
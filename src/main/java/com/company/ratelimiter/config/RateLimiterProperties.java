@@ -1,11 +1,16 @@
 package com.company.ratelimiter.config;
 
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
 import com.company.ratelimiter.model.RateLimitDimension;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.time.Duration;
@@ -26,6 +31,24 @@ public class RateLimiterProperties {
      */
     private boolean enabled = true;
 
+    /**
+     * Executor used for rate limit checks
+     */
+    @NotNull
+    private ExecutorMode executorMode = ExecutorMode.REDIS;
+
+    /**
+     * How RateLimiterFilter waits for the decision (BLOCKING or ASYNC)
+     */
+    @NotNull
+    private FilterMode filterMode = FilterMode.BLOCKING;
+
+    /**
+     * Register the WebFlux filter in reactive applications (disable to limit
+     * only selected Spring Cloud Gateway routes)
+     */
+    private boolean webFilterEnabled = true;
+
     /**
      * Redis configuration
      */
@@ -38,20 +61,104 @@ public class RateLimiterProperties {
     @Valid
     private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
 
+    /**
+     * Storage of the LOCAL_CACHE fallback
+     */
+    @Valid
+    private LocalFallbackConfig localFallback = new LocalFallbackConfig();
+
+    /**
+     * Heartbeats of live instances, dividing LOCAL_CACHE fallback limits
+     */
+    @Valid
+    private InstanceRegistryConfig instanceRegistry = new InstanceRegistryConfig();
+
     /**
      * Rate limit rules
      */
     @Valid
     private List<RuleConfig> rules = new ArrayList<>();
 
+    /**
+     * Per-endpoint request costs in permits
+     */
+    @Valid
+    private List<EndpointCostConfig> endpointCosts = new ArrayList<>();
+
     /**
      * HTTP header configuration
      */
     @Valid
     private HeaderConfig headers = new HeaderConfig();
 
+    /**
+     * Local permit leasing configuration (executor-mode: LEASING)
+     */
+    @Valid
+    private LeasingConfig leasing = new LeasingConfig();
+
+    /**
+     * Local decisions with write-behind sync to Redis (executor-mode: LOCAL_FIRST)
+     */
+    @Valid
+    private LocalFirstConfig localFirst = new LocalFirstConfig();
+
+    /**
+     * Local cache of denied keys
+     */
+    @Valid
+    private DenyCacheConfig denyCache = new DenyCacheConfig();
+
+    /**
+     * Micro-batching of concurrent script calls into pipelined writes
+     */
+    @Valid
+    private BatchingConfig batching = new BatchingConfig();
+
+    /**
+     * Spreading of GLOBAL rules over sub-keys
+     */
+    @Valid
+    private GlobalShardingConfig globalSharding = new GlobalShardingConfig();
+
+    /**
+     * Refunds of permits taken by reserved requests
+     */
+    @Valid
+    private RefundConfig refund = new RefundConfig();
+
+    /**
+     * Read-only quota queries (peek)
+     */
+    @Valid
+    private PeekConfig peek = new PeekConfig();
+
+    /**
+     * HTTP endpoint evaluating many requests in one call
+     */
+    @Valid
+    private BatchEndpointConfig batchEndpoint = new BatchEndpointConfig();
+
+    public enum ExecutorMode {
+        REDIS,
+        LEASING,
+        LOCAL_FIRST,  // Decided from local counters, deltas synced to Redis in the background
+        SHARDED   // Keys spread over redis.shards by consistent hashing
+    }
+
+    public enum FilterMode {
+        BLOCKING,  // Container thread waits for Redis
+        ASYNC      // Servlet async: container thread is released while Redis is in flight
+    }
+
     @Data
     public static class RedisConfig {
+        /**
+         * STANDALONE uses host/port; CLUSTER uses cluster.nodes
+         */
+        @NotNull
+        private RedisMode mode = RedisMode.STANDALONE;
+        
         private String host = "localhost";
         
         @Min(1)
@@ -64,6 +171,65 @@ public class RateLimiterProperties {
         
         @Valid
         private PoolConfig pool = new PoolConfig();
+        
+        @Valid
+        private ClusterConfig cluster = new ClusterConfig();
+        
+        /**
+         * Independent standalone nodes for executor-mode: SHARDED
+         */
+        @Valid
+        private List<ShardConfig> shards = new ArrayList<>();
+        
+        /**
+         * Points per shard on the consistent-hash ring
+         */
+        @Min(1)
+        private int virtualNodes = 160;
+    }
+
+    public enum RedisMode {
+        STANDALONE,
+        CLUSTER
+    }
+
+    @Data
+    public static class ClusterConfig {
+        /**
+         * Seed nodes as host:port
+         */
+        @NotNull
+        private List<String> nodes = new ArrayList<>();
+        
+        @Min(1)
+        private int maxRedirects = 3;
+        
+        @NotNull
+        private Duration topologyRefreshPeriod = Duration.ofSeconds(30);
+        
+        /**
+         * Principal dimension whose identifier is used as the hash tag (e.g. USER or TENANT).
+         * Keys of that dimension and of composite rules including it then share a slot,
+         * so their multi-dimension check stays atomic. Unset: no tagging.
+         */
+        private RateLimitDimension keyTagDimension;
+    }
+
+    @Data
+    public static class ShardConfig {
+        /**
+         * Stable shard name; ring positions are derived from it, so renaming a
+         * shard moves its keys (changing host/port does not)
+         */
+        @NotNull
+        private String name;
+        
+        private String host = "localhost";
+        
+        @Min(1)
+        private int port = 6379;
+        
+        private String password;
     }
 
     @Data
@@ -105,26 +271,327 @@ public class RateLimiterProperties {
         LOCAL_CACHE
     }
 
+    @Data
+    public static class LocalFallbackConfig {
+        @NotNull
+        private LocalStorage storage = LocalStorage.HEAP;
+        
+        /**
+         * Keys kept on the heap (storage: HEAP)
+         */
+        @Min(1)
+        private long maximumSize = 10_000;
+        
+        /**
+         * Slots of the off-heap table (storage: OFF_HEAP), rounded up to a
+         * power of two; 32 bytes each
+         */
+        @Min(1024)
+        @jakarta.validation.constraints.Max(1 << 30)
+        private int offHeapCapacity = 1 << 20;
+        
+        /**
+         * Replay of locally counted usage into Redis when the circuit closes
+         */
+        @Valid
+        private ReconciliationConfig reconciliation = new ReconciliationConfig();
+    }
+
+    @Data
+    public static class ReconciliationConfig {
+        private boolean enabled = true;
+        
+        /**
+         * Keys sent as one pipelined batch
+         */
+        @Min(1)
+        private int batchSize = 100;
+        
+        /**
+         * Pace of the replay, so a freshly restarted Redis is not flooded
+         */
+        @Min(1)
+        private int maxKeysPerSecond = 2_000;
+        
+        /**
+         * How long to wait for a batch before giving up on the rest
+         */
+        @NotNull
+        private Duration batchTimeout = Duration.ofSeconds(5);
+    }
+
+    public enum LocalStorage {
+        HEAP,     // Caffeine cache of sub-window rings, evicted by size
+        OFF_HEAP  // Fixed table of window counters in direct memory
+    }
+
+    @Data
+    public static class InstanceRegistryConfig {
+        private boolean enabled = false;
+        
+        /**
+         * How often each instance refreshes its heartbeat and the live count
+         */
+        @NotNull
+        private Duration heartbeatInterval = Duration.ofSeconds(5);
+        
+        /**
+         * Instances without a heartbeat for this long are no longer counted
+         */
+        @NotNull
+        private Duration instanceTtl = Duration.ofSeconds(15);
+        
+        /**
+         * Multiplier on each instance's share of the limit (limit × headroom / instances),
+         * above 1 to absorb uneven load balancing
+         */
+        @DecimalMin("1.0")
+        private double headroom = 1.0;
+    }
+
     @Data
     public static class RuleConfig {
         @NotNull
         private RateLimitDimension dimension;
         
+        private List<RateLimitDimension> combinedWith = new ArrayList<>();  // Optional: composite key, e.g. USER + [ENDPOINT]
+        
         @Min(1)
         private long limit;
         
         @NotNull
         private Duration window;
         
+        @NotNull
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.SLIDING_WINDOW_LOG;
+        
         private int priority = 100;
         
         private boolean enabled = true;
         
-        private String identifier;  // Optional: specific identifier
+        private String identifier;  // Optional: specific identifier (ENDPOINT: path pattern, e.g. /users/{id})
+        
+        private String httpMethod;  // Optional: HTTP method for ENDPOINT pattern rules
+        
+        @Min(1)
+        @Max(RateLimitContext.MAX_PERMITS)
+        private long cost = 1;  // Permits per request for this rule
         
         private String description;
     }
 
+    @Data
+    public static class EndpointCostConfig {
+        @NotNull
+        private String pattern;  // Endpoint path pattern, e.g. /api/reports/**
+        
+        private String httpMethod;  // Optional: HTTP method
+        
+        @Min(1)
+        @Max(RateLimitContext.MAX_PERMITS)
+        private long cost = 1;  // Permits per request to the endpoint
+    }
+
+    @Data
+    public static class LeasingConfig {
+        /**
+         * Lease size for a key without rate history, as a fraction of the limit
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double initialFraction = 0.05;
+        
+        /**
+         * Upper bound for an adaptive lease, as a fraction of the limit.
+         * Bounds the permits an instance can hold back from the rest of the fleet.
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double maxFraction = 0.10;
+        
+        @Min(1)
+        private long minLeaseSize = 1;
+        
+        /**
+         * How long a lease may be served locally before unused permits are returned
+         */
+        @NotNull
+        private Duration leaseTtl = Duration.ofSeconds(1);
+        
+        /**
+         * Dimensions whose TOKEN_BUCKET rules are served from leases
+         */
+        @NotNull
+        private List<RateLimitDimension> dimensions = new ArrayList<>(
+            List.of(RateLimitDimension.USER, RateLimitDimension.API_KEY));
+    }
+
+    @Data
+    public static class LocalFirstConfig {
+        /**
+         * How often per-key deltas are written to Redis and fleet totals read back
+         */
+        @NotNull
+        private Duration syncInterval = Duration.ofMillis(50);
+        
+        /**
+         * Longest time a local decision may stay unsynced. Beyond it (Redis
+         * unreachable or syncs falling behind) checks fail over to the circuit
+         * breaker's fallback.
+         */
+        @NotNull
+        private Duration maxStaleness = Duration.ofSeconds(1);
+        
+        /**
+         * How often the fleet totals of a key without local deltas are re-read.
+         * Such keys skip the sync call until their view is this old.
+         */
+        @NotNull
+        private Duration viewRefreshInterval = Duration.ofSeconds(1);
+        
+        /**
+         * Permits one instance may admit per key between two fleet views, as a
+         * fraction of the limit (at least one). Bounds the fleet's overshoot to
+         * about instances * fraction * limit per sync interval.
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double maxUnsyncedFraction = 0.10;
+        
+        /**
+         * Dimensions decided locally; rules of other dimensions go to Redis on every request
+         */
+        @NotNull
+        private List<RateLimitDimension> dimensions = new ArrayList<>(List.of(RateLimitDimension.values()));
+    }
+
+    @Data
+    public static class BatchingConfig {
+        private boolean enabled = false;
+        
+        /**
+         * How long the first call of a batch waits for others to join
+         */
+        @NotNull
+        private Duration window = Duration.ofNanos(200_000);
+        
+        @Min(1)
+        private int maxBatchSize = 64;
+    }
+
+    @Data
+    public static class GlobalShardingConfig {
+        private boolean enabled = false;
+        
+        /**
+         * Number of sub-keys a GLOBAL rule is split into
+         */
+        @Min(1)
+        private int subKeys = 8;
+        
+        @NotNull
+        private SubKeySelection selection = SubKeySelection.RANDOM;
+        
+        /**
+         * How often shares are recomputed from the demand seen by each sub-key
+         */
+        @NotNull
+        private Duration rebalanceInterval = Duration.ofSeconds(10);
+        
+        /**
+         * Fraction of an equal share every sub-key keeps, however idle
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double minShare = 0.25;
+    }
+
+    @Data
+    public static class RefundConfig {
+        /**
+         * Refund the permits of requests that fail with a 5xx response (servlet filter)
+         */
+        private boolean onServerError = false;
+        
+        /**
+         * How long the first refund of a batch waits for others to join
+         */
+        @NotNull
+        private Duration window = Duration.ofMillis(10);
+        
+        @Min(1)
+        private int maxBatchSize = 500;
+        
+        /**
+         * Refunds waiting to be sent; further refunds are dropped (quota stays consumed)
+         */
+        @Min(1)
+        private int queueCapacity = 100_000;
+    }
+
+    @Data
+    public static class PeekConfig {
+        /**
+         * Lettuce ReadFrom for peek scripts (e.g. UPSTREAM, REPLICA_PREFERRED).
+         * Anything but UPSTREAM sends them as EVAL_RO, which needs Redis 7.
+         */
+        @NotNull
+        private String readFrom = "UPSTREAM";
+        
+        /**
+         * How long a peeked quota is served from the local cache
+         */
+        @NotNull
+        private Duration cacheTtl = Duration.ofMillis(500);
+        
+        @Min(1)
+        private long cacheMaximumSize = 10_000;
+    }
+
+    @Data
+    public static class BatchEndpointConfig {
+        /**
+         * Expose POST {path}; callers can consume any identifier's quota, so only enable it for trusted callers
+         */
+        private boolean enabled = false;
+        
+        @NotNull
+        private String path = "/ratelimiter/evaluate";
+        
+        /**
+         * Largest number of requests accepted per call
+         */
+        @Min(1)
+        private int maxSize = 1000;
+        
+        /**
+         * Largest cost in permits accepted per item
+         */
+        @Min(1)
+        @Max(RateLimitContext.MAX_PERMITS)
+        private long maxCost = 1000;
+    }
+
+    public enum SubKeySelection {
+        RANDOM,    // Per request, from the request ID
+        INSTANCE   // One sub-key per instance
+    }
+
+    @Data
+    public static class DenyCacheConfig {
+        private boolean enabled = true;
+        
+        @Min(1)
+        private long maximumSize = 100_000;
+        
+        /**
+         * Dimensions whose denials are answered locally until the retry time
+         */
+        @NotNull
+        private List<RateLimitDimension> dimensions = new ArrayList<>(
+            List.of(RateLimitDimension.values()));
+    }
+
     @Data
     public static class HeaderConfig {
         private boolean includeRateLimitHeaders = true;
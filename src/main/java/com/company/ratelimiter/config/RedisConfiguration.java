@@ -2,10 +2,13 @@ package com.company.ratelimiter.config;
 
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
@@ -34,20 +37,41 @@ public class RedisConfiguration {
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RateLimiterProperties.RedisConfig redisConfig = properties.getRedis();
-        RateLimiterProperties.PoolConfig poolConfig = redisConfig.getPool();
+
+        if (redisConfig.getMode() == RateLimiterProperties.RedisMode.CLUSTER) {
+            return clusterConnectionFactory(redisConfig);
+        }
+
+        LettuceConnectionFactory factory = standaloneConnectionFactory(
+            redisConfig.getHost(), redisConfig.getPort(), redisConfig.getPassword(), redisConfig.getTimeout());
+        
+        log.info("Redis connection factory configured: {}:{}", 
+            redisConfig.getHost(), redisConfig.getPort());
+        
+        return factory;
+    }
+
+    /**
+     * Connection factory for one standalone node (also used per shard)
+     */
+    static LettuceConnectionFactory standaloneConnectionFactory(
+            String host,
+            int port,
+            String password,
+            Duration timeout) {
 
         // Redis server configuration
         RedisStandaloneConfiguration serverConfig = new RedisStandaloneConfiguration();
-        serverConfig.setHostName(redisConfig.getHost());
-        serverConfig.setPort(redisConfig.getPort());
+        serverConfig.setHostName(host);
+        serverConfig.setPort(port);
         
-        if (redisConfig.getPassword() != null && !redisConfig.getPassword().isEmpty()) {
-            serverConfig.setPassword(redisConfig.getPassword());
+        if (password != null && !password.isEmpty()) {
+            serverConfig.setPassword(password);
         }
 
         // Socket options for connection timeout
         SocketOptions socketOptions = SocketOptions.builder()
-            .connectTimeout(redisConfig.getTimeout())
+            .connectTimeout(timeout)
             .build();
 
         // Client options
@@ -56,21 +80,70 @@ public class RedisConfiguration {
             .build();
 
         // Pooling configuration
+        LettuceClientConfiguration clientConfig = LettucePoolingClientConfiguration.builder()
+            .commandTimeout(timeout)
+            .clientOptions(clientOptions)
+            .build();
+
+        return new LettuceConnectionFactory(serverConfig, clientConfig);
+    }
+
+    /**
+     * Redis Cluster connection factory.
+     * Topology is refreshed periodically and on redirects/reconnects, so slot
+     * migrations and failovers are picked up without a restart.
+     */
+    private RedisConnectionFactory clusterConnectionFactory(RateLimiterProperties.RedisConfig redisConfig) {
+        RateLimiterProperties.ClusterConfig clusterConfig = redisConfig.getCluster();
+        if (clusterConfig.getNodes().isEmpty()) {
+            throw new IllegalStateException("ratelimiter.redis.cluster.nodes must be set in CLUSTER mode");
+        }
+
+        RedisClusterConfiguration serverConfig = new RedisClusterConfiguration(clusterConfig.getNodes());
+        serverConfig.setMaxRedirects(clusterConfig.getMaxRedirects());
+
+        if (redisConfig.getPassword() != null && !redisConfig.getPassword().isEmpty()) {
+            serverConfig.setPassword(redisConfig.getPassword());
+        }
+
+        ClusterTopologyRefreshOptions topologyRefresh = ClusterTopologyRefreshOptions.builder()
+            .enablePeriodicRefresh(clusterConfig.getTopologyRefreshPeriod())
+            .enableAllAdaptiveRefreshTriggers()
+            .build();
+
+        ClusterClientOptions clientOptions = ClusterClientOptions.builder()
+            .socketOptions(SocketOptions.builder()
+                .connectTimeout(redisConfig.getTimeout())
+                .build())
+            .topologyRefreshOptions(topologyRefresh)
+            .maxRedirects(clusterConfig.getMaxRedirects())
+            .build();
+
         LettuceClientConfiguration clientConfig = LettucePoolingClientConfiguration.builder()
             .commandTimeout(redisConfig.getTimeout())
             .clientOptions(clientOptions)
             .build();
 
         LettuceConnectionFactory factory = new LettuceConnectionFactory(serverConfig, clientConfig);
-        
-        log.info("Redis connection factory configured: {}:{}", 
-            redisConfig.getHost(), redisConfig.getPort());
-        
+
+        log.info("Redis cluster connection factory configured: {} (key tag dimension: {})",
+            clusterConfig.getNodes(), clusterConfig.getKeyTagDimension());
+
         return factory;
     }
 
     @Bean
     public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, String> template = stringRedisTemplate(connectionFactory);
+        
+        log.info("RedisTemplate configured for rate limiter");
+        return template;
+    }
+
+    /**
+     * String-serialized template over a connection factory
+     */
+    static RedisTemplate<String, String> stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -82,8 +155,6 @@ public class RedisConfiguration {
         template.setHashValueSerializer(stringSerializer);
         
         template.afterPropertiesSet();
-        
-        log.info("RedisTemplate configured for rate limiter");
         return template;
     }
 }
@@ -0,0 +1,33 @@
+package com.company.ratelimiter.config;
+
+import com.company.ratelimiter.filter.RateLimiterFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Servlet registration of {@link RateLimiterFilter}.
+ * Kept apart from the auto-configuration so reactive applications never load servlet types.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "ratelimiter", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ServletFilterConfiguration {
+
+    /**
+     * Register the filter for ASYNC dispatches as well, so that requests
+     * suspended in filter-mode ASYNC are resumed through it
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimiterFilter> rateLimiterFilterRegistration(RateLimiterFilter filter) {
+        FilterRegistrationBean<RateLimiterFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registration.setAsyncSupported(true);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,123 @@
+package com.company.ratelimiter.config;
+
+import com.company.ratelimiter.executor.ClusterKeyTagger;
+import com.company.ratelimiter.executor.GlobalLimitSharder;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.executor.PermitRefunder;
+import com.company.ratelimiter.executor.RateLimitExecutor;
+import com.company.ratelimiter.executor.RedisAsyncScriptExecutor;
+import com.company.ratelimiter.executor.RedisRateLimitExecutor;
+import com.company.ratelimiter.executor.ScriptBatcher;
+import com.company.ratelimiter.executor.ShardedRateLimitExecutor;
+import com.company.ratelimiter.fallback.FallbackStrategy;
+import com.company.ratelimiter.scripts.LuaScriptLoader;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client-side sharding over independent standalone Redis nodes (executor-mode: SHARDED).
+ * Builds one Redis executor per entry of redis.shards, each with its own
+ * connection factory, async connection, batching stage and refunder.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(
+    prefix = "ratelimiter",
+    name = "executor-mode",
+    havingValue = "SHARDED"
+)
+public class ShardedExecutorConfiguration implements DisposableBean {
+
+    private final RateLimiterProperties properties;
+
+    // Per-shard resources created outside the container, released on shutdown
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private final List<RedisAsyncScriptExecutor> asyncScriptExecutors = new ArrayList<>();
+    private final List<ScriptBatcher> scriptBatchers = new ArrayList<>();
+    private final List<PermitRefunder> refunders = new ArrayList<>();
+
+    public ShardedExecutorConfiguration(RateLimiterProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    @Primary
+    public ShardedRateLimitExecutor shardedRateLimitExecutor(
+            LuaScriptLoader luaScriptLoader,
+            MeterRegistry meterRegistry,
+            LocalDenyCache denyCache,
+            ClusterKeyTagger keyTagger,
+            GlobalLimitSharder globalSharder,
+            FallbackStrategy fallbackStrategy,
+            CircuitBreakerRegistry circuitBreakerRegistry) {
+
+        RateLimiterProperties.RedisConfig redisConfig = properties.getRedis();
+        if (redisConfig.getShards().isEmpty()) {
+            throw new IllegalStateException("ratelimiter.redis.shards must be set for executor-mode SHARDED");
+        }
+
+        Map<String, RateLimitExecutor> shardExecutors = new LinkedHashMap<>();
+        for (RateLimiterProperties.ShardConfig shard : redisConfig.getShards()) {
+            LettuceConnectionFactory connectionFactory = RedisConfiguration.standaloneConnectionFactory(
+                shard.getHost(), shard.getPort(), shard.getPassword(), redisConfig.getTimeout());
+            connectionFactory.afterPropertiesSet();
+            connectionFactories.add(connectionFactory);
+
+            RedisAsyncScriptExecutor asyncScriptExecutor = new RedisAsyncScriptExecutor(connectionFactory, properties);
+            asyncScriptExecutors.add(asyncScriptExecutor);
+
+            ScriptBatcher scriptBatcher = new ScriptBatcher(properties, asyncScriptExecutor, meterRegistry);
+            scriptBatchers.add(scriptBatcher);
+
+            PermitRefunder refunder = new PermitRefunder(
+                properties, asyncScriptExecutor, luaScriptLoader, denyCache, meterRegistry);
+            refunders.add(refunder);
+
+            RateLimitExecutor executor = new RedisRateLimitExecutor(
+                RedisConfiguration.stringRedisTemplate(connectionFactory),
+                luaScriptLoader,
+                meterRegistry,
+                denyCache,
+                asyncScriptExecutor,
+                scriptBatcher,
+                keyTagger,
+                globalSharder,
+                refunder);
+
+            if (shardExecutors.put(shard.getName(), executor) != null) {
+                throw new IllegalStateException("Duplicate Redis shard name: " + shard.getName());
+            }
+            log.info("Redis shard '{}' configured: {}:{}", shard.getName(), shard.getHost(), shard.getPort());
+        }
+
+        return new ShardedRateLimitExecutor(
+            shardExecutors,
+            redisConfig.getVirtualNodes(),
+            keyTagger,
+            globalSharder,
+            fallbackStrategy,
+            circuitBreakerRegistry,
+            meterRegistry,
+            redisConfig.getTimeout());
+    }
+
+    @Override
+    public void destroy() {
+        refunders.forEach(PermitRefunder::shutdown);
+        scriptBatchers.forEach(ScriptBatcher::shutdown);
+        asyncScriptExecutors.forEach(RedisAsyncScriptExecutor::shutdown);
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+    }
+}
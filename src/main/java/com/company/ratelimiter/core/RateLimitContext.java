@@ -1,9 +1,13 @@
 package com.company.ratelimiter.core;
 
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +23,21 @@ import java.util.UUID;
 @AllArgsConstructor
 public class RateLimitContext {
     
+    /**
+     * Attribute holding the request's cost in permits (default 1)
+     */
+    public static final String COST_ATTRIBUTE = "ratelimit.cost";
+    
+    /**
+     * Upper bound for costs and permits: below 2^53, so Lua scripts (which
+     * compute in doubles) count every permit exactly
+     */
+    public static final long MAX_PERMITS = (1L << 53) - 1;
+    
+    // Reused per thread to encode composite identifiers
+    private static final ThreadLocal<StringBuilder> COMPOSITE_BUILDER =
+        ThreadLocal.withInitial(() -> new StringBuilder(128));
+    
     /**
      * Unique request ID for tracking and deduplication
      */
@@ -55,11 +74,24 @@ public class RateLimitContext {
      */
     private String requestUri;
     
+    /**
+     * Route template the request matched (e.g. /users/:id); used as the
+     * ENDPOINT identifier instead of the raw URI when set
+     */
+    private String endpointPattern;
+    
     /**
      * Additional attributes that can be used for custom rate limiting logic
      */
     @Builder.Default
     private Map<String, String> attributes = new HashMap<>();
+    
+    /**
+     * Reservation collecting the permits this request takes (null unless reserved)
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private RateLimitReservation reservation;
 
     /**
      * Get identifier for a specific dimension
@@ -70,11 +102,51 @@ public class RateLimitContext {
             case IP -> ipAddress;
             case API_KEY -> apiKey;
             case TENANT -> tenantId;
-            case ENDPOINT -> requestUri;
+            case ENDPOINT -> endpointPattern != null ? endpointPattern : requestUri;
             case GLOBAL -> "global";
         };
     }
 
+    /**
+     * Get identifier for a rule's key: the identifier of its dimension, or for a
+     * composite rule the identifiers of all its dimensions joined by '|'
+     * ('|' and '%' inside an identifier are percent-encoded).
+     * Returns null if any of them is missing.
+     */
+    public String getIdentifier(RateLimitRule rule) {
+        String first = getIdentifier(rule.getDimension());
+        if (!rule.isComposite() || first == null || first.isEmpty()) {
+            return first;
+        }
+
+        StringBuilder composite = COMPOSITE_BUILDER.get();
+        composite.setLength(0);
+        appendEscaped(composite, first);
+        for (RateLimitDimension dimension : rule.getCombinedWith()) {
+            String identifier = getIdentifier(dimension);
+            if (identifier == null || identifier.isEmpty()) {
+                return null;
+            }
+            appendEscaped(composite.append('|'), identifier);
+        }
+        return composite.toString();
+    }
+
+    private static void appendEscaped(StringBuilder composite, String identifier) {
+        if (identifier.indexOf('|') < 0 && identifier.indexOf('%') < 0) {
+            composite.append(identifier);
+            return;
+        }
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+            switch (c) {
+                case '|' -> composite.append("%7C");
+                case '%' -> composite.append("%25");
+                default -> composite.append(c);
+            }
+        }
+    }
+
     /**
      * Check if this context has an identifier for the given dimension
      */
@@ -83,6 +155,57 @@ public class RateLimitContext {
         return identifier != null && !identifier.isEmpty();
     }
 
+    /**
+     * Cost of this request in permits, from the {@link #COST_ATTRIBUTE} attribute
+     * (default 1), clamped to [1, {@link #MAX_PERMITS}]
+     */
+    public long getCost() {
+        String cost = getAttribute(COST_ATTRIBUTE);
+        if (cost == null) {
+            return 1;
+        }
+        try {
+            return Math.min(MAX_PERMITS, Math.max(1, Long.parseLong(cost)));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Set the cost of this request in permits
+     */
+    public void setCost(long cost) {
+        addAttribute(COST_ATTRIBUTE, String.valueOf(cost));
+    }
+
+    /**
+     * Whether the request's cost was set explicitly
+     */
+    public boolean hasCost() {
+        return getAttribute(COST_ATTRIBUTE) != null;
+    }
+
+    /**
+     * Permits this request consumes from a rule: rule cost times request cost,
+     * clamped to {@link #MAX_PERMITS} (more than any limit, so the request is denied)
+     */
+    public long getPermits(RateLimitRule rule) {
+        long ruleCost = Math.min(MAX_PERMITS, Math.max(1, rule.getCost()));
+        try {
+            return Math.min(MAX_PERMITS, Math.multiplyExact(ruleCost, getCost()));
+        } catch (ArithmeticException e) {
+            return MAX_PERMITS;
+        }
+    }
+
+    /**
+     * Start collecting the permits this request takes, so they can be refunded
+     */
+    public RateLimitReservation startReservation() {
+        this.reservation = new RateLimitReservation(requestId);
+        return reservation;
+    }
+
     /**
      * Add custom attribute
      */
@@ -48,6 +48,13 @@ public class RateLimitDecision {
      */
     private String context;
     
+    /**
+     * Exact time until the next request is allowed, as computed by the
+     * algorithm at decision time (milliseconds, -1 if unknown)
+     */
+    @Builder.Default
+    private long retryAfterMillis = -1;
+    
     /**
      * Whether this decision came from fallback (not Redis)
      */
@@ -107,9 +114,14 @@ public class RateLimitDecision {
     }
 
     /**
-     * Get retry-after value in seconds (for 429 responses)
+     * Get retry-after value in seconds (for 429 responses).
+     * Uses the exact retry-after reported by the algorithm when available
+     * (rounded up to whole seconds), otherwise derives it from the reset time.
      */
     public long getRetryAfterSeconds() {
+        if (retryAfterMillis >= 0) {
+            return (retryAfterMillis + 999) / 1000;
+        }
         long now = Instant.now().getEpochSecond();
         return Math.max(0, resetTime - now);
     }
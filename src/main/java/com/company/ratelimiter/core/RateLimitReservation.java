@@ -0,0 +1,76 @@
+package com.company.ratelimiter.core;
+
+import com.company.ratelimiter.executor.ReservedPermit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle on the permits a request consumed, returned by
+ * {@link RateLimiterService#reserve(RateLimitContext)}.
+ *
+ * Executors record every permit they take for a request whose context carries
+ * a reservation. Passing the reservation to
+ * {@link RateLimiterService#refund(RateLimitReservation)} gives the permits
+ * back, e.g. when the request failed before doing any work and the client is
+ * expected to retry. A reservation is refunded at most once.
+ */
+public class RateLimitReservation {
+
+    private final String requestId;
+    private final List<ReservedPermit> permits = new ArrayList<>(4);
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile RateLimitDecision decision;
+
+    public RateLimitReservation(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Decision made for the request
+     */
+    public RateLimitDecision getDecision() {
+        return decision;
+    }
+
+    void setDecision(RateLimitDecision decision) {
+        this.decision = decision;
+    }
+
+    /**
+     * Record permits taken for this request
+     */
+    public void add(ReservedPermit permit) {
+        synchronized (permits) {
+            permits.add(permit);
+        }
+    }
+
+    /**
+     * Permits taken so far
+     */
+    public List<ReservedPermit> getPermits() {
+        synchronized (permits) {
+            return List.copyOf(permits);
+        }
+    }
+
+    /**
+     * Whether the reservation was already refunded
+     */
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    /**
+     * Mark the reservation refunded; false if it already was
+     */
+    boolean markReleased() {
+        return released.compareAndSet(false, true);
+    }
+}
@@ -1,19 +1,32 @@
 package com.company.ratelimiter.core;
 
+import com.company.ratelimiter.config.RateLimiterProperties;
 import com.company.ratelimiter.exception.RateLimitExceededException;
 import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.executor.PermitRefunder;
 import com.company.ratelimiter.executor.RateLimitExecutor;
+import com.company.ratelimiter.executor.ReservedPermit;
 import com.company.ratelimiter.fallback.FallbackStrategy;
+import com.company.ratelimiter.model.RateLimitKey;
 import com.company.ratelimiter.model.RateLimitRule;
 import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -24,23 +37,33 @@ import java.util.function.Supplier;
 @Service
 public class RateLimiterService {
 
-    private final RateLimitExecutor redisExecutor;
+    private final RateLimitExecutor executor;
     private final RateLimitStrategyResolver strategyResolver;
     private final FallbackStrategy fallbackStrategy;
     private final CircuitBreaker circuitBreaker;
     private final MeterRegistry meterRegistry;
+    private final Duration asyncTimeout;
+
+    // Recently peeked quotas, keyed by the request's rate limit keys and cost
+    private final Cache<String, RateLimitDecision> peekCache;
 
     public RateLimiterService(
-            @Qualifier("redisRateLimitExecutor") RateLimitExecutor redisExecutor,
+            RateLimitExecutor executor,
             RateLimitStrategyResolver strategyResolver,
             FallbackStrategy fallbackStrategy,
             CircuitBreakerRegistry circuitBreakerRegistry,
-            MeterRegistry meterRegistry) {
+            MeterRegistry meterRegistry,
+            RateLimiterProperties properties) {
         
-        this.redisExecutor = redisExecutor;
+        this.executor = executor;
         this.strategyResolver = strategyResolver;
         this.fallbackStrategy = fallbackStrategy;
         this.meterRegistry = meterRegistry;
+        this.asyncTimeout = properties.getRedis().getTimeout();
+        this.peekCache = Caffeine.newBuilder()
+            .maximumSize(properties.getPeek().getCacheMaximumSize())
+            .expireAfterWrite(properties.getPeek().getCacheTtl())
+            .build();
         
         // Get or create circuit breaker for rate limiter
         this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("rateLimiterCircuitBreaker");
@@ -56,6 +79,11 @@ public class RateLimiterService {
                     "from", event.getStateTransition().getFromState().name(),
                     "to", event.getStateTransition().getToState().name()
                 ).increment();
+
+                // Hand usage counted locally during the outage back to Redis
+                if (event.getStateTransition().getToState() == CircuitBreaker.State.CLOSED) {
+                    fallbackStrategy.onExecutorRecovered(executor);
+                }
             });
         
         this.circuitBreaker.getEventPublisher()
@@ -63,20 +91,95 @@ public class RateLimiterService {
             .onError(event -> log.warn("Circuit Breaker error: {}", event.getThrowable().getMessage()))
             .onCallNotPermitted(event -> log.warn("Circuit Breaker OPEN - call not permitted"));
 
-        log.info("RateLimiterService initialized with fallback strategy: {}", 
-            fallbackStrategy.getStrategyName());
+        log.info("RateLimiterService initialized with executor: {}, fallback strategy: {}", 
+            executor.getExecutorType(), fallbackStrategy.getStrategyName());
     }
 
     /**
      * Check if a request should be allowed based on rate limits.
      * Throws RateLimitExceededException if denied.
      * 
+     * The returned decision is the single evaluation made for this request and
+     * should be reused for response headers - evaluating again would consume
+     * another permit and cost another Redis round trip.
+     * 
+     * @param context Request context
+     * @return Decision for the (allowed) request
+     * @throws RateLimitExceededException if rate limit is exceeded
+     */
+    public RateLimitDecision checkRateLimit(RateLimitContext context) {
+        return recordOutcome(evaluateRateLimit(context));
+    }
+
+    /**
+     * Non-blocking variant of {@link #checkRateLimit(RateLimitContext)}.
+     * 
+     * @param context Request context
+     * @return Stage completing with the decision for an allowed request, or
+     *         exceptionally with RateLimitExceededException if denied
+     */
+    public CompletionStage<RateLimitDecision> checkRateLimitAsync(RateLimitContext context) {
+        return evaluateRateLimitAsync(context).thenApply(this::recordOutcome);
+    }
+
+    /**
+     * Check a request like {@link #checkRateLimit(RateLimitContext)} and keep a
+     * handle on the permits it consumed, so they can be given back with
+     * {@link #refund(RateLimitReservation)} if the request fails before doing
+     * any work (e.g. a 5xx the client will retry).
+     * 
+     * Permits taken by a check that was denied part-way (split cluster slots or
+     * shards) are refunded right away.
+     * 
      * @param context Request context
+     * @return Reservation of the (allowed) request, carrying its decision
      * @throws RateLimitExceededException if rate limit is exceeded
      */
-    public void checkRateLimit(RateLimitContext context) {
+    public RateLimitReservation reserve(RateLimitContext context) {
+        RateLimitReservation reservation = context.startReservation();
         RateLimitDecision decision = evaluateRateLimit(context);
-        
+        reservation.setDecision(decision);
+
+        if (!decision.isAllowed()) {
+            refund(reservation);
+        }
+        recordOutcome(decision);
+        return reservation;
+    }
+
+    /**
+     * Give back the permits of a reservation.
+     * Refunds are queued and sent to Redis in batches; the call never blocks.
+     * Refunding a reservation more than once has no effect.
+     * 
+     * Permits only come back while they still count against the limit: a
+     * refund after the window moved on, or of a decision made by the fallback
+     * strategy, gives nothing back.
+     */
+    public void refund(RateLimitReservation reservation) {
+        if (reservation == null || !reservation.markReleased()) {
+            return;
+        }
+
+        List<ReservedPermit> permits = reservation.getPermits();
+        if (permits.isEmpty()) {
+            return;
+        }
+
+        // Group by Redis node (one refunder per shard)
+        Map<PermitRefunder, List<ReservedPermit>> byRefunder = new IdentityHashMap<>();
+        for (ReservedPermit permit : permits) {
+            byRefunder.computeIfAbsent(permit.refunder(), r -> new ArrayList<>()).add(permit);
+        }
+        byRefunder.forEach(PermitRefunder::refund);
+
+        meterRegistry.counter("ratelimiter.requests.refunded").increment();
+    }
+
+    /**
+     * Count the decision and throw RateLimitExceededException if it denies the request
+     */
+    private RateLimitDecision recordOutcome(RateLimitDecision decision) {
         if (!decision.isAllowed()) {
             meterRegistry.counter("ratelimiter.requests.denied",
                 "dimension", decision.getDeniedBy() != null ? decision.getDeniedBy().getValue() : "unknown",
@@ -89,6 +192,8 @@ public class RateLimiterService {
         meterRegistry.counter("ratelimiter.requests.allowed",
             "fallback", String.valueOf(decision.isFromFallback())
         ).increment();
+        
+        return decision;
     }
 
     /**
@@ -125,7 +230,7 @@ public class RateLimiterService {
         Supplier<RateLimitDecision> rateLimitCheck = () -> {
             try {
                 // Use multi-dimension check for atomicity
-                return redisExecutor.checkLimits(rules, context);
+                return executor.checkLimits(rules, context);
             } catch (RedisUnavailableException e) {
                 log.error("Redis unavailable during rate limit check", e);
                 throw e;  // Let circuit breaker handle
@@ -138,22 +243,153 @@ public class RateLimiterService {
             
         } catch (Exception e) {
             // Circuit breaker is OPEN or Redis failed
-            log.warn("Falling back to {} strategy due to: {}", 
-                fallbackStrategy.getStrategyName(), e.getMessage());
-            
-            meterRegistry.counter("ratelimiter.fallback.triggered",
-                "strategy", fallbackStrategy.getStrategyName()
-            ).increment();
-            
-            return fallbackStrategy.onExecutorUnavailable(rules, context);
+            return fallback(rules, context, e);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #evaluateRateLimit(RateLimitContext)}.
+     * 
+     * Keeps the circuit breaker and fallback semantics of the blocking path.
+     * A check that does not complete within the Redis timeout is recorded as a
+     * circuit breaker failure and completes with the fallback decision; the
+     * returned stage never completes exceptionally because of Redis.
+     * 
+     * @param context Request context
+     * @return Stage completing with the rate limit decision
+     */
+    public CompletionStage<RateLimitDecision> evaluateRateLimitAsync(RateLimitContext context) {
+        List<RateLimitRule> applicableRules = strategyResolver.resolveRules(context);
+        
+        if (applicableRules.isEmpty()) {
+            log.debug("No applicable rate limit rules for request: {}", context.getRequestId());
+            return CompletableFuture.completedFuture(RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE, 
+                System.currentTimeMillis() / 1000 + 60));
         }
+
+        Supplier<CompletionStage<RateLimitDecision>> rateLimitCheck = () -> executor
+            .checkLimitsAsync(applicableRules, context)
+            .toCompletableFuture()
+            .orTimeout(asyncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        CompletionStage<RateLimitDecision> decision;
+        try {
+            decision = circuitBreaker.executeCompletionStage(rateLimitCheck);
+        } catch (Exception e) {
+            decision = CompletableFuture.failedFuture(e);
+        }
+
+        return decision.exceptionally(e -> fallback(applicableRules, context,
+            e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+
+    /**
+     * Report the quota left for a request without consuming any of it.
+     * 
+     * Backed by a read-only script that can be served by Redis replicas
+     * ({@code peek.read-from}) and by a local cache holding each answer for
+     * {@code peek.cache-ttl}, so quota queries at high rates barely reach
+     * Redis. The answer may therefore lag behind by up to that TTL plus the
+     * replication delay.
+     * 
+     * @param context Request context
+     * @return Decision telling whether a request of the context's cost would be
+     *         allowed now, with the remaining quota before it
+     * @throws RedisUnavailableException if Redis cannot be read or the circuit is OPEN
+     */
+    public RateLimitDecision peek(RateLimitContext context) {
+        List<RateLimitRule> applicableRules = strategyResolver.resolveRules(context);
+        
+        if (applicableRules.isEmpty()) {
+            return RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE, 
+                System.currentTimeMillis() / 1000 + 60);
+        }
+
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            throw new RedisUnavailableException("Rate limit state unavailable: circuit breaker is OPEN");
+        }
+
+        return peekCache.get(peekCacheKey(applicableRules, context), key -> {
+            meterRegistry.counter("ratelimiter.peek.redis").increment();
+            return executor.peek(applicableRules, context);
+        });
+    }
+
+    private static String peekCacheKey(List<RateLimitRule> rules, RateLimitContext context) {
+        StringBuilder key = new StringBuilder(64 * rules.size());
+        for (RateLimitRule rule : rules) {
+            String identifier = context.getIdentifier(rule);
+            if (identifier != null && !identifier.isEmpty()) {
+                key.append(RateLimitKey.of(rule, identifier).toRedisKey()).append('\n');
+            }
+        }
+        return key.append(context.getCost()).toString();
+    }
+
+    /**
+     * Evaluate many requests in one call, e.g. the queue of an API gateway.
+     * 
+     * Every request is checked like {@link #evaluateRateLimitAsync(RateLimitContext)},
+     * in list order and without waiting for the previous one, so the scripts
+     * of the whole batch are written back to back on each Redis node's
+     * connection (pipelined) instead of paying one round trip each. Each
+     * request keeps its own atomic multi-dimension check: permits are taken
+     * for every allowed request and for none of the denied ones.
+     * 
+     * @param contexts Request contexts, in the order they should be evaluated
+     * @return Decisions, one per context in the same order
+     */
+    public List<RateLimitDecision> evaluateBatch(List<RateLimitContext> contexts) {
+        return evaluateBatchAsync(contexts).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #evaluateBatch(List)}
+     */
+    public CompletableFuture<List<RateLimitDecision>> evaluateBatchAsync(List<RateLimitContext> contexts) {
+        meterRegistry.summary("ratelimiter.batch.evaluate.size").record(contexts.size());
+
+        List<CompletableFuture<RateLimitDecision>> pending = new ArrayList<>(contexts.size());
+        for (RateLimitContext context : contexts) {
+            pending.add(evaluateRateLimitAsync(context).toCompletableFuture());
+        }
+
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+            .thenApply(done -> {
+                List<RateLimitDecision> decisions = new ArrayList<>(pending.size());
+                for (CompletableFuture<RateLimitDecision> decision : pending) {
+                    decisions.add(decision.join());
+                }
+                return decisions;
+            });
+    }
+
+    /**
+     * Decide with the fallback strategy after the executor failed or the circuit is OPEN
+     */
+    private RateLimitDecision fallback(List<RateLimitRule> rules, RateLimitContext context, Throwable cause) {
+        log.warn("Falling back to {} strategy due to: {}", 
+            fallbackStrategy.getStrategyName(), cause.toString());
+        
+        meterRegistry.counter("ratelimiter.fallback.triggered",
+            "strategy", fallbackStrategy.getStrategyName()
+        ).increment();
+        
+        return fallbackStrategy.onExecutorUnavailable(rules, context);
+    }
+
+    /**
+     * Whether {@link #checkRateLimitAsync(RateLimitContext)} completes without blocking the calling thread
+     */
+    public boolean isNonBlocking() {
+        return executor.isNonBlocking();
     }
 
     /**
      * Check if rate limiter is healthy (Redis is available)
      */
     public boolean isHealthy() {
-        return redisExecutor.isAvailable() && 
+        return executor.isAvailable() && 
                circuitBreaker.getState() != CircuitBreaker.State.OPEN;
     }
 
@@ -1,5 +1,7 @@
 package com.company.ratelimiter.demo;
 
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
 import com.company.ratelimiter.core.RateLimiterService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,7 +17,7 @@ import java.util.Map;
  * 
  * Test endpoints:
  * - GET  /api/demo/hello - Simple endpoint (rate limited)
- * - GET  /api/demo/status - Rate limiter status
+ * - GET  /api/demo/status - Rate limiter status (and the caller's quota, if X-User-Id is set)
  * - POST /api/demo/test - Test endpoint with response
  */
 @Slf4j
@@ -66,7 +68,8 @@ public class DemoController {
      * Get rate limiter status
      */
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> status() {
+    public ResponseEntity<Map<String, Object>> status(
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
         Map<String, Object> status = new HashMap<>();
         status.put("healthy", rateLimiterService.isHealthy());
         status.put("circuitBreakerState", rateLimiterService.getCircuitBreakerState());
@@ -78,6 +81,16 @@ public class DemoController {
         metricsMap.put("failedCalls", metrics.getNumberOfFailedCalls());
         
         status.put("metrics", metricsMap);
+        
+        if (userId != null) {
+            // Read-only: reporting the quota does not consume it
+            RateLimitDecision quota = rateLimiterService.peek(RateLimitContext.builder().userId(userId).build());
+            Map<String, Object> quotaMap = new HashMap<>();
+            quotaMap.put("limit", quota.getLimit());
+            quotaMap.put("remaining", quota.getRemaining());
+            quotaMap.put("resetTime", quota.getResetTime());
+            status.put("quota", quotaMap);
+        }
         status.put("timestamp", Instant.now().toString());
         
         return ResponseEntity.ok(status);
@@ -0,0 +1,76 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitKey;
+import com.company.ratelimiter.model.RateLimitRule;
+import io.lettuce.core.cluster.SlotHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds Redis keys for rules, adding Redis Cluster hash tags where configured.
+ *
+ * In cluster mode, keys whose identity contains the request's principal
+ * (redis.cluster.key-tag-dimension) carry its identifier as hash tag: keys of
+ * that dimension and of composite rules that include it. They land in the
+ * same slot, so a multi-dimension check over them is a single atomic script.
+ * Keys of other dimensions keep their plain form and hash on their own
+ * identifier, so a client cannot reset them by changing the principal it
+ * sends; checks spanning slots are split by the executor.
+ */
+@Slf4j
+@Component
+public class ClusterKeyTagger {
+
+    private final boolean clusterMode;
+    private final RateLimitDimension tagDimension;
+
+    public ClusterKeyTagger(RateLimiterProperties properties) {
+        RateLimiterProperties.ClusterConfig config = properties.getRedis().getCluster();
+
+        this.clusterMode = properties.getRedis().getMode() == RateLimiterProperties.RedisMode.CLUSTER;
+        this.tagDimension = config.getKeyTagDimension();
+
+        if (clusterMode) {
+            log.info("Cluster key tagging: tag by {}", tagDimension);
+        }
+    }
+
+    public boolean isClusterMode() {
+        return clusterMode;
+    }
+
+    /**
+     * Key of a rule for the identifier resolved from the context
+     */
+    public RateLimitKey keyFor(RateLimitRule rule, String identifier, RateLimitContext context) {
+        RateLimitKey key = RateLimitKey.of(rule, identifier);
+        if (!clusterMode || tagDimension == null) {
+            return key;
+        }
+
+        // Only keys that already identify the principal: tagging any other key
+        // with it would give each principal value its own counter
+        if (rule.getDimension() != tagDimension
+                && !(rule.isComposite() && rule.getCombinedWith().contains(tagDimension))) {
+            return key;
+        }
+
+        // No principal on this request: keep the untagged key
+        String principal = context.getIdentifier(tagDimension);
+        if (principal == null || principal.isEmpty()) {
+            return key;
+        }
+
+        return key.withHashTag(tagDimension.getValue() + ":" + principal);
+    }
+
+    /**
+     * Cluster slot of a Redis key
+     */
+    public int slotOf(String redisKey) {
+        return SlotHash.getSlot(redisKey);
+    }
+}
@@ -0,0 +1,57 @@
+package com.company.ratelimiter.executor;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring with virtual nodes.
+ *
+ * Each node is placed on the ring at {@code virtualNodes} points derived from
+ * its name; a key belongs to the first point at or after its hash. Adding or
+ * removing a node only moves the keys of that node's points, and virtual nodes
+ * keep the share of keys per node even.
+ *
+ * @param <T> node type
+ */
+public class ConsistentHashRing<T> {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final NavigableMap<Long, T> ring;
+
+    /**
+     * @param nodes node name -> node; names must be stable across restarts and instances
+     * @param virtualNodes ring points per node
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Consistent-hash ring needs at least one node");
+        }
+
+        TreeMap<Long, T> points = new TreeMap<>();
+        nodes.forEach((name, node) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(name + "#" + i), node);
+            }
+        });
+        this.ring = Collections.unmodifiableNavigableMap(points);
+    }
+
+    /**
+     * Node owning a key
+     */
+    public T nodeFor(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,14 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.model.RateLimitRule;
+
+/**
+ * Permits a fallback allowed on one key while the executor was unavailable,
+ * to be added to the key's state when it is back.
+ *
+ * @param rule the rule the permits were counted against
+ * @param redisKey key of the rule's state, as the executor builds it
+ * @param usage pairs of (timestamp millis, permits), oldest first
+ */
+public record FallbackUsage(RateLimitRule rule, String redisKey, long[] usage) {
+}
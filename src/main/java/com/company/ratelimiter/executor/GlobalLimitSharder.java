@@ -0,0 +1,250 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads GLOBAL rules over K sub-keys.
+ *
+ * A GLOBAL rule maps every request of the fleet to one Redis key, which then
+ * lives on a single Redis core. With global-sharding enabled, each request
+ * counts against one of K sub-keys ({@code ratelimit:global:global#3:60}),
+ * picked from its request ID or by instance, and each sub-key enforces its
+ * share of the limit. In cluster or sharded mode the sub-keys land on
+ * different nodes.
+ *
+ * Shares start equal. Every rebalance interval, each instance adds the demand
+ * it routed to each sub-key to a per-interval hash in Redis, and all instances
+ * derive the shares from the previous, complete interval, so they agree on
+ * them. Shares follow demand but never drop below min-share of an equal share.
+ *
+ * A request is denied when its own sub-key is exhausted even if others still
+ * have room, so near the limit the fleet admits slightly less than the limit.
+ * Sub-key limits always add up to the rule's limit; a rule whose limit is
+ * below the number of sub-keys cannot be split that way and stays unsharded.
+ */
+@Slf4j
+@Component
+public class GlobalLimitSharder {
+
+    private static final String DEMAND_KEY_PREFIX = "ratelimit:global:demand:";
+
+    private final boolean enabled;
+    private final int subKeys;
+    private final RateLimiterProperties.SubKeySelection selection;
+    private final double minShare;
+    private final long intervalMillis;
+    private final int instanceSubKey;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final LongAdder[] demand;
+    private volatile double[] shares;
+
+    // Rule -> one rule per sub-key carrying that sub-key's share of the limit
+    private final Map<RateLimitRule, RateLimitRule[]> shareRules = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService rebalancer;
+
+    public GlobalLimitSharder(RateLimiterProperties properties, RedisTemplate<String, String> redisTemplate) {
+        RateLimiterProperties.GlobalShardingConfig config = properties.getGlobalSharding();
+
+        this.enabled = config.isEnabled();
+        this.subKeys = config.getSubKeys();
+        this.selection = config.getSelection();
+        this.minShare = config.getMinShare();
+        this.intervalMillis = config.getRebalanceInterval().toMillis();
+        this.instanceSubKey = Math.floorMod(ManagementFactory.getRuntimeMXBean().getName().hashCode(), subKeys);
+        this.redisTemplate = redisTemplate;
+
+        this.demand = new LongAdder[subKeys];
+        Arrays.setAll(demand, i -> new LongAdder());
+        this.shares = equalShares(subKeys);
+
+        if (enabled) {
+            this.rebalancer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ratelimiter-global-rebalancer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.rebalancer.scheduleWithFixedDelay(this::rebalance, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.rebalancer = null;
+        }
+
+        log.info("GlobalLimitSharder initialized: enabled={}, subKeys={}, selection={}, rebalanceInterval={}",
+            enabled, subKeys, selection, config.getRebalanceInterval());
+    }
+
+    public boolean isSharded(RateLimitRule rule) {
+        return enabled && rule.getDimension() == RateLimitDimension.GLOBAL && rule.getLimit() >= subKeys;
+    }
+
+    /**
+     * Identifier of the rule's key for this request: the sub-key for sharded GLOBAL rules
+     */
+    public String identifierFor(RateLimitRule rule, RateLimitContext context) {
+        String identifier = context.getIdentifier(rule);
+        if (!isSharded(rule) || identifier == null) {
+            return identifier;
+        }
+        return identifier + "#" + subKeyOf(context);
+    }
+
+    /**
+     * The rule to enforce on this request's key: the sub-key's share for sharded
+     * GLOBAL rules, the rule itself otherwise
+     */
+    public RateLimitRule shareOf(RateLimitRule rule, RateLimitContext context) {
+        if (!isSharded(rule)) {
+            return rule;
+        }
+        return shareRules.computeIfAbsent(rule, this::splitRule)[subKeyOf(context)];
+    }
+
+    /**
+     * Count the request's permits as demand on its sub-key. Called only for
+     * checks that reach Redis to consume, so peeks and deny-cache answers do
+     * not pull the shares towards polling clients.
+     */
+    public void recordDemand(RateLimitRule rule, RateLimitContext context) {
+        if (isSharded(rule)) {
+            demand[subKeyOf(context)].add(context.getPermits(rule));
+        }
+    }
+
+    /**
+     * Sub-key of a request; stable for a request so every executor layer picks the same one
+     */
+    private int subKeyOf(RateLimitContext context) {
+        if (selection == RateLimiterProperties.SubKeySelection.INSTANCE) {
+            return instanceSubKey;
+        }
+        return Math.floorMod(context.getRequestId().hashCode(), subKeys);
+    }
+
+    private RateLimitRule[] splitRule(RateLimitRule rule) {
+        long[] limits = splitLimit(rule.getLimit(), shares);
+        RateLimitRule[] split = new RateLimitRule[subKeys];
+        for (int i = 0; i < subKeys; i++) {
+            split[i] = rule.toBuilder().limit(limits[i]).build();
+        }
+        return split;
+    }
+
+    /**
+     * Split a limit by shares with largest-remainder rounding: every sub-key
+     * gets at least one permit and the parts add up to exactly the limit.
+     * Requires limit >= shares.length.
+     */
+    static long[] splitLimit(long limit, double[] shares) {
+        int n = shares.length;
+        long spare = limit - n;
+        long[] parts = new long[n];
+        double[] remainders = new double[n];
+        long assigned = 0;
+        for (int i = 0; i < n; i++) {
+            double ideal = spare * shares[i];
+            long whole = (long) Math.floor(ideal);
+            parts[i] = 1 + whole;
+            remainders[i] = ideal - whole;
+            assigned += whole;
+        }
+
+        // Hand out what rounding down left over, largest remainder first
+        Integer[] order = new Integer[n];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int i = 0; assigned < spare; i = (i + 1) % n) {
+            parts[order[i]]++;
+            assigned++;
+        }
+        return parts;
+    }
+
+    /**
+     * Publish this instance's demand and recompute shares from the last complete interval.
+     * Runs every rebalance interval.
+     */
+    public void rebalance() {
+        try {
+            long interval = System.currentTimeMillis() / intervalMillis;
+            String currentKey = DEMAND_KEY_PREFIX + interval;
+
+            for (int i = 0; i < subKeys; i++) {
+                long count = demand[i].sumThenReset();
+                if (count > 0) {
+                    redisTemplate.opsForHash().increment(currentKey, String.valueOf(i), count);
+                }
+            }
+            redisTemplate.expire(currentKey, Duration.ofMillis(intervalMillis * 3));
+
+            Map<Object, Object> previous = redisTemplate.opsForHash().entries(DEMAND_KEY_PREFIX + (interval - 1));
+            long[] counts = new long[subKeys];
+            for (Map.Entry<Object, Object> entry : previous.entrySet()) {
+                int subKey = Integer.parseInt((String) entry.getKey());
+                if (subKey < subKeys) {
+                    counts[subKey] = Long.parseLong((String) entry.getValue());
+                }
+            }
+
+            shares = computeShares(counts, minShare);
+            shareRules.clear();
+            log.debug("Global limit shares rebalanced: {}", Arrays.toString(shares));
+
+        } catch (Exception e) {
+            log.warn("Failed to rebalance global limit shares: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Shares proportional to demand, each at least minShare of an equal share; they sum to 1
+     */
+    static double[] computeShares(long[] counts, double minShare) {
+        long total = Arrays.stream(counts).sum();
+        if (total == 0) {
+            return equalShares(counts.length);
+        }
+
+        double[] result = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = minShare / counts.length + (1 - minShare) * counts[i] / total;
+        }
+        return result;
+    }
+
+    private static double[] equalShares(int subKeys) {
+        double[] result = new double[subKeys];
+        Arrays.fill(result, 1.0 / subKeys);
+        return result;
+    }
+
+    /**
+     * Current share of the limit per sub-key
+     */
+    public double[] getShares() {
+        return shares.clone();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebalancer != null) {
+            rebalancer.shutdownNow();
+        }
+    }
+}
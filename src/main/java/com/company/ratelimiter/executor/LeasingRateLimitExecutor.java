@@ -0,0 +1,725 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimitReservation;
+import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitKey;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.scripts.LuaScriptLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limit executor that serves hot keys from locally leased permits.
+ *
+ * For TOKEN_BUCKET rules of the configured dimensions, an instance atomically
+ * takes a batch of tokens from the Redis bucket (lease_acquire.lua) and hands
+ * them out with lock-free counters until the lease is exhausted or expires.
+ * Unused permits are returned to Redis on expiry (lease_release.lua).
+ *
+ * Lease sizes adapt to the per-key request rate observed over previous leases
+ * and are capped at a fraction of the limit, which bounds how many permits one
+ * instance can hold back from the fleet. All other rules are delegated to the
+ * Redis executor, as are weighted requests (cost above one permit), which
+ * take their tokens straight from the bucket.
+ *
+ * A leased permit taken for a reserved request is refunded to the Redis
+ * bucket, which the lease was already charged against.
+ */
+@Slf4j
+@Component
+@Primary
+@ConditionalOnProperty(
+    prefix = "ratelimiter",
+    name = "executor-mode",
+    havingValue = "LEASING"
+)
+public class LeasingRateLimitExecutor implements RateLimitExecutor {
+
+    private final RateLimitExecutor delegate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisAsyncScriptExecutor asyncScriptExecutor;
+    private final ClusterKeyTagger keyTagger;
+    private final GlobalLimitSharder globalSharder;
+    private final PermitRefunder refunder;
+    private final RateLimiterProperties.LeasingConfig config;
+    private final Set<RateLimitDimension> leasedDimensions;
+
+    private final DefaultRedisScript<List> acquireScript;
+    private final DefaultRedisScript<Long> releaseScript;
+
+    // Redis key -> lease state for that key
+    private final Map<String, LeaseState> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    private final Counter leaseAcquisitions;
+    private final Counter permitsServedLocally;
+    private final Counter permitsReturned;
+
+    public LeasingRateLimitExecutor(
+            @Qualifier("redisRateLimitExecutor") RateLimitExecutor delegate,
+            RedisTemplate<String, String> redisTemplate,
+            RedisAsyncScriptExecutor asyncScriptExecutor,
+            LuaScriptLoader luaScriptLoader,
+            ClusterKeyTagger keyTagger,
+            GlobalLimitSharder globalSharder,
+            PermitRefunder refunder,
+            RateLimiterProperties properties,
+            MeterRegistry meterRegistry) {
+
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.asyncScriptExecutor = asyncScriptExecutor;
+        this.keyTagger = keyTagger;
+        this.globalSharder = globalSharder;
+        this.refunder = refunder;
+        this.config = properties.getLeasing();
+        this.leasedDimensions = config.getDimensions().isEmpty()
+            ? Collections.emptySet()
+            : EnumSet.copyOf(config.getDimensions());
+
+        this.acquireScript = new DefaultRedisScript<>();
+        this.acquireScript.setScriptText(luaScriptLoader.getLeaseAcquireScript());
+        this.acquireScript.setResultType(List.class);
+
+        this.releaseScript = new DefaultRedisScript<>();
+        this.releaseScript.setScriptText(luaScriptLoader.getLeaseReleaseScript());
+        this.releaseScript.setResultType(Long.class);
+
+        this.leaseAcquisitions = meterRegistry.counter("ratelimiter.lease.acquisitions");
+        this.permitsServedLocally = meterRegistry.counter("ratelimiter.lease.permits.served");
+        this.permitsReturned = meterRegistry.counter("ratelimiter.lease.permits.returned");
+        Gauge.builder("ratelimiter.lease.active", leases, Map::size)
+            .description("Number of keys with local lease state")
+            .register(meterRegistry);
+
+        long sweepMillis = Math.max(10, config.getLeaseTtl().toMillis() / 2);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ratelimiter-lease-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::expireLeases, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+
+        log.info("LeasingRateLimitExecutor initialized: dimensions={}, initialFraction={}, maxFraction={}, leaseTtl={}",
+            leasedDimensions, config.getInitialFraction(), config.getMaxFraction(), config.getLeaseTtl());
+    }
+
+    @Override
+    public RateLimitDecision checkLimit(RateLimitRule rule, RateLimitContext context) {
+        return checkLimits(List.of(rule), context);
+    }
+
+    @Override
+    public RateLimitDecision checkLimits(List<RateLimitRule> rules, RateLimitContext context) {
+        List<RateLimitRule> directRules = new ArrayList<>();
+        List<LeaseState> taken = new ArrayList<>();
+        RateLimitDecision leasedDecision = null;
+
+        // Take local permits first: they can be given back for free if a later rule denies
+        for (RateLimitRule rule : rules) {
+            String identifier = context.getIdentifier(rule);
+            if (!isLeasable(rule) || context.getPermits(rule) != 1 || identifier == null || identifier.isEmpty()) {
+                directRules.add(rule);
+                continue;
+            }
+
+            RateLimitKey key = keyTagger.keyFor(rule, identifier, context);
+            RateLimitDecision decision = acquire(key.toRedisKey(), rule, taken);
+
+            if (!decision.isAllowed()) {
+                giveBack(taken);
+                decision.setContext(key.toString());
+                return decision;
+            }
+
+            leasedDecision = mostRestrictive(leasedDecision, decision);
+        }
+
+        if (directRules.isEmpty() && leasedDecision != null) {
+            reserve(taken, context);
+            return leasedDecision;
+        }
+
+        RateLimitDecision directDecision;
+        try {
+            directDecision = delegate.checkLimits(directRules, context);
+        } catch (RuntimeException e) {
+            giveBack(taken);
+            throw e;
+        }
+
+        if (!directDecision.isAllowed()) {
+            giveBack(taken);
+            return directDecision;
+        }
+        reserve(taken, context);
+        return mostRestrictive(leasedDecision, directDecision);
+    }
+
+    /**
+     * Non-blocking check: permits are served from local leases, leases are
+     * renewed and direct rules checked on the async connection. Local permits
+     * are given back when a later rule denies or the check fails.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkLimitsAsync(List<RateLimitRule> rules, RateLimitContext context) {
+        List<RateLimitRule> directRules = new ArrayList<>();
+        List<LeaseState> taken = new ArrayList<>();
+
+        CompletionStage<RateLimitDecision> result = CompletableFuture.completedFuture(null);
+        for (RateLimitRule rule : rules) {
+            String identifier = context.getIdentifier(rule);
+            if (!isLeasable(rule) || context.getPermits(rule) != 1 || identifier == null || identifier.isEmpty()) {
+                directRules.add(rule);
+                continue;
+            }
+
+            RateLimitKey key = keyTagger.keyFor(rule, identifier, context);
+            result = result.thenCompose(previous -> {
+                if (previous != null && !previous.isAllowed()) {
+                    return CompletableFuture.completedFuture(previous);
+                }
+                return acquireAsync(key.toRedisKey(), rule, taken).thenApply(decision -> {
+                    if (!decision.isAllowed()) {
+                        decision.setContext(key.toString());
+                        return decision;
+                    }
+                    return mostRestrictive(previous, decision);
+                });
+            });
+        }
+
+        if (!directRules.isEmpty() || rules.isEmpty()) {
+            result = result.thenCompose(leasedDecision -> {
+                if (leasedDecision != null && !leasedDecision.isAllowed()) {
+                    return CompletableFuture.completedFuture(leasedDecision);
+                }
+                return delegate.checkLimitsAsync(directRules, context)
+                    .thenApply(directDecision -> directDecision.isAllowed()
+                        ? mostRestrictive(leasedDecision, directDecision)
+                        : directDecision);
+            });
+        }
+
+        return result.handle((decision, error) -> {
+            if (error != null) {
+                giveBackAsync(taken);
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            if (!decision.isAllowed()) {
+                giveBackAsync(taken);
+                return decision;
+            }
+            reserve(taken, context);
+            return decision;
+        });
+    }
+
+    /**
+     * Take a permit from the key's lease, adding the state to {@code taken} if
+     * allowed. A state the sweeper retired meanwhile is looked up again.
+     */
+    private RateLimitDecision acquire(String redisKey, RateLimitRule rule, List<LeaseState> taken) {
+        while (true) {
+            LeaseState state = leases.computeIfAbsent(redisKey, k -> new LeaseState(k, rule));
+            RateLimitDecision decision = state.acquire();
+            if (decision == null) {
+                continue;
+            }
+            if (decision.isAllowed()) {
+                taken.add(state);
+            }
+            return decision;
+        }
+    }
+
+    private CompletionStage<RateLimitDecision> acquireAsync(String redisKey, RateLimitRule rule, List<LeaseState> taken) {
+        LeaseState state = leases.computeIfAbsent(redisKey, k -> new LeaseState(k, rule));
+        return state.acquireAsync().thenCompose(decision -> {
+            if (decision == null) {
+                return acquireAsync(redisKey, rule, taken);
+            }
+            if (decision.isAllowed()) {
+                synchronized (taken) {
+                    taken.add(state);
+                }
+            }
+            return CompletableFuture.completedFuture(decision);
+        });
+    }
+
+    /**
+     * GLOBAL rules spread over sub-keys are left to the Redis executor, which applies the shares
+     */
+    private boolean isLeasable(RateLimitRule rule) {
+        return rule.getAlgorithm() == RateLimitAlgorithm.TOKEN_BUCKET
+            && leasedDimensions.contains(rule.getDimension())
+            && !globalSharder.isSharded(rule);
+    }
+
+    private RateLimitDecision mostRestrictive(RateLimitDecision current, RateLimitDecision candidate) {
+        if (current == null || candidate.getRemaining() < current.getRemaining()) {
+            return candidate;
+        }
+        return current;
+    }
+
+    private void giveBack(List<LeaseState> taken) {
+        taken.forEach(LeaseState::giveBack);
+    }
+
+    private void giveBackAsync(List<LeaseState> taken) {
+        synchronized (taken) {
+            taken.forEach(LeaseState::giveBackAsync);
+        }
+    }
+
+    /**
+     * Record the leased permits of an allowed reserved request
+     */
+    private void reserve(List<LeaseState> taken, RateLimitContext context) {
+        RateLimitReservation reservation = context.getReservation();
+        if (reservation == null) {
+            return;
+        }
+        for (LeaseState state : taken) {
+            reservation.add(new ReservedPermit(refunder, state.redisKey, RateLimitAlgorithm.TOKEN_BUCKET, null, 1,
+                state.rule.getLimit(), state.rule.getWindowMillis(), state.rule.getTtlSeconds()));
+        }
+    }
+
+    /**
+     * Return unused permits of expired leases and drop idle keys
+     */
+    private void expireLeases() {
+        long now = System.currentTimeMillis();
+        long idleMillis = config.getLeaseTtl().toMillis() * 10;
+
+        leases.values().forEach(state -> {
+            try {
+                state.expireIfDue(now);
+                // Retired under the state's lock first, so no caller can lease into it once removed
+                if (state.retireIfIdle(now - idleMillis)) {
+                    leases.remove(state.redisKey, state);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to expire lease for {}: {}", state.redisKey, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        leases.values().forEach(state -> {
+            try {
+                state.expireIfDue(Long.MAX_VALUE);
+            } catch (Exception e) {
+                log.warn("Failed to return lease for {} on shutdown: {}", state.redisKey, e.getMessage());
+            }
+        });
+        leases.clear();
+    }
+
+    /**
+     * Reads the Redis state, which already counts leased permits as taken
+     */
+    @Override
+    public RateLimitDecision peek(List<RateLimitRule> rules, RateLimitContext context) {
+        return delegate.peek(rules, context);
+    }
+
+    @Override
+    public CompletionStage<Long> reconcile(FallbackUsage usage) {
+        return delegate.reconcile(usage);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getExecutorType() {
+        return "LEASING";
+    }
+
+    /**
+     * Permits leased from Redis and served locally until exhausted or expired
+     */
+    private static class PermitLease {
+        private final long granted;
+        private final long acquiredAt;
+        private final long expiresAt;
+        private final long bucketRemaining;
+        private final long resetTime;
+        private final AtomicLong available;
+        private volatile boolean closed;
+
+        PermitLease(long granted, long bucketRemaining, long resetTime, long ttlMillis) {
+            this.granted = granted;
+            this.acquiredAt = System.currentTimeMillis();
+            this.expiresAt = acquiredAt + ttlMillis;
+            this.bucketRemaining = bucketRemaining;
+            this.resetTime = resetTime;
+            this.available = new AtomicLong(granted);
+        }
+
+        /**
+         * Take one permit without locking. Returns permits left, or -1 if none.
+         */
+        long tryTake() {
+            while (!closed) {
+                long current = available.get();
+                if (current <= 0) {
+                    return -1;
+                }
+                if (available.compareAndSet(current, current - 1)) {
+                    return current - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Put a permit back. A permit given back while the lease is being
+         * closed may be dropped, which under-uses the quota but never overshoots.
+         */
+        boolean tryGiveBack() {
+            if (closed) {
+                return false;
+            }
+            available.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * Close the lease and return the number of unused permits
+         */
+        long close() {
+            closed = true;
+            return available.getAndSet(0);
+        }
+    }
+
+    /**
+     * Lease and observed request rate for one Redis key
+     */
+    private class LeaseState {
+        private final String redisKey;
+        private final RateLimitRule rule;
+        private volatile PermitLease lease;
+        // Async renewal in flight, guarded by this state's lock
+        private CompletableFuture<RateLimitDecision> renewal;
+        private volatile long lastUsed = System.currentTimeMillis();
+        // Dropped from the map by the sweeper, guarded by this state's lock
+        private boolean retired;
+
+        // Exponentially weighted request rate in permits per millisecond (-1 = unknown)
+        private double ratePerMilli = -1;
+
+        LeaseState(String redisKey, RateLimitRule rule) {
+            this.redisKey = redisKey;
+            this.rule = rule;
+        }
+
+        /**
+         * Take one permit, renewing the lease if needed.
+         *
+         * @return the decision, or null if this state was retired and must be looked up again
+         */
+        RateLimitDecision acquire() {
+            lastUsed = System.currentTimeMillis();
+
+            RateLimitDecision decision = takeFromLease(lease);
+            if (decision != null) {
+                return decision;
+            }
+
+            // Lease missing, exhausted or expired: one thread refills, others wait for it
+            synchronized (this) {
+                if (retired) {
+                    return null;
+                }
+                decision = takeFromLease(lease);
+                if (decision != null) {
+                    return decision;
+                }
+                return renewAndTake();
+            }
+        }
+
+        private RateLimitDecision takeFromLease(PermitLease current) {
+            if (current == null || System.currentTimeMillis() >= current.expiresAt) {
+                return null;
+            }
+            long left = current.tryTake();
+            if (left < 0) {
+                return null;
+            }
+            permitsServedLocally.increment();
+            return RateLimitDecision.allowed(rule.getLimit(), current.bucketRemaining + left, current.resetTime);
+        }
+
+        /**
+         * Non-blocking variant of {@link #acquire()}: one request renews the
+         * lease on the async connection, concurrent ones wait for that renewal.
+         * Completes with null if this state was retired.
+         */
+        CompletionStage<RateLimitDecision> acquireAsync() {
+            lastUsed = System.currentTimeMillis();
+
+            RateLimitDecision decision = takeFromLease(lease);
+            if (decision != null) {
+                return CompletableFuture.completedFuture(decision);
+            }
+
+            CompletableFuture<RateLimitDecision> inFlight;
+            synchronized (this) {
+                if (retired) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                decision = takeFromLease(lease);
+                if (decision != null) {
+                    return CompletableFuture.completedFuture(decision);
+                }
+                if (renewal == null) {
+                    CompletableFuture<RateLimitDecision> started = renewAndTakeAsync();
+                    renewal = started;
+                    started.whenComplete((result, error) -> {
+                        synchronized (this) {
+                            if (renewal == started) {
+                                renewal = null;
+                            }
+                        }
+                    });
+                    return started;
+                }
+                inFlight = renewal;
+            }
+
+            // Another request is renewing: take from the new lease once it is in place
+            return inFlight.thenCompose(renewed -> {
+                if (!renewed.isAllowed()) {
+                    RateLimitDecision denied = RateLimitDecision.denied(rule.getLimit(), renewed.getResetTime(),
+                        rule.getDimension(), redisKey);
+                    denied.setRetryAfterMillis(renewed.getRetryAfterMillis());
+                    return CompletableFuture.completedFuture(denied);
+                }
+                return acquireAsync();
+            });
+        }
+
+        private RateLimitDecision renewAndTake() {
+            long unused = closeLease();
+            if (unused > 0) {
+                returnPermits(unused);
+            }
+
+            long requested = nextLeaseSize();
+            List<Object> result;
+            try {
+                result = redisTemplate.execute(acquireScript, Collections.singletonList(redisKey),
+                    acquireArgs(requested).toArray());
+            } catch (Exception e) {
+                throw new RedisUnavailableException("Failed to acquire permit lease in Redis", e);
+            }
+            return applyLease(result, requested);
+        }
+
+        /**
+         * Must be called while holding this state's lock
+         */
+        private CompletableFuture<RateLimitDecision> renewAndTakeAsync() {
+            long unused = closeLease();
+            if (unused > 0) {
+                returnPermitsAsync(unused);
+            }
+
+            long requested = nextLeaseSize();
+            return asyncScriptExecutor.execute(acquireScript, Collections.singletonList(redisKey), acquireArgs(requested))
+                .handle((result, error) -> {
+                    if (error != null) {
+                        throw new CompletionException(new RedisUnavailableException(
+                            "Failed to acquire permit lease in Redis", RedisAsyncScriptExecutor.unwrap(error)));
+                    }
+                    synchronized (this) {
+                        return applyLease(result, requested);
+                    }
+                })
+                .toCompletableFuture();
+        }
+
+        private List<String> acquireArgs(long requested) {
+            return List.of(
+                String.valueOf(rule.getLimit()),
+                String.valueOf(rule.getWindowMillis()),
+                String.valueOf(requested),
+                String.valueOf(rule.getTtlSeconds()));
+        }
+
+        /**
+         * Install the lease granted by lease_acquire.lua and take one permit from it
+         */
+        private RateLimitDecision applyLease(List<Object> result, long requested) {
+            leaseAcquisitions.increment();
+
+            if (result == null || result.size() < 4) {
+                throw new IllegalStateException("Invalid lease script result");
+            }
+
+            long granted = ((Number) result.get(0)).longValue();
+            long bucketRemaining = ((Number) result.get(1)).longValue();
+            long resetTime = ((Number) result.get(2)).longValue();
+
+            if (granted < 1) {
+                RateLimitDecision denied = RateLimitDecision.denied(rule.getLimit(), resetTime, rule.getDimension(), redisKey);
+                denied.setRetryAfterMillis(((Number) result.get(3)).longValue());
+                return denied;
+            }
+
+            log.debug("Leased {} of {} requested permits for {}", granted, requested, redisKey);
+            PermitLease fresh = new PermitLease(granted, bucketRemaining, resetTime, config.getLeaseTtl().toMillis());
+            lease = fresh;
+
+            RateLimitDecision decision = takeFromLease(fresh);
+            return decision != null
+                ? decision
+                : RateLimitDecision.denied(rule.getLimit(), resetTime, rule.getDimension(), redisKey);
+        }
+
+        /**
+         * Size the next lease from the observed rate: enough permits for one
+         * lease TTL, bounded by [minLeaseSize, maxFraction * limit]
+         */
+        private long nextLeaseSize() {
+            double size = ratePerMilli < 0
+                ? rule.getLimit() * config.getInitialFraction()
+                : Math.ceil(ratePerMilli * config.getLeaseTtl().toMillis());
+
+            long max = Math.max(config.getMinLeaseSize(), (long) (rule.getLimit() * config.getMaxFraction()));
+            return Math.max(config.getMinLeaseSize(), Math.min(max, (long) Math.ceil(size)));
+        }
+
+        /**
+         * Close the current lease and update the rate estimate.
+         * Must be called while holding this state's lock.
+         *
+         * @return unused permits of the lease, to be returned to the bucket
+         */
+        private long closeLease() {
+            PermitLease current = lease;
+            if (current == null) {
+                return 0;
+            }
+            lease = null;
+
+            long unused = current.close();
+            long elapsed = Math.max(1, Math.min(System.currentTimeMillis(), current.expiresAt) - current.acquiredAt);
+            double observed = (double) (current.granted - unused) / elapsed;
+            ratePerMilli = ratePerMilli < 0 ? observed : 0.5 * ratePerMilli + 0.5 * observed;
+            return unused;
+        }
+
+        private void returnPermits(long permits) {
+            redisTemplate.execute(releaseScript, Collections.singletonList(redisKey), releaseArgs(permits).toArray());
+            permitsReturned.increment(permits);
+        }
+
+        /**
+         * Return permits on the async connection; a failed return under-uses the quota
+         */
+        private void returnPermitsAsync(long permits) {
+            asyncScriptExecutor.execute(releaseScript, Collections.singletonList(redisKey), releaseArgs(permits))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to return {} leased permits for {}: {}", permits, redisKey,
+                            RedisAsyncScriptExecutor.unwrap(error).toString());
+                    } else {
+                        permitsReturned.increment(permits);
+                    }
+                });
+        }
+
+        private List<String> releaseArgs(long permits) {
+            return List.of(
+                String.valueOf(rule.getLimit()),
+                String.valueOf(rule.getWindowMillis()),
+                String.valueOf(permits),
+                String.valueOf(rule.getTtlSeconds()));
+        }
+
+        /**
+         * Give back a permit taken for a request that was denied by another rule
+         */
+        void giveBack() {
+            PermitLease current = lease;
+            if (current == null || !current.tryGiveBack()) {
+                // Lease already closed: return straight to the bucket
+                returnPermits(1);
+            }
+        }
+
+        void giveBackAsync() {
+            PermitLease current = lease;
+            if (current == null || !current.tryGiveBack()) {
+                returnPermitsAsync(1);
+            }
+        }
+
+        synchronized void expireIfDue(long now) {
+            PermitLease current = lease;
+            if (current != null && now >= current.expiresAt) {
+                long unused = closeLease();
+                if (unused > 0) {
+                    returnPermits(unused);
+                }
+            }
+        }
+
+        /**
+         * Retire the state if it holds no lease and has not been used since the cutoff
+         */
+        synchronized boolean retireIfIdle(long cutoff) {
+            if (lease != null || renewal != null || lastUsed >= cutoff) {
+                return false;
+            }
+            retired = true;
+            return true;
+        }
+    }
+}
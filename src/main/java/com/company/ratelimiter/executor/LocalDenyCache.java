@@ -0,0 +1,168 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cache of known-denied keys.
+ *
+ * When Redis denies a key, the algorithm also tells us when the next request
+ * can be allowed. Until then every further check for that key is guaranteed
+ * to be denied, so it is answered locally instead of running the script again.
+ * Entries expire exactly at the cached retry time.
+ *
+ * Keyed by Redis key, bounded by Caffeine, enabled per dimension. A denial
+ * only answers checks that need at least as many permits as the denied one:
+ * a cheaper request may still fit. Keys do not include the limit, so the
+ * cache is cleared whenever rules are registered or changed.
+ */
+@Slf4j
+@Component
+public class LocalDenyCache {
+
+    private final boolean enabled;
+    private final Set<RateLimitDimension> dimensions;
+    private final Cache<String, DeniedEntry> cache;
+    private final MeterRegistry meterRegistry;
+
+    public LocalDenyCache(RateLimiterProperties properties, MeterRegistry meterRegistry) {
+        RateLimiterProperties.DenyCacheConfig config = properties.getDenyCache();
+
+        this.enabled = config.isEnabled();
+        this.dimensions = config.getDimensions().isEmpty()
+            ? EnumSet.noneOf(RateLimitDimension.class)
+            : EnumSet.copyOf(config.getDimensions());
+        this.meterRegistry = meterRegistry;
+
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfter(new Expiry<String, DeniedEntry>() {
+                @Override
+                public long expireAfterCreate(String key, DeniedEntry entry, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.retryAtMillis - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, DeniedEntry entry, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, entry, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, DeniedEntry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+        Gauge.builder("ratelimiter.denycache.size", cache, Cache::estimatedSize)
+            .description("Number of keys currently answered from the local deny cache")
+            .register(meterRegistry);
+
+        log.info("LocalDenyCache initialized: enabled={}, maxSize={}, dimensions={}",
+            enabled, config.getMaximumSize(), dimensions);
+    }
+
+    /**
+     * Return a cached denial for the key, or null if the key must be checked in Redis
+     */
+    public RateLimitDecision lookup(String redisKey, RateLimitDimension dimension) {
+        return lookup(redisKey, dimension, 1);
+    }
+
+    /**
+     * Return a cached denial for a check needing {@code permits} permits, or null
+     */
+    public RateLimitDecision lookup(String redisKey, RateLimitDimension dimension, long permits) {
+        if (!isEnabledFor(dimension)) {
+            return null;
+        }
+
+        DeniedEntry entry = cache.getIfPresent(redisKey);
+        long now = System.currentTimeMillis();
+
+        if (entry == null || entry.retryAtMillis <= now || permits < entry.permits) {
+            recordLookup(dimension, "miss");
+            return null;
+        }
+
+        recordLookup(dimension, "hit");
+        RateLimitDecision decision = RateLimitDecision.denied(
+            entry.limit,
+            entry.resetTime,
+            dimension,
+            entry.context
+        );
+        decision.setRetryAfterMillis(entry.retryAtMillis - now);
+        return decision;
+    }
+
+    /**
+     * Remember a denial until the time the algorithm reported for the next permit
+     */
+    public void recordDenial(String redisKey, RateLimitDecision decision) {
+        recordDenial(redisKey, decision, 1);
+    }
+
+    /**
+     * Remember a denial of a check that needed {@code permits} permits
+     */
+    public void recordDenial(String redisKey, RateLimitDecision decision, long permits) {
+        if (decision.isAllowed() || !isEnabledFor(decision.getDeniedBy())) {
+            return;
+        }
+
+        long retryAtMillis = decision.getRetryAfterMillis() >= 0
+            ? System.currentTimeMillis() + decision.getRetryAfterMillis()
+            : decision.getResetTime() * 1000;
+
+        if (retryAtMillis > System.currentTimeMillis()) {
+            cache.put(redisKey, new DeniedEntry(
+                decision.getLimit(),
+                decision.getResetTime(),
+                retryAtMillis,
+                permits,
+                decision.getContext()
+            ));
+        }
+    }
+
+    /**
+     * Forget a cached denial (e.g. after permits were returned to the key)
+     */
+    public void invalidate(String redisKey) {
+        cache.invalidate(redisKey);
+    }
+
+    /**
+     * Clear all cached denials (useful for testing)
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private boolean isEnabledFor(RateLimitDimension dimension) {
+        return enabled && dimension != null && dimensions.contains(dimension);
+    }
+
+    private void recordLookup(RateLimitDimension dimension, String result) {
+        meterRegistry.counter("ratelimiter.denycache.lookups",
+            "dimension", dimension.getValue(),
+            "result", result
+        ).increment();
+    }
+
+    private record DeniedEntry(long limit, long resetTime, long retryAtMillis, long permits, String context) {
+    }
+}
@@ -0,0 +1,789 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimitReservation;
+import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitKey;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.scripts.LuaScriptLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit executor that decides every request from local counters and
+ * writes them behind to Redis.
+ *
+ * Rules of the configured dimensions are counted per key with the sliding
+ * window counter (two fixed windows, weighted), whatever algorithm the rule
+ * names. A request is decided from the fleet counts read at the last sync plus
+ * the permits this instance admitted since, without a Redis round trip. Every
+ * {@code sync-interval} the net per-key deltas are written to the Redis hash
+ * (local_first_sync.lua, same layout as sliding_window_counter.lua) and the
+ * fleet totals read back; the calls of one round are pipelined on the async
+ * connection. A key with no deltas to send is only re-read once its view is
+ * older than {@code view-refresh-interval}, so quiet keys cost about one call
+ * per request rather than one per round.
+ *
+ * Two settings bound the error of deciding from a stale view:
+ * <ul>
+ *   <li>{@code max-unsynced-fraction}: permits one instance admits per key
+ *       between two fleet views, so the fleet overshoots a limit by at most
+ *       about instances * fraction * limit per sync interval</li>
+ *   <li>{@code max-staleness}: a key whose oldest unsynced decision is older
+ *       than this fails the check with {@link RedisUnavailableException}, so the
+ *       circuit breaker and fallback take over while syncs are failing</li>
+ * </ul>
+ * The overshoot actually observed is tracked from the fleet totals each sync
+ * brings back and recorded once per key and window, as the window's maximum.
+ * All other rules, and sharded GLOBAL rules, are delegated to the Redis executor.
+ */
+@Slf4j
+@Component
+@Primary
+@ConditionalOnProperty(
+    prefix = "ratelimiter",
+    name = "executor-mode",
+    havingValue = "LOCAL_FIRST"
+)
+public class LocalFirstRateLimitExecutor implements RateLimitExecutor {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    // Idle keys are dropped after at most this long; their view is re-read on the next sync
+    private static final long MAX_IDLE_MILLIS = 60_000;
+
+    private final RateLimitExecutor delegate;
+    private final RedisAsyncScriptExecutor asyncScriptExecutor;
+    private final ClusterKeyTagger keyTagger;
+    private final GlobalLimitSharder globalSharder;
+    private final PermitRefunder refunder;
+    private final Set<RateLimitDimension> localDimensions;
+    private final long syncIntervalMillis;
+    private final long maxStalenessMillis;
+    private final long viewRefreshMillis;
+    private final double maxUnsyncedFraction;
+
+    private final DefaultRedisScript<List> syncScript;
+
+    // Redis key -> local counters for that key
+    private final Map<String, KeyState> keys = new ConcurrentHashMap<>();
+    // Keys accessed within max-staleness, synced every round
+    private final Set<KeyState> active = ConcurrentHashMap.newKeySet();
+    // Configured rule -> the same rule counted with the sliding window counter
+    private final Map<RateLimitRule, RateLimitRule> countingRules = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService syncer;
+
+    // Redis clock minus local clock, from the last sync
+    private volatile long clockOffsetMillis;
+    private long lastSweepMillis;
+
+    private final Counter syncsOk;
+    private final Counter syncsFailed;
+    private final Counter staleChecks;
+    private final Timer syncLatency;
+    private final DistributionSummary overshoot;
+
+    public LocalFirstRateLimitExecutor(
+            @Qualifier("redisRateLimitExecutor") RateLimitExecutor delegate,
+            RedisAsyncScriptExecutor asyncScriptExecutor,
+            LuaScriptLoader luaScriptLoader,
+            ClusterKeyTagger keyTagger,
+            GlobalLimitSharder globalSharder,
+            PermitRefunder refunder,
+            RateLimiterProperties properties,
+            MeterRegistry meterRegistry) {
+
+        RateLimiterProperties.LocalFirstConfig config = properties.getLocalFirst();
+        this.delegate = delegate;
+        this.asyncScriptExecutor = asyncScriptExecutor;
+        this.keyTagger = keyTagger;
+        this.globalSharder = globalSharder;
+        this.refunder = refunder;
+        this.localDimensions = config.getDimensions().isEmpty()
+            ? Collections.emptySet()
+            : EnumSet.copyOf(config.getDimensions());
+        this.syncIntervalMillis = Math.max(1, config.getSyncInterval().toMillis());
+        this.maxStalenessMillis = config.getMaxStaleness().toMillis();
+        this.viewRefreshMillis = config.getViewRefreshInterval().toMillis();
+        this.maxUnsyncedFraction = config.getMaxUnsyncedFraction();
+
+        this.syncScript = new DefaultRedisScript<>();
+        this.syncScript.setScriptText(luaScriptLoader.getLocalFirstSyncScript());
+        this.syncScript.setResultType(List.class);
+
+        this.syncsOk = meterRegistry.counter("ratelimiter.localfirst.syncs", "result", "ok");
+        this.syncsFailed = meterRegistry.counter("ratelimiter.localfirst.syncs", "result", "failed");
+        this.staleChecks = meterRegistry.counter("ratelimiter.localfirst.stale");
+        this.syncLatency = Timer.builder("ratelimiter.localfirst.sync.latency")
+            .description("Round trip of one key's delta sync")
+            .register(meterRegistry);
+        this.overshoot = DistributionSummary.builder("ratelimiter.localfirst.overshoot")
+            .description("Largest number of permits the fleet admitted above a key's limit in one window")
+            .baseUnit("permits")
+            .register(meterRegistry);
+        Gauge.builder("ratelimiter.localfirst.keys", keys, Map::size)
+            .description("Number of keys with local-first state")
+            .register(meterRegistry);
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ratelimiter-localfirst-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncer.scheduleWithFixedDelay(this::syncRound, syncIntervalMillis, syncIntervalMillis,
+            TimeUnit.MILLISECONDS);
+
+        log.info("LocalFirstRateLimitExecutor initialized: dimensions={}, syncInterval={}, maxStaleness={}, "
+            + "maxUnsyncedFraction={}", localDimensions, config.getSyncInterval(), config.getMaxStaleness(),
+            maxUnsyncedFraction);
+    }
+
+    @Override
+    public RateLimitDecision checkLimit(RateLimitRule rule, RateLimitContext context) {
+        return checkLimits(List.of(rule), context);
+    }
+
+    @Override
+    public RateLimitDecision checkLimits(List<RateLimitRule> rules, RateLimitContext context) {
+        List<RateLimitRule> directRules = new ArrayList<>();
+        List<Taken> taken = new ArrayList<>();
+        RateLimitDecision localDecision = decideLocally(rules, context, directRules, taken);
+
+        if (localDecision != null && !localDecision.isAllowed()) {
+            return localDecision;
+        }
+        if (directRules.isEmpty() && localDecision != null) {
+            reserve(taken, context);
+            return localDecision;
+        }
+
+        RateLimitDecision directDecision;
+        try {
+            directDecision = delegate.checkLimits(directRules, context);
+        } catch (RuntimeException e) {
+            giveBack(taken);
+            throw e;
+        }
+
+        if (!directDecision.isAllowed()) {
+            giveBack(taken);
+            return directDecision;
+        }
+        reserve(taken, context);
+        return RedisRateLimitExecutor.merge(localDecision, directDecision);
+    }
+
+    /**
+     * Non-blocking check: local rules are decided inline, the other rules on
+     * the delegate's async path. Local permits are given back when the
+     * delegate denies or fails.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkLimitsAsync(List<RateLimitRule> rules, RateLimitContext context) {
+        List<RateLimitRule> directRules = new ArrayList<>();
+        List<Taken> taken = new ArrayList<>();
+        RateLimitDecision localDecision;
+        try {
+            localDecision = decideLocally(rules, context, directRules, taken);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (localDecision != null && !localDecision.isAllowed()) {
+            return CompletableFuture.completedFuture(localDecision);
+        }
+        if (directRules.isEmpty() && localDecision != null) {
+            reserve(taken, context);
+            return CompletableFuture.completedFuture(localDecision);
+        }
+
+        return delegate.checkLimitsAsync(directRules, context).handle((directDecision, error) -> {
+            if (error != null) {
+                giveBack(taken);
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            if (!directDecision.isAllowed()) {
+                giveBack(taken);
+                return directDecision;
+            }
+            reserve(taken, context);
+            return RedisRateLimitExecutor.merge(localDecision, directDecision);
+        });
+    }
+
+    /**
+     * Take the permits of the locally decided rules; other rules are added to
+     * {@code directRules}. Local permits first: they can be given back for free
+     * if a later rule denies.
+     *
+     * @return the first local denial (with earlier permits given back), the
+     *         merged local decision, or null if no rule is decided locally
+     */
+    private RateLimitDecision decideLocally(
+            List<RateLimitRule> rules,
+            RateLimitContext context,
+            List<RateLimitRule> directRules,
+            List<Taken> taken) {
+
+        RateLimitDecision localDecision = null;
+        long now = now();
+
+        for (RateLimitRule rule : rules) {
+            String identifier = context.getIdentifier(rule);
+            if (!isLocal(rule) || identifier == null || identifier.isEmpty()) {
+                directRules.add(rule);
+                continue;
+            }
+
+            long permits = context.getPermits(rule);
+            KeyState state = stateFor(rule, identifier, context);
+            RateLimitDecision decision;
+            try {
+                decision = state.acquire(now, permits);
+            } catch (RuntimeException e) {
+                giveBack(taken);
+                throw e;
+            }
+
+            if (!decision.isAllowed()) {
+                giveBack(taken);
+                return decision;
+            }
+
+            taken.add(new Taken(state, state.rule.windowIndex(now), permits));
+            localDecision = RedisRateLimitExecutor.merge(localDecision, decision);
+        }
+        return localDecision;
+    }
+
+    /**
+     * GLOBAL rules spread over sub-keys are left to the Redis executor, which applies the shares
+     */
+    private boolean isLocal(RateLimitRule rule) {
+        return localDimensions.contains(rule.getDimension()) && !globalSharder.isSharded(rule);
+    }
+
+    private RateLimitRule countingRule(RateLimitRule rule) {
+        if (rule.getAlgorithm() == RateLimitAlgorithm.SLIDING_WINDOW_COUNTER) {
+            return rule;
+        }
+        return countingRules.computeIfAbsent(rule,
+            r -> r.toBuilder().algorithm(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER).build());
+    }
+
+    private KeyState stateFor(RateLimitRule rule, String identifier, RateLimitContext context) {
+        RateLimitRule counting = countingRule(rule);
+        RateLimitKey key = keyTagger.keyFor(counting, identifier, context);
+        KeyState state = keys.computeIfAbsent(key.toRedisKey(), k -> new KeyState(k, counting));
+        active.add(state);
+        return state;
+    }
+
+    private void giveBack(List<Taken> taken) {
+        taken.forEach(t -> t.state.giveBack(t.windowIndex, t.permits));
+    }
+
+    /**
+     * Record the permits of an allowed reserved request. A refund goes to the
+     * Redis hash; permits not yet synced are refunded only as far as the hash
+     * already counts them, like any best-effort refund.
+     */
+    private void reserve(List<Taken> taken, RateLimitContext context) {
+        RateLimitReservation reservation = context.getReservation();
+        if (reservation == null) {
+            return;
+        }
+        for (Taken t : taken) {
+            RateLimitRule rule = t.state.rule.rule;
+            reservation.add(new ReservedPermit(refunder, t.state.redisKey, RateLimitAlgorithm.SLIDING_WINDOW_COUNTER,
+                null, t.permits, rule.getLimit(), rule.getWindowMillis(), rule.getTtlSeconds()));
+        }
+    }
+
+    /**
+     * Redis time as seen from this instance, so all instances agree on window boundaries
+     */
+    private long now() {
+        return System.currentTimeMillis() + clockOffsetMillis;
+    }
+
+    /**
+     * Send the deltas of all recently accessed keys, then drop idle keys.
+     * A key stays in the rounds for {@code max-staleness} after its last
+     * access, so its view is fresh when the next request arrives.
+     */
+    private void syncRound() {
+        try {
+            long now = now();
+            long activeSince = System.currentTimeMillis() - maxStalenessMillis;
+            Iterator<KeyState> it = active.iterator();
+            while (it.hasNext()) {
+                KeyState state = it.next();
+                if (state.lastAccess < activeSince) {
+                    it.remove();
+                }
+                SyncSnapshot snapshot = state.beginSync(now);
+                if (snapshot == null) {
+                    // Previous sync still in flight, or nothing to send and the view is fresh
+                    continue;
+                }
+                send(state, snapshot);
+            }
+
+            if (now - lastSweepMillis >= 1000) {
+                lastSweepMillis = now;
+                sweep();
+            }
+        } catch (Exception e) {
+            log.warn("Local-first sync round failed: {}", e.getMessage());
+        }
+    }
+
+    private void send(KeyState state, SyncSnapshot snapshot) {
+        RateLimitRule rule = state.rule.rule;
+        List<String> args = List.of(
+            String.valueOf(rule.getWindowMillis()),
+            String.valueOf(rule.getTtlSeconds()),
+            String.valueOf(snapshot.windowIndex),
+            String.valueOf(snapshot.current),
+            String.valueOf(snapshot.previous));
+        long sentAt = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+
+        CompletionStage<List<Object>> call;
+        try {
+            call = asyncScriptExecutor.execute(syncScript, List.of(state.redisKey), args);
+        } catch (RuntimeException e) {
+            failed(state, e);
+            return;
+        }
+
+        call.whenComplete((result, error) -> {
+            syncLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (error != null || result == null || result.size() < 4) {
+                failed(state, error != null ? error : new IllegalStateException("Invalid sync script result"));
+                return;
+            }
+
+            long windowIndex = ((Number) result.get(0)).longValue();
+            long current = ((Number) result.get(1)).longValue();
+            long previous = ((Number) result.get(2)).longValue();
+            long redisMillis = ((Number) result.get(3)).longValue();
+            long receivedAt = System.currentTimeMillis();
+            clockOffsetMillis = redisMillis - (sentAt + receivedAt) / 2;
+
+            double finished = state.completeSync(windowIndex, current, previous, redisMillis);
+            if (finished > 0) {
+                overshoot.record(finished);
+            }
+            syncsOk.increment();
+        });
+    }
+
+    private void failed(KeyState state, Throwable error) {
+        state.abortSync();
+        active.add(state);
+        syncsFailed.increment();
+        log.debug("Failed to sync local-first key {}: {}", state.redisKey, error.toString());
+    }
+
+    private void sweep() {
+        keys.values().forEach(state -> {
+            if (state.isIdle() && !active.contains(state) && keys.remove(state.redisKey, state)) {
+                double finished = state.takeOvershoot();
+                if (finished > 0) {
+                    overshoot.record(finished);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncer.shutdownNow();
+        // Last attempt to write what was admitted locally; replies are not awaited
+        long now = now();
+        active.forEach(state -> {
+            SyncSnapshot snapshot = state.beginSync(now);
+            if (snapshot != null && (snapshot.current != 0 || snapshot.previous != 0)) {
+                send(state, snapshot);
+            }
+        });
+        active.clear();
+    }
+
+    /**
+     * Local estimates for keys with local state, Redis for the rest
+     */
+    @Override
+    public RateLimitDecision peek(List<RateLimitRule> rules, RateLimitContext context) {
+        List<RateLimitRule> remoteRules = new ArrayList<>();
+        RateLimitDecision decision = null;
+        long now = now();
+
+        for (RateLimitRule rule : rules) {
+            String identifier = context.getIdentifier(rule);
+            if (!isLocal(rule) || identifier == null || identifier.isEmpty()) {
+                remoteRules.add(rule);
+                continue;
+            }
+            RateLimitRule counting = countingRule(rule);
+            KeyState state = keys.get(keyTagger.keyFor(counting, identifier, context).toRedisKey());
+            if (state == null) {
+                remoteRules.add(counting);
+                continue;
+            }
+            decision = RedisRateLimitExecutor.merge(decision, state.peek(now, context.getPermits(rule)));
+        }
+
+        if (remoteRules.isEmpty() && decision != null) {
+            return decision;
+        }
+        return RedisRateLimitExecutor.merge(decision, delegate.peek(remoteRules, context));
+    }
+
+    /**
+     * Fallback usage of locally decided rules goes into the sliding window
+     * counter hash this executor syncs to
+     */
+    @Override
+    public CompletionStage<Long> reconcile(FallbackUsage usage) {
+        RateLimitRule rule = usage.rule();
+        if (!isLocal(rule) || rule.getAlgorithm() == RateLimitAlgorithm.SLIDING_WINDOW_COUNTER) {
+            return delegate.reconcile(usage);
+        }
+        String suffix = rule.getAlgorithm().getKeySuffix();
+        String redisKey = usage.redisKey().substring(0, usage.redisKey().length() - suffix.length())
+            + RateLimitAlgorithm.SLIDING_WINDOW_COUNTER.getKeySuffix();
+        return delegate.reconcile(new FallbackUsage(countingRule(rule), redisKey, usage.usage()));
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return delegate.isNonBlocking();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getExecutorType() {
+        return "LOCAL_FIRST";
+    }
+
+    /**
+     * Permits one rule took for a request, in the window they were counted in
+     */
+    private record Taken(KeyState state, long windowIndex, long permits) {
+    }
+
+    /**
+     * Deltas handed to one sync call
+     */
+    private record SyncSnapshot(long windowIndex, long current, long previous) {
+    }
+
+    /**
+     * Rule with its window in milliseconds, as used by the counters
+     */
+    private record CountingRule(RateLimitRule rule, long windowMillis) {
+        long windowIndex(long now) {
+            return Math.floorDiv(now, windowMillis);
+        }
+    }
+
+    /**
+     * Counters of one Redis key. All counts are per fixed window: "current" is
+     * the window at {@code windowIndex}, "previous" the one before it.
+     */
+    private class KeyState {
+        private final String redisKey;
+        private final CountingRule rule;
+        private final long unsyncedCap;
+
+        private long windowIndex;
+
+        // Fleet counts read at the last sync (include this instance's synced permits)
+        private long fleetCurrent;
+        private long fleetPrevious;
+
+        // Permits admitted here and not yet sent
+        private long pendingCurrent;
+        private long pendingPrevious;
+        private long pendingSince;
+
+        // Permits sent by the sync in flight (sentIndex == NONE if there is none)
+        private long sentIndex = NONE;
+        private long sentCurrent;
+        private long sentPrevious;
+        private long sentSince;
+
+        // Permits admitted since the fleet view was read
+        private long sinceView;
+        // Local time the fleet view was last read (0 before the first sync)
+        private long viewReadAt;
+        private volatile long lastAccess;
+
+        // Largest fleet excess over the limit seen in window overshootIndex,
+        // recorded once a sync shows a later window
+        private long overshootIndex = NONE;
+        private double maxOvershoot;
+
+        KeyState(String redisKey, RateLimitRule rule) {
+            this.redisKey = redisKey;
+            this.rule = new CountingRule(rule, rule.getWindowMillis());
+            this.unsyncedCap = Math.max(1, (long) (rule.getLimit() * maxUnsyncedFraction));
+            this.windowIndex = this.rule.windowIndex(now());
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized RateLimitDecision acquire(long now, long permits) {
+            lastAccess = System.currentTimeMillis();
+            roll(rule.windowIndex(now));
+
+            long oldest = sentIndex != NONE && sentSince != 0 ? sentSince : pendingSince;
+            if (oldest != 0 && now - oldest > maxStalenessMillis) {
+                staleChecks.increment();
+                throw new RedisUnavailableException("Local-first counts of " + redisKey + " not synced for "
+                    + (now - oldest) + " ms");
+            }
+
+            long limit = rule.rule.getLimit();
+            double estimated = estimate(now);
+            if (estimated + permits > limit) {
+                return denied(now, permits, retryAfter(now, permits));
+            }
+            if (sinceView > 0 && sinceView + permits > unsyncedCap) {
+                // Wait for the next fleet view before admitting more
+                return denied(now, permits, syncIntervalMillis);
+            }
+
+            pendingCurrent += permits;
+            sinceView += permits;
+            if (pendingSince == 0) {
+                pendingSince = now;
+            }
+            return RateLimitDecision.allowed(limit, (long) Math.floor(limit - estimated - permits), resetTime());
+        }
+
+        synchronized RateLimitDecision peek(long now, long permits) {
+            roll(rule.windowIndex(now));
+            long limit = rule.rule.getLimit();
+            double estimated = estimate(now);
+            if (estimated + permits > limit) {
+                return denied(now, permits, retryAfter(now, permits));
+            }
+            return RateLimitDecision.allowed(limit, (long) Math.floor(limit - estimated), resetTime());
+        }
+
+        /**
+         * Give back permits taken for a request that another rule denied
+         */
+        synchronized void giveBack(long index, long permits) {
+            if (index == windowIndex) {
+                pendingCurrent -= permits;
+            } else if (index == windowIndex - 1) {
+                pendingPrevious -= permits;
+            }
+            sinceView = Math.max(0, sinceView - permits);
+        }
+
+        /**
+         * Hand the pending deltas to a sync call, or null if one is in flight
+         * or there are none and the fleet view is still fresh
+         */
+        synchronized SyncSnapshot beginSync(long now) {
+            if (sentIndex != NONE) {
+                return null;
+            }
+            roll(rule.windowIndex(now));
+            if (pendingCurrent == 0 && pendingPrevious == 0
+                    && System.currentTimeMillis() - viewReadAt < viewRefreshMillis) {
+                return null;
+            }
+            sentIndex = windowIndex;
+            sentCurrent = pendingCurrent;
+            sentPrevious = pendingPrevious;
+            sentSince = pendingSince;
+            pendingCurrent = 0;
+            pendingPrevious = 0;
+            pendingSince = 0;
+            return new SyncSnapshot(sentIndex, sentCurrent, sentPrevious);
+        }
+
+        /**
+         * Take the fleet counts read by a sync
+         *
+         * @return largest overshoot of a window that has ended since the last
+         *         sync, to be recorded (0 if none or within the limit)
+         */
+        synchronized double completeSync(long index, long current, long previous, long redisMillis) {
+            clearSent();
+            roll(Math.max(index, windowIndex));
+            if (index == windowIndex) {
+                fleetCurrent = current;
+                fleetPrevious = previous;
+            } else if (index == windowIndex - 1) {
+                fleetCurrent = 0;
+                fleetPrevious = current;
+            }
+            sinceView = Math.max(0, pendingCurrent + pendingPrevious);
+            viewReadAt = System.currentTimeMillis();
+
+            double fraction = Math.min(1.0, Math.max(0.0,
+                (double) (redisMillis - index * rule.windowMillis) / rule.windowMillis));
+            double fleetEstimate = previous * (1 - fraction) + current;
+            double excess = Math.max(0, fleetEstimate - rule.rule.getLimit());
+
+            double finished = 0;
+            if (index > overshootIndex) {
+                finished = maxOvershoot;
+                overshootIndex = index;
+                maxOvershoot = 0;
+            }
+            maxOvershoot = Math.max(maxOvershoot, excess);
+            return finished;
+        }
+
+        /**
+         * Overshoot of the current window, for a key that is being dropped
+         */
+        synchronized double takeOvershoot() {
+            double finished = maxOvershoot;
+            maxOvershoot = 0;
+            return finished;
+        }
+
+        /**
+         * Put back the deltas of a failed sync, to be sent with the next one
+         */
+        synchronized void abortSync() {
+            if (sentIndex == NONE) {
+                return;
+            }
+            if (sentIndex == windowIndex) {
+                pendingCurrent += sentCurrent;
+                pendingPrevious += sentPrevious;
+            } else if (sentIndex == windowIndex - 1) {
+                pendingPrevious += sentCurrent;
+            }
+            if (sentSince != 0 && (pendingSince == 0 || sentSince < pendingSince)) {
+                pendingSince = sentSince;
+            }
+            clearSent();
+        }
+
+        private void clearSent() {
+            sentIndex = NONE;
+            sentCurrent = 0;
+            sentPrevious = 0;
+            sentSince = 0;
+        }
+
+        /**
+         * Move the counters forward to window {@code index}
+         */
+        private void roll(long index) {
+            if (index <= windowIndex) {
+                return;
+            }
+            boolean adjacent = index == windowIndex + 1;
+            fleetPrevious = adjacent ? fleetCurrent : 0;
+            pendingPrevious = adjacent ? pendingCurrent : 0;
+            fleetCurrent = 0;
+            pendingCurrent = 0;
+            windowIndex = index;
+        }
+
+        /**
+         * Weighted count over the sliding window: fleet view, in-flight and pending permits
+         */
+        private double estimate(long now) {
+            return previousCount() * (1 - elapsedFraction(now)) + currentCount();
+        }
+
+        private long currentCount() {
+            return fleetCurrent + pendingCurrent + (sentIndex == windowIndex ? sentCurrent : 0);
+        }
+
+        private long previousCount() {
+            long sent = sentIndex == windowIndex ? sentPrevious : sentIndex == windowIndex - 1 ? sentCurrent : 0;
+            return fleetPrevious + pendingPrevious + sent;
+        }
+
+        private double elapsedFraction(long now) {
+            long windowStart = windowIndex * rule.windowMillis;
+            return Math.min(1.0, Math.max(0.0, (double) (now - windowStart) / rule.windowMillis));
+        }
+
+        private long resetTime() {
+            return (windowIndex + 1) * rule.windowMillis / 1000;
+        }
+
+        /**
+         * Time until the weighted count leaves room for the permits, as in sliding_window_counter.lua
+         */
+        private long retryAfter(long now, long permits) {
+            long limit = rule.rule.getLimit();
+            long windowStart = windowIndex * rule.windowMillis;
+            double current = currentCount();
+            double previous = previousCount();
+            double retryAt;
+            if (current + permits <= limit && previous > 0) {
+                retryAt = windowStart + (1 - (limit - permits - current) / previous) * rule.windowMillis;
+            } else if (current > 0) {
+                retryAt = windowStart + rule.windowMillis
+                    + Math.max(0, 1 - (limit - permits) / current) * rule.windowMillis;
+            } else {
+                retryAt = windowStart + rule.windowMillis;
+            }
+            return Math.max(1, (long) Math.ceil(retryAt - now));
+        }
+
+        private RateLimitDecision denied(long now, long permits, long retryAfterMillis) {
+            RateLimitDecision decision = RateLimitDecision.denied(rule.rule.getLimit(),
+                (now + retryAfterMillis + 999) / 1000, rule.rule.getDimension(), redisKey);
+            decision.setRetryAfterMillis(retryAfterMillis);
+            return decision;
+        }
+
+        boolean isIdle() {
+            long idleMillis = Math.min(rule.windowMillis, MAX_IDLE_MILLIS);
+            synchronized (this) {
+                return sentIndex == NONE && pendingCurrent == 0 && pendingPrevious == 0
+                    && System.currentTimeMillis() - lastAccess > idleMillis;
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.scripts.LuaScriptLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives permits of reserved requests back to Redis (refund.lua).
+ *
+ * Refunds are queued and never block the caller. A single flusher thread,
+ * started on the first refund, collects them for up to {@code refund.window}
+ * or {@code refund.max-batch-size} permits, merges the refunds of each key
+ * into one script call and sends the calls over the async connection.
+ * Refunds are best effort: a full queue or a Redis error leaves the permits
+ * consumed, which can only make the limit stricter.
+ */
+@Slf4j
+@Component
+public class PermitRefunder {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final RedisAsyncScriptExecutor asyncScriptExecutor;
+    private final LocalDenyCache denyCache;
+    private final DefaultRedisScript<List> refundScript;
+    private final BlockingQueue<ReservedPermit> queue;
+
+    private final Counter queued;
+    private final Counter refunded;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public PermitRefunder(
+            RateLimiterProperties properties,
+            RedisAsyncScriptExecutor asyncScriptExecutor,
+            LuaScriptLoader luaScriptLoader,
+            LocalDenyCache denyCache,
+            MeterRegistry meterRegistry) {
+
+        RateLimiterProperties.RefundConfig config = properties.getRefund();
+
+        this.windowNanos = config.getWindow().toNanos();
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.asyncScriptExecutor = asyncScriptExecutor;
+        this.denyCache = denyCache;
+        this.queue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+
+        this.refundScript = new DefaultRedisScript<>();
+        this.refundScript.setScriptText(luaScriptLoader.getRefundScript());
+        this.refundScript.setResultType(List.class);
+
+        this.queued = meterRegistry.counter("ratelimiter.refund.queued");
+        this.refunded = meterRegistry.counter("ratelimiter.refund.permits");
+        this.dropped = meterRegistry.counter("ratelimiter.refund.dropped");
+        this.failed = meterRegistry.counter("ratelimiter.refund.failed");
+    }
+
+    /**
+     * Queue permits to be given back
+     */
+    public void refund(List<ReservedPermit> permits) {
+        if (!running) {
+            dropped.increment(permits.size());
+            return;
+        }
+        startFlusher();
+
+        for (ReservedPermit permit : permits) {
+            if (queue.offer(permit)) {
+                queued.increment();
+            } else {
+                dropped.increment();
+            }
+        }
+    }
+
+    private synchronized void startFlusher() {
+        if (flusher == null && running) {
+            flusher = new Thread(this::flushLoop, "ratelimiter-refund-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * Collect a batch: wait for the first refund, then until the window closes or the batch is full
+     */
+    private void flushLoop() {
+        List<ReservedPermit> batch = new ArrayList<>(maxBatchSize);
+
+        while (running) {
+            try {
+                ReservedPermit first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    ReservedPermit next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Failed to flush permit refunds", e);
+                failed.increment(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Send one refund per key for the whole batch
+     */
+    private void flush(List<ReservedPermit> batch) {
+        Map<String, List<ReservedPermit>> byKey = new LinkedHashMap<>();
+        for (ReservedPermit permit : batch) {
+            byKey.computeIfAbsent(permit.redisKey(), k -> new ArrayList<>()).add(permit);
+        }
+
+        byKey.forEach((redisKey, permits) -> {
+            ReservedPermit first = permits.get(0);
+            long total = 0;
+            List<String> args = new ArrayList<>(5 + permits.size());
+            args.add(first.algorithm().getValue());
+            args.add(String.valueOf(first.limit()));
+            args.add(String.valueOf(first.windowMillis()));
+            args.add(String.valueOf(first.ttlSeconds()));
+            args.add(null);  // Total permits, set below
+            for (ReservedPermit permit : permits) {
+                total += permit.permits();
+                if (permit.member() != null) {
+                    args.add(permit.member());
+                }
+            }
+            args.set(4, String.valueOf(total));
+
+            long requested = total;
+            asyncScriptExecutor.execute(refundScript, List.of(redisKey), args)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to refund {} permits to {}: {}", requested, redisKey,
+                            RedisAsyncScriptExecutor.unwrap(error).toString());
+                        failed.increment(permits.size());
+                        return;
+                    }
+                    if (result != null && !result.isEmpty()) {
+                        refunded.increment(((Number) result.get(0)).longValue());
+                    }
+                    // A denial cached before the refund may no longer hold
+                    denyCache.invalidate(redisKey);
+                });
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread current;
+        synchronized (this) {
+            current = flusher;
+        }
+        if (current != null) {
+            current.interrupt();
+        }
+
+        dropped.increment(queue.size());
+        queue.clear();
+    }
+}
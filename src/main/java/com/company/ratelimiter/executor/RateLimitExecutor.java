@@ -5,6 +5,8 @@ import com.company.ratelimiter.core.RateLimitDecision;
 import com.company.ratelimiter.model.RateLimitRule;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Interface for executing rate limit checks against a storage backend.
@@ -32,6 +34,54 @@ public interface RateLimitExecutor {
      */
     RateLimitDecision checkLimits(List<RateLimitRule> rules, RateLimitContext context);
 
+    /**
+     * Non-blocking variant of {@link #checkLimits(List, RateLimitContext)}.
+     * The stage completes exceptionally where the blocking call would throw.
+     * 
+     * The default implementation runs the blocking check on the calling thread;
+     * executors backed by a remote store should override it.
+     * 
+     * @param rules List of rules to check
+     * @param context Request context
+     * @return Stage completing with the decision based on all rules
+     */
+    default CompletionStage<RateLimitDecision> checkLimitsAsync(List<RateLimitRule> rules, RateLimitContext context) {
+        try {
+            return CompletableFuture.completedFuture(checkLimits(rules, context));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Report the quota left for a request without consuming any of it.
+     * The decision tells whether a request of the context's cost would
+     * currently be allowed; {@code remaining} is counted before that request.
+     * 
+     * @param rules List of rules to report
+     * @param context Request context
+     * @return Decision based on all rules, nothing consumed
+     */
+    RateLimitDecision peek(List<RateLimitRule> rules, RateLimitContext context);
+
+    /**
+     * Add permits a fallback allowed while this executor was unavailable to
+     * the state of their key, so the key does not start over when it is back.
+     * 
+     * @param usage Permits taken on one key, with their timestamps
+     * @return Stage completing with the number of permits added
+     */
+    CompletionStage<Long> reconcile(FallbackUsage usage);
+
+    /**
+     * Whether {@link #checkLimitsAsync(List, RateLimitContext)} returns without
+     * waiting on Redis. Callers on event-loop threads move checks of executors
+     * that answer false to a worker thread.
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
+
     /**
      * Check if this executor is currently available
      */
@@ -0,0 +1,238 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisScriptingAsyncCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.masterreplica.MasterReplica;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Runs rate limit Lua scripts on Lettuce's native async API.
+ *
+ * RedisTemplate blocks the calling thread for the whole round trip. This
+ * executor instead shares one multiplexed Lettuce connection and returns a
+ * CompletionStage, so callers do not hold a thread while Redis is in flight.
+ * Scripts are sent with EVALSHA and re-sent with EVAL on NOSCRIPT.
+ *
+ * Read-only scripts can be routed to replicas ({@code peek.read-from}): they
+ * are sent as EVALSHA_RO/EVAL_RO on a second connection with that ReadFrom,
+ * a master/replica connection outside cluster mode.
+ */
+@Slf4j
+@Component
+public class RedisAsyncScriptExecutor {
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RateLimiterProperties properties;
+
+    private volatile StatefulConnection<String, String> connection;
+    private volatile RedisScriptingAsyncCommands<String, String> commands;
+
+    // Connection for read-only scripts, null while they go to the primary
+    private final ReadFrom readFrom;
+    private volatile StatefulConnection<String, String> readConnection;
+    private volatile RedisScriptingAsyncCommands<String, String> readCommands;
+
+    public RedisAsyncScriptExecutor(
+            RedisConnectionFactory connectionFactory,
+            RateLimiterProperties properties) {
+
+        this.connectionFactory = connectionFactory;
+        this.properties = properties;
+
+        String readFromName = properties.getPeek().getReadFrom();
+        this.readFrom = readFromName.equalsIgnoreCase("UPSTREAM") || readFromName.equalsIgnoreCase("MASTER")
+            ? null
+            : ReadFrom.valueOf(readFromName);
+    }
+
+    /**
+     * Execute a script asynchronously.
+     * The stage completes exceptionally if Redis fails or cannot be reached.
+     */
+    public CompletionStage<List<Object>> execute(RedisScript<?> script, List<String> keys, List<String> args) {
+        RedisScriptingAsyncCommands<String, String> async;
+        try {
+            async = commands();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        String[] keyArray = keys.toArray(new String[0]);
+        String[] argArray = args.toArray(new String[0]);
+
+        CompletionStage<List<Object>> evalsha = async.evalsha(
+            script.getSha1(), ScriptOutputType.MULTI, keyArray, argArray);
+
+        return evalsha.exceptionallyCompose(e -> {
+            if (unwrap(e) instanceof RedisNoScriptException) {
+                // Script cache was flushed or never loaded: send the full script once
+                return async.eval(script.getScriptAsString(), ScriptOutputType.MULTI, keyArray, argArray);
+            }
+            return CompletableFuture.failedFuture(e);
+        });
+    }
+
+    /**
+     * Execute a script that only reads, on a replica when {@code peek.read-from} allows
+     */
+    public CompletionStage<List<Object>> executeReadOnly(RedisScript<?> script, List<String> keys, List<String> args) {
+        if (readFrom == null) {
+            return execute(script, keys, args);
+        }
+
+        RedisScriptingAsyncCommands<String, String> async;
+        try {
+            async = readCommands();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        String[] keyArray = keys.toArray(new String[0]);
+        String[] argArray = args.toArray(new String[0]);
+
+        CompletionStage<List<Object>> evalsha = async.evalshaReadOnly(
+            script.getSha1(), ScriptOutputType.MULTI, keyArray, argArray);
+
+        return evalsha.exceptionallyCompose(e -> {
+            if (unwrap(e) instanceof RedisNoScriptException) {
+                // Replicas keep their own script cache
+                return async.evalReadOnly(script.getScriptAsString().getBytes(StandardCharsets.UTF_8),
+                    ScriptOutputType.MULTI, keyArray, argArray);
+            }
+            return CompletableFuture.failedFuture(e);
+        });
+    }
+
+    /**
+     * Lazily open the connection for read-only scripts
+     */
+    private RedisScriptingAsyncCommands<String, String> readCommands() {
+        RedisScriptingAsyncCommands<String, String> current = readCommands;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (readCommands == null) {
+                readConnection = connectReadOnly();
+                readCommands = scriptingCommands(readConnection);
+                log.info("Async Redis connection opened for read-only scripts (readFrom={})", readFrom);
+            }
+            return readCommands;
+        }
+    }
+
+    private StatefulConnection<String, String> connectReadOnly() {
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuceFactory)) {
+            throw new IllegalStateException("Replica reads require a LettuceConnectionFactory");
+        }
+
+        AbstractRedisClient client = lettuceFactory.getRequiredNativeClient();
+        if (client instanceof RedisClusterClient clusterClient) {
+            StatefulRedisClusterConnection<String, String> clusterConnection = clusterClient.connect(StringCodec.UTF8);
+            clusterConnection.setReadFrom(readFrom);
+            clusterConnection.setTimeout(properties.getRedis().getTimeout());
+            return clusterConnection;
+        }
+
+        // Replicas are discovered from the primary's INFO replication
+        RedisStandaloneConfiguration standalone = lettuceFactory.getStandaloneConfiguration();
+        RedisURI.Builder uri = RedisURI.builder()
+            .withHost(standalone.getHostName())
+            .withPort(standalone.getPort())
+            .withDatabase(standalone.getDatabase())
+            .withTimeout(properties.getRedis().getTimeout());
+        standalone.getPassword().toOptional().ifPresent(password -> uri.withPassword(password));
+
+        StatefulRedisMasterReplicaConnection<String, String> masterReplica =
+            MasterReplica.connect((RedisClient) client, StringCodec.UTF8, uri.build());
+        masterReplica.setReadFrom(readFrom);
+        return masterReplica;
+    }
+
+    /**
+     * Lazily open the shared async connection
+     */
+    private RedisScriptingAsyncCommands<String, String> commands() {
+        RedisScriptingAsyncCommands<String, String> current = commands;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (commands == null) {
+                connection = connect();
+                commands = scriptingCommands(connection);
+                log.info("Async Redis connection opened for rate limit scripts");
+            }
+            return commands;
+        }
+    }
+
+    /**
+     * Open a new native connection to the configured Redis (standalone or cluster).
+     * The caller owns the connection and must close it.
+     */
+    StatefulConnection<String, String> connect() {
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuceFactory)) {
+            throw new IllegalStateException("Async rate limit checks require a LettuceConnectionFactory");
+        }
+
+        AbstractRedisClient client = lettuceFactory.getRequiredNativeClient();
+        StatefulConnection<String, String> newConnection = client instanceof RedisClusterClient clusterClient
+            ? clusterClient.connect(StringCodec.UTF8)
+            : ((RedisClient) client).connect(StringCodec.UTF8);
+        newConnection.setTimeout(properties.getRedis().getTimeout());
+        return newConnection;
+    }
+
+    /**
+     * Scripting commands of a connection opened by {@link #connect()}
+     */
+    static RedisScriptingAsyncCommands<String, String> scriptingCommands(StatefulConnection<String, String> connection) {
+        if (connection instanceof StatefulRedisClusterConnection<String, String> clusterConnection) {
+            return clusterConnection.async();
+        }
+        return ((StatefulRedisConnection<String, String>) connection).async();
+    }
+
+    static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        StatefulConnection<String, String> current = connection;
+        if (current != null) {
+            current.closeAsync();
+        }
+        StatefulConnection<String, String> currentRead = readConnection;
+        if (currentRead != null) {
+            currentRead.closeAsync();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.company.ratelimiter.executor;
 
 import com.company.ratelimiter.core.RateLimitContext;
 import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimitReservation;
 import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
 import com.company.ratelimiter.model.RateLimitKey;
 import com.company.ratelimiter.model.RateLimitRule;
 import com.company.ratelimiter.scripts.LuaScriptLoader;
@@ -16,11 +18,37 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
- * Redis-based rate limit executor using Sliding Window Log algorithm.
+ * Redis-based rate limit executor.
+ * Uses the Sliding Window Log algorithm by default; rules can select another
+ * {@link RateLimitAlgorithm} (e.g. token bucket for high-limit rules).
  * Executes Lua scripts atomically to ensure consistency across distributed instances.
+ * Keys already known to be denied are answered from the {@link LocalDenyCache}.
+ * GLOBAL rules may be spread over sub-keys by the {@link GlobalLimitSharder}.
+ *
+ * In Redis Cluster mode, keys are built by the {@link ClusterKeyTagger}. A
+ * multi-dimension check whose keys fall into several slots is split into one
+ * script per slot, evaluated in rule order and stopped at the first denial.
+ * Each per-slot script is atomic, the split check as a whole is not. When a
+ * later slot denies, permits taken in earlier slots stay consumed if the
+ * request holds no reservation, so split checks can over-count but never
+ * under-count. A reserved request has them refunded right away
+ * ({@code RateLimiterService.reserve}).
+ *
+ * For a request with a {@link RateLimitReservation}, the permits of every
+ * allowed check are recorded with the sliding window log member they were
+ * stored as, so the {@link PermitRefunder} can give them back.
+ *
+ * {@link #peek} runs the read-only peek.lua, routed by {@code peek.read-from}.
  */
 @Slf4j
 @Component
@@ -29,50 +57,92 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
     private final RedisTemplate<String, String> redisTemplate;
     private final LuaScriptLoader luaScriptLoader;
     private final MeterRegistry meterRegistry;
-
-    // Cached Lua scripts
-    private final DefaultRedisScript<List> singleLimitScript;
+    private final LocalDenyCache denyCache;
+    private final RedisAsyncScriptExecutor asyncScriptExecutor;
+    private final ScriptBatcher scriptBatcher;
+    private final ClusterKeyTagger keyTagger;
+    private final GlobalLimitSharder globalSharder;
+    private final PermitRefunder refunder;
+
+    // Cached Lua scripts (single-key script per algorithm)
+    private final Map<RateLimitAlgorithm, DefaultRedisScript<List>> singleLimitScripts;
     private final DefaultRedisScript<List> multiLimitScript;
+    private final DefaultRedisScript<List> peekScript;
+    private final DefaultRedisScript<List> reconcileScript;
 
     public RedisRateLimitExecutor(
             RedisTemplate<String, String> redisTemplate,
             LuaScriptLoader luaScriptLoader,
-            MeterRegistry meterRegistry) {
+            MeterRegistry meterRegistry,
+            LocalDenyCache denyCache,
+            RedisAsyncScriptExecutor asyncScriptExecutor,
+            ScriptBatcher scriptBatcher,
+            ClusterKeyTagger keyTagger,
+            GlobalLimitSharder globalSharder,
+            PermitRefunder refunder) {
         
         this.redisTemplate = redisTemplate;
         this.luaScriptLoader = luaScriptLoader;
         this.meterRegistry = meterRegistry;
+        this.denyCache = denyCache;
+        this.asyncScriptExecutor = asyncScriptExecutor;
+        this.scriptBatcher = scriptBatcher;
+        this.keyTagger = keyTagger;
+        this.globalSharder = globalSharder;
+        this.refunder = refunder;
 
         // Initialize Lua scripts
-        this.singleLimitScript = new DefaultRedisScript<>();
-        this.singleLimitScript.setScriptText(luaScriptLoader.getSlidingWindowLogScript());
-        this.singleLimitScript.setResultType(List.class);
+        this.singleLimitScripts = new EnumMap<>(RateLimitAlgorithm.class);
+        this.singleLimitScripts.put(RateLimitAlgorithm.SLIDING_WINDOW_LOG,
+            createScript(luaScriptLoader.getSlidingWindowLogScript()));
+        this.singleLimitScripts.put(RateLimitAlgorithm.TOKEN_BUCKET,
+            createScript(luaScriptLoader.getTokenBucketScript()));
+        this.singleLimitScripts.put(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER,
+            createScript(luaScriptLoader.getSlidingWindowCounterScript()));
+        this.singleLimitScripts.put(RateLimitAlgorithm.GCRA,
+            createScript(luaScriptLoader.getGcraScript()));
+
+        this.multiLimitScript = createScript(luaScriptLoader.getSlidingWindowMultiScript());
+        this.peekScript = createScript(luaScriptLoader.getPeekScript());
+        this.reconcileScript = createScript(luaScriptLoader.getReconcileScript());
+    }
 
-        this.multiLimitScript = new DefaultRedisScript<>();
-        this.multiLimitScript.setScriptText(luaScriptLoader.getSlidingWindowMultiScript());
-        this.multiLimitScript.setResultType(List.class);
+    private static DefaultRedisScript<List> createScript(String scriptText) {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptText(scriptText);
+        script.setResultType(List.class);
+        return script;
     }
 
     @Override
-    public RateLimitDecision checkLimit(RateLimitRule rule, RateLimitContext context) {
+    public RateLimitDecision checkLimit(RateLimitRule configuredRule, RateLimitContext context) {
         Timer.Sample sample = Timer.start(meterRegistry);
+        RateLimitRule rule = configuredRule;
         
         try {
-            String identifier = context.getIdentifier(rule.getDimension());
+            String identifier = globalSharder.identifierFor(configuredRule, context);
             if (identifier == null || identifier.isEmpty()) {
                 log.warn("No identifier found for dimension: {}", rule.getDimension());
                 return RateLimitDecision.allowed(rule.getLimit(), rule.getLimit(), 
                     System.currentTimeMillis() / 1000 + rule.getWindowSeconds());
             }
 
-            RateLimitKey key = new RateLimitKey(
-                rule.getDimension(),
-                identifier,
-                rule.getWindowSeconds()
-            );
-
-            List<Object> result = executeSingleLimitScript(key, rule, context);
-            RateLimitDecision decision = parseScriptResult(result, rule, key);
+            rule = globalSharder.shareOf(configuredRule, context);
+            RateLimitKey key = keyTagger.keyFor(rule, identifier, context);
+            String redisKey = key.toRedisKey();
+
+            // Known-denied key: no need to ask Redis before its retry time
+            long permits = context.getPermits(rule);
+            RateLimitDecision decision = denyCache.lookup(redisKey, rule.getDimension(), permits);
+            if (decision == null) {
+                globalSharder.recordDemand(configuredRule, context);
+                List<Object> result = executeSingleLimitScript(redisKey, rule, context);
+                decision = parseScriptResult(result, rule, key);
+                denyCache.recordDenial(redisKey, decision, permits);
+                if (decision.isAllowed()) {
+                    reserve(context, rule, redisKey, 0);
+                }
+            }
 
             recordMetrics(decision, rule, sample);
             return decision;
@@ -98,8 +168,25 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
         Timer.Sample sample = Timer.start(meterRegistry);
 
         try {
-            List<Object> result = executeMultiLimitScript(rules, context);
-            RateLimitDecision decision = parseMultiScriptResult(result, rules, context);
+            PreparedCheck check = prepareCheck(rules, context, true);
+            if (check.cachedDenial() != null) {
+                recordMetrics(check.cachedDenial(), rules.get(0), sample);
+                return check.cachedDenial();
+            }
+
+            if (check.rules().isEmpty()) {
+                return RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE,
+                    System.currentTimeMillis() / 1000 + 60);
+            }
+
+            RateLimitDecision decision = null;
+            for (PreparedCheck part : splitBySlot(check)) {
+                List<Object> result = executeScript(scriptFor(part), part.redisKeys(), argsFor(part, context));
+                decision = merge(decision, completeCheck(result, part, context));
+                if (!decision.isAllowed()) {
+                    break;
+                }
+            }
 
             recordMetrics(decision, rules.get(0), sample);
             return decision;
@@ -111,70 +198,363 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
         }
     }
 
+    /**
+     * Non-blocking check over Lettuce async commands.
+     * Runs the same scripts as the blocking path; the calling thread is released
+     * as soon as the command is written.
+     */
+    @Override
+    public CompletionStage<RateLimitDecision> checkLimitsAsync(List<RateLimitRule> rules, RateLimitContext context) {
+        if (rules.isEmpty()) {
+            return CompletableFuture.completedFuture(RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE,
+                System.currentTimeMillis() / 1000 + 60));
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        RateLimitRule metricsRule = rules.get(0);
+
+        PreparedCheck check = prepareCheck(rules, context, true);
+        if (check.cachedDenial() != null) {
+            recordMetrics(check.cachedDenial(), metricsRule, sample);
+            return CompletableFuture.completedFuture(check.cachedDenial());
+        }
+
+        if (check.rules().isEmpty()) {
+            return CompletableFuture.completedFuture(RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE,
+                System.currentTimeMillis() / 1000 + 60));
+        }
+
+        CompletionStage<RateLimitDecision> result = CompletableFuture.completedFuture(null);
+        for (PreparedCheck part : splitBySlot(check)) {
+            result = result.thenCompose(previous -> {
+                if (previous != null && !previous.isAllowed()) {
+                    return CompletableFuture.completedFuture(previous);
+                }
+                return executeScriptAsync(scriptFor(part), part.redisKeys(), argsFor(part, context))
+                    .thenApply(scriptResult -> merge(previous, completeCheck(scriptResult, part, context)));
+            });
+        }
+
+        return result.handle((decision, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                log.error("Redis error during async rate limit check", cause);
+                recordMetrics(null, metricsRule, sample);
+                throw new CompletionException(
+                    new RedisUnavailableException("Failed to check rate limits in Redis", cause));
+            }
+
+            recordMetrics(decision, metricsRule, sample);
+            return decision;
+        });
+    }
+
+    /**
+     * Read-only check: a known-denied key is answered from the deny cache,
+     * the other keys are read by peek.lua (one script per cluster slot)
+     */
+    @Override
+    public RateLimitDecision peek(List<RateLimitRule> rules, RateLimitContext context) {
+        try {
+            PreparedCheck check = prepareCheck(rules, context, false);
+            if (check.cachedDenial() != null) {
+                return check.cachedDenial();
+            }
+
+            RateLimitDecision decision = null;
+            for (PreparedCheck part : splitBySlot(check)) {
+                List<Object> result = asyncScriptExecutor
+                    .executeReadOnly(peekScript, part.redisKeys(), peekArgs(part.rules(), context))
+                    .toCompletableFuture()
+                    .join();
+                decision = merge(decision, parseMultiScriptResult(result, part.rules(), context));
+                if (!decision.isAllowed()) {
+                    break;
+                }
+            }
+
+            return decision != null ? decision : RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE,
+                System.currentTimeMillis() / 1000 + 60);
+
+        } catch (Exception e) {
+            Throwable cause = RedisAsyncScriptExecutor.unwrap(e);
+            log.error("Redis error during rate limit peek", cause);
+            throw new RedisUnavailableException("Failed to read rate limits from Redis", cause);
+        }
+    }
+
+    /**
+     * Add fallback usage with reconcile.lua, on the async connection.
+     * Sharded GLOBAL rules are skipped: their usage cannot be assigned to a sub-key.
+     */
+    @Override
+    public CompletionStage<Long> reconcile(FallbackUsage usage) {
+        RateLimitRule rule = usage.rule();
+        if (globalSharder.isSharded(rule) || usage.usage().length == 0) {
+            return CompletableFuture.completedFuture(0L);
+        }
+
+        long now = System.currentTimeMillis();
+        long[] pairs = usage.usage();
+        List<String> args = new ArrayList<>(5 + pairs.length);
+        args.add(rule.getAlgorithm().getValue());
+        args.add(String.valueOf(rule.getLimit()));
+        args.add(String.valueOf(rule.getWindowMillis()));
+        args.add(String.valueOf(rule.getTtlSeconds()));
+        args.add("reconcile:" + UUID.randomUUID());
+        for (int i = 0; i < pairs.length; i += 2) {
+            args.add(String.valueOf(Math.max(0, now - pairs[i])));
+            args.add(String.valueOf(pairs[i + 1]));
+        }
+
+        return asyncScriptExecutor.execute(reconcileScript, List.of(usage.redisKey()), args)
+            .thenApply(result -> result.isEmpty() ? 0L : ((Number) result.get(0)).longValue());
+    }
+
+    /**
+     * Resolve keys once and consult the deny cache.
+     * Rules without an identifier are skipped; any known-denied key denies the whole request.
+     * A consuming check that goes on to Redis counts as GLOBAL sub-key demand.
+     */
+    private PreparedCheck prepareCheck(List<RateLimitRule> rules, RateLimitContext context, boolean consume) {
+        List<RateLimitRule> applicableRules = new ArrayList<>(rules.size());
+        List<RateLimitKey> keys = new ArrayList<>(rules.size());
+        List<String> redisKeys = new ArrayList<>(rules.size());
+
+        for (RateLimitRule configuredRule : rules) {
+            String identifier = globalSharder.identifierFor(configuredRule, context);
+            if (identifier == null || identifier.isEmpty()) {
+                continue;
+            }
+            RateLimitRule rule = globalSharder.shareOf(configuredRule, context);
+            RateLimitKey key = keyTagger.keyFor(rule, identifier, context);
+            String redisKey = key.toRedisKey();
+
+            RateLimitDecision cached = denyCache.lookup(redisKey, rule.getDimension(), context.getPermits(rule));
+            if (cached != null) {
+                return new PreparedCheck(applicableRules, keys, redisKeys, cached);
+            }
+
+            applicableRules.add(rule);
+            keys.add(key);
+            redisKeys.add(redisKey);
+        }
+
+        if (consume) {
+            rules.forEach(rule -> globalSharder.recordDemand(rule, context));
+        }
+        return new PreparedCheck(applicableRules, keys, redisKeys, null);
+    }
+
+    /**
+     * Split a check into one check per cluster slot, keeping rule order.
+     * Outside cluster mode, or when all keys share a slot, the check is returned as is.
+     */
+    private List<PreparedCheck> splitBySlot(PreparedCheck check) {
+        if (!keyTagger.isClusterMode() || check.rules().size() < 2) {
+            return List.of(check);
+        }
+
+        Map<Integer, List<Integer>> indexesBySlot = new LinkedHashMap<>();
+        for (int i = 0; i < check.redisKeys().size(); i++) {
+            indexesBySlot.computeIfAbsent(keyTagger.slotOf(check.redisKeys().get(i)), slot -> new ArrayList<>())
+                .add(i);
+        }
+
+        if (indexesBySlot.size() == 1) {
+            return List.of(check);
+        }
+
+        meterRegistry.counter("ratelimiter.cluster.split").increment();
+
+        List<PreparedCheck> parts = new ArrayList<>(indexesBySlot.size());
+        for (List<Integer> indexes : indexesBySlot.values()) {
+            parts.add(new PreparedCheck(
+                indexes.stream().map(check.rules()::get).toList(),
+                indexes.stream().map(check.keys()::get).toList(),
+                indexes.stream().map(check.redisKeys()::get).toList(),
+                null));
+        }
+        return parts;
+    }
+
+    private DefaultRedisScript<List> scriptFor(PreparedCheck check) {
+        return check.rules().size() == 1
+            ? singleLimitScripts.get(check.rules().get(0).getAlgorithm())
+            : multiLimitScript;
+    }
+
+    private List<String> argsFor(PreparedCheck check, RateLimitContext context) {
+        return check.rules().size() == 1
+            ? singleLimitArgs(check.rules().get(0), context)
+            : multiLimitArgs(check.rules(), context);
+    }
+
+    /**
+     * Parse the script result of a check and remember a denial of the failed key
+     */
+    private RateLimitDecision completeCheck(
+            List<Object> result,
+            PreparedCheck check,
+            RateLimitContext context) {
+
+        if (check.rules().size() == 1) {
+            RateLimitRule rule = check.rules().get(0);
+            RateLimitDecision decision = parseScriptResult(result, rule, check.keys().get(0));
+            denyCache.recordDenial(check.redisKeys().get(0), decision, context.getPermits(rule));
+            if (decision.isAllowed()) {
+                reserve(context, rule, check.redisKeys().get(0), 0);
+            }
+            return decision;
+        }
+
+        RateLimitDecision decision = parseMultiScriptResult(result, check.rules(), context);
+        if (decision.isAllowed()) {
+            for (int i = 0; i < check.rules().size(); i++) {
+                reserve(context, check.rules().get(i), check.redisKeys().get(i), i + 1);
+            }
+        } else {
+            int failedIndex = ((Number) result.get(1)).intValue();
+            denyCache.recordDenial(check.redisKeys().get(failedIndex - 1), decision,
+                context.getPermits(check.rules().get(failedIndex - 1)));
+        }
+        return decision;
+    }
+
+    /**
+     * Record the permits an allowed check took for a reserved request.
+     * The member follows the scripts: request ID, suffixed by the rule's
+     * 1-based index in a multi-dimension script, prefixed by "#N:" if weighted.
+     */
+    private void reserve(RateLimitContext context, RateLimitRule rule, String redisKey, int index) {
+        RateLimitReservation reservation = context.getReservation();
+        if (reservation == null) {
+            return;
+        }
+
+        long permits = context.getPermits(rule);
+        String member = null;
+        if (rule.getAlgorithm() == RateLimitAlgorithm.SLIDING_WINDOW_LOG) {
+            member = index > 0 ? context.getRequestId() + ":" + index : context.getRequestId();
+            if (permits > 1) {
+                member = "#" + permits + ":" + member;
+            }
+        }
+
+        reservation.add(new ReservedPermit(refunder, redisKey, rule.getAlgorithm(), member, permits,
+            rule.getLimit(), rule.getWindowMillis(), rule.getTtlSeconds()));
+    }
+
+    /**
+     * Combine the decisions of a split check: a denial wins, otherwise the tightest values
+     */
+    static RateLimitDecision merge(RateLimitDecision previous, RateLimitDecision next) {
+        if (previous == null || !next.isAllowed()) {
+            return next;
+        }
+        RateLimitDecision merged = RateLimitDecision.allowed(
+            Math.min(previous.getLimit(), next.getLimit()),
+            Math.min(previous.getRemaining(), next.getRemaining()),
+            Math.min(previous.getResetTime(), next.getResetTime()));
+        merged.setFromFallback(previous.isFromFallback() || next.isFromFallback());
+        return merged;
+    }
+
     /**
      * Execute single limit Lua script
      */
     private List<Object> executeSingleLimitScript(
-            RateLimitKey key, 
+            String redisKey, 
             RateLimitRule rule, 
-            RateLimitContext context) {
+            RateLimitContext context) throws Exception {
         
-        List<String> keys = Collections.singletonList(key.toRedisKey());
-        List<String> args = List.of(
+        List<String> keys = Collections.singletonList(redisKey);
+        List<String> args = singleLimitArgs(rule, context);
+
+        return executeScript(singleLimitScripts.get(rule.getAlgorithm()), keys, args);
+    }
+
+    /**
+     * Run a script on the calling thread, through the batching stage when enabled
+     */
+    private List<Object> executeScript(DefaultRedisScript<List> script, List<String> keys, List<String> args)
+            throws Exception {
+        if (scriptBatcher.isEnabled()) {
+            return scriptBatcher.execute(script, keys, args);
+        }
+        return redisTemplate.execute(script, keys, args.toArray());
+    }
+
+    /**
+     * Run a script without blocking, through the batching stage when enabled
+     */
+    private CompletionStage<List<Object>> executeScriptAsync(
+            DefaultRedisScript<List> script,
+            List<String> keys,
+            List<String> args) {
+        if (scriptBatcher.isEnabled()) {
+            return scriptBatcher.submit(script, keys, args);
+        }
+        return asyncScriptExecutor.execute(script, keys, args);
+    }
+
+    /**
+     * Single limit args: limit, window_millis, request_id, ttl_seconds, cost
+     */
+    private List<String> singleLimitArgs(RateLimitRule rule, RateLimitContext context) {
+        return List.of(
             String.valueOf(rule.getLimit()),
             String.valueOf(rule.getWindowMillis()),
             context.getRequestId(),
-            String.valueOf(rule.getTtlSeconds())
+            String.valueOf(rule.getTtlSeconds()),
+            String.valueOf(context.getPermits(rule))
         );
-
-        return redisTemplate.execute(singleLimitScript, keys, args.toArray());
     }
 
     /**
-     * Execute multi-dimension Lua script
-     * This ensures atomicity - either ALL limits pass and ALL counters increment,
-     * or ANY limit fails and NO counters increment.
+     * Multi-dimension args: count, per-rule quintuplets, request_id
      */
-    private List<Object> executeMultiLimitScript(
-            List<RateLimitRule> rules, 
-            RateLimitContext context) {
-        
-        List<String> keys = new ArrayList<>();
-        List<String> args = new ArrayList<>();
+    private List<String> multiLimitArgs(List<RateLimitRule> rules, RateLimitContext context) {
+        List<String> args = new ArrayList<>(2 + rules.size() * 5);
 
         // Add number of dimensions
         args.add(String.valueOf(rules.size()));
 
-        // Build keys and args for each rule
+        // Build args for each rule
         for (RateLimitRule rule : rules) {
-            String identifier = context.getIdentifier(rule.getDimension());
-            if (identifier == null || identifier.isEmpty()) {
-                continue;
-            }
-
-            RateLimitKey key = new RateLimitKey(
-                rule.getDimension(),
-                identifier,
-                rule.getWindowSeconds()
-            );
-
-            keys.add(key.toRedisKey());
-
-            // Add triplet: limit, window_millis, ttl_seconds
+            // Add quintuplet: algorithm, limit, window_millis, ttl_seconds, cost
+            args.add(rule.getAlgorithm().getValue());
             args.add(String.valueOf(rule.getLimit()));
             args.add(String.valueOf(rule.getWindowMillis()));
             args.add(String.valueOf(rule.getTtlSeconds()));
+            args.add(String.valueOf(context.getPermits(rule)));
         }
 
         // Add request ID at the end
         args.add(context.getRequestId());
 
-        return redisTemplate.execute(multiLimitScript, keys, args.toArray());
+        return args;
+    }
+
+    /**
+     * Peek args: count, per-rule quadruplets (algorithm, limit, window_millis, cost)
+     */
+    private List<String> peekArgs(List<RateLimitRule> rules, RateLimitContext context) {
+        List<String> args = new ArrayList<>(1 + rules.size() * 4);
+        args.add(String.valueOf(rules.size()));
+        for (RateLimitRule rule : rules) {
+            args.add(rule.getAlgorithm().getValue());
+            args.add(String.valueOf(rule.getLimit()));
+            args.add(String.valueOf(rule.getWindowMillis()));
+            args.add(String.valueOf(context.getPermits(rule)));
+        }
+        return args;
     }
 
     /**
      * Parse result from single limit script
-     * Returns: {allowed, remaining, reset_time}
+     * Returns: {allowed, remaining, reset_time, retry_after_ms}
      */
     private RateLimitDecision parseScriptResult(
             List<Object> result, 
@@ -192,18 +572,22 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
         if (allowed == 1) {
             return RateLimitDecision.allowed(rule.getLimit(), remaining, resetTime);
         } else {
-            return RateLimitDecision.denied(
+            RateLimitDecision decision = RateLimitDecision.denied(
                 rule.getLimit(), 
                 resetTime, 
                 rule.getDimension(),
                 key.toString()
             );
+            if (result.size() > 3) {
+                decision.setRetryAfterMillis(((Number) result.get(3)).longValue());
+            }
+            return decision;
         }
     }
 
     /**
      * Parse result from multi-dimension script
-     * Returns: {allowed, failed_dimension_index, remaining, reset_time}
+     * Returns: {allowed, failed_dimension_index, remaining, reset_time, retry_after_ms}
      */
     private RateLimitDecision parseMultiScriptResult(
             List<Object> result, 
@@ -229,14 +613,18 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
         } else {
             // One limit failed
             RateLimitRule failedRule = rules.get((int) failedIndex - 1);
-            String identifier = context.getIdentifier(failedRule.getDimension());
+            String identifier = context.getIdentifier(failedRule);
             
-            return RateLimitDecision.denied(
+            RateLimitDecision decision = RateLimitDecision.denied(
                 failedRule.getLimit(),
                 resetTime,
                 failedRule.getDimension(),
                 failedRule.getDimension() + ":" + identifier
             );
+            if (result.size() > 4) {
+                decision.setRetryAfterMillis(((Number) result.get(4)).longValue());
+            }
+            return decision;
         }
     }
 
@@ -262,6 +650,11 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
         }
     }
 
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -280,4 +673,14 @@ public class RedisRateLimitExecutor implements RateLimitExecutor {
     public String getExecutorType() {
         return "REDIS";
     }
+
+    /**
+     * Rules that still need Redis, with their keys, or a cached denial
+     */
+    private record PreparedCheck(
+            List<RateLimitRule> rules,
+            List<RateLimitKey> keys,
+            List<String> redisKeys,
+            RateLimitDecision cachedDenial) {
+    }
 }
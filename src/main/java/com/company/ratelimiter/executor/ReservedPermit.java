@@ -0,0 +1,28 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+
+/**
+ * Permits one rule took for a reserved request, with what is needed to give
+ * them back: the Redis key, the algorithm state to undo and, for the sliding
+ * window log, the member the request was stored as.
+ *
+ * @param refunder   refunder of the Redis node holding the key
+ * @param redisKey   rate limit key the permits were taken from
+ * @param algorithm  algorithm of the rule
+ * @param member     sliding window log member (null for other algorithms)
+ * @param permits    permits taken
+ * @param limit      rule limit (as applied, e.g. a GLOBAL sub-key share)
+ * @param windowMillis rule window in milliseconds
+ * @param ttlSeconds key TTL in seconds
+ */
+public record ReservedPermit(
+        PermitRefunder refunder,
+        String redisKey,
+        RateLimitAlgorithm algorithm,
+        String member,
+        long permits,
+        long limit,
+        long windowMillis,
+        long ttlSeconds) {
+}
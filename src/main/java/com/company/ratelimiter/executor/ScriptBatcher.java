@@ -0,0 +1,230 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.async.RedisScriptingAsyncCommands;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batching stage for rate limit scripts.
+ *
+ * Concurrent checks are queued and a single flusher thread collects them for
+ * up to {@code batching.window} or {@code batching.max-batch-size} entries,
+ * then writes the whole batch as one pipeline on a dedicated connection with
+ * auto-flush disabled. Results are fanned back out to the waiting callers.
+ *
+ * Trades a bounded queueing delay for far fewer socket writes per check.
+ * Disabled by default (ratelimiter.batching.enabled).
+ */
+@Slf4j
+@Component
+public class ScriptBatcher {
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long blockingTimeoutNanos;
+    private final RedisAsyncScriptExecutor asyncScriptExecutor;
+    private final BlockingQueue<PendingScript> queue = new LinkedBlockingQueue<>();
+
+    private final DistributionSummary batchSize;
+    private final Timer queueDelay;
+
+    private volatile boolean running;
+    private Thread flusher;
+    private StatefulConnection<String, String> connection;
+    private RedisScriptingAsyncCommands<String, String> commands;
+
+    public ScriptBatcher(
+            RateLimiterProperties properties,
+            RedisAsyncScriptExecutor asyncScriptExecutor,
+            MeterRegistry meterRegistry) {
+
+        RateLimiterProperties.BatchingConfig config = properties.getBatching();
+
+        this.enabled = config.isEnabled();
+        this.windowNanos = config.getWindow().toNanos();
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.blockingTimeoutNanos = properties.getRedis().getTimeout().toNanos() + windowNanos;
+        this.asyncScriptExecutor = asyncScriptExecutor;
+
+        this.batchSize = DistributionSummary.builder("ratelimiter.batch.size")
+            .description("Script calls sent per pipelined batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.queueDelay = Timer.builder("ratelimiter.batch.queue.delay")
+            .description("Time a script call waited for its batch to be flushed")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+        if (enabled) {
+            running = true;
+            flusher = new Thread(this::flushLoop, "ratelimiter-batch-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+
+        log.info("ScriptBatcher initialized: enabled={}, window={}, maxBatchSize={}",
+            enabled, config.getWindow(), maxBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a script call for the next batch
+     */
+    public CompletableFuture<List<Object>> submit(RedisScript<?> script, List<String> keys, List<String> args) {
+        PendingScript pending = new PendingScript(script, keys, args, System.nanoTime(), new CompletableFuture<>());
+        if (!running) {
+            pending.result.completeExceptionally(new IllegalStateException("Script batching is not running"));
+            return pending.result;
+        }
+
+        queue.add(pending);
+        return pending.result;
+    }
+
+    /**
+     * Queue a script call and wait for its result (blocking callers)
+     */
+    public List<Object> execute(RedisScript<?> script, List<String> keys, List<String> args) throws Exception {
+        CompletableFuture<List<Object>> result = submit(script, keys, args);
+        try {
+            return result.get(blockingTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Collect a batch: wait for the first call, then until the window closes or the batch is full
+     */
+    private void flushLoop() {
+        List<PendingScript> batch = new ArrayList<>(maxBatchSize);
+
+        while (running) {
+            try {
+                PendingScript first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = first.enqueuedNanos + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    PendingScript next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Failed to flush rate limit script batch", e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Write the batch as one pipeline and fan the results out
+     */
+    private void flush(List<PendingScript> batch) {
+        RedisScriptingAsyncCommands<String, String> async = commands();
+
+        long now = System.nanoTime();
+        batchSize.record(batch.size());
+
+        for (PendingScript pending : batch) {
+            queueDelay.record(now - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+
+            async.<List<Object>>evalsha(
+                    pending.script.getSha1(),
+                    ScriptOutputType.MULTI,
+                    pending.keys.toArray(new String[0]),
+                    pending.args.toArray(new String[0]))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        pending.result.complete(result);
+                    } else if (RedisAsyncScriptExecutor.unwrap(error) instanceof RedisNoScriptException) {
+                        // Load the script through the auto-flushed connection; later batches hit EVALSHA
+                        asyncScriptExecutor.execute(pending.script, pending.keys, pending.args)
+                            .whenComplete((retried, retryError) -> {
+                                if (retryError == null) {
+                                    pending.result.complete(retried);
+                                } else {
+                                    pending.result.completeExceptionally(retryError);
+                                }
+                            });
+                    } else {
+                        pending.result.completeExceptionally(error);
+                    }
+                });
+        }
+
+        connection.flushCommands();
+    }
+
+    /**
+     * Dedicated connection, only used from the flusher thread
+     */
+    private RedisScriptingAsyncCommands<String, String> commands() {
+        if (commands == null) {
+            connection = asyncScriptExecutor.connect();
+            connection.setAutoFlushCommands(false);
+            commands = RedisAsyncScriptExecutor.scriptingCommands(connection);
+            log.info("Pipelined Redis connection opened for batched rate limit scripts");
+        }
+        return commands;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+
+        PendingScript pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Script batching stopped"));
+        }
+
+        if (connection != null) {
+            connection.closeAsync();
+        }
+    }
+
+    private record PendingScript(
+            RedisScript<?> script,
+            List<String> keys,
+            List<String> args,
+            long enqueuedNanos,
+            CompletableFuture<List<Object>> result) {
+    }
+}
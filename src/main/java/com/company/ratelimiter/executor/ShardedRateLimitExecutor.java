@@ -0,0 +1,228 @@
+package com.company.ratelimiter.executor;
+
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.fallback.FallbackStrategy;
+import com.company.ratelimiter.model.RateLimitRule;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit executor spreading keys over independent standalone Redis nodes.
+ *
+ * Each key is routed to a shard by a {@link ConsistentHashRing} over the shard
+ * names. Every shard has its own executor (connection) and circuit breaker: a
+ * failing shard only sends the rules whose keys it owns to the
+ * {@link FallbackStrategy}; the other shards keep deciding from Redis.
+ *
+ * A multi-dimension check is grouped by shard and evaluated shard by shard in
+ * rule order, stopping at the first denial. Each shard's group is atomic; the
+ * check as a whole is not. When a later shard denies, permits taken on earlier
+ * shards stay consumed if the request holds no reservation, so cross-shard
+ * checks can over-count but never under-count. A reserved request has them
+ * refunded right away ({@code RateLimiterService.reserve}). Built by
+ * ShardedExecutorConfiguration (executor-mode: SHARDED).
+ */
+@Slf4j
+public class ShardedRateLimitExecutor implements RateLimitExecutor {
+
+    private final ConsistentHashRing<Shard> ring;
+    private final List<Shard> shards;
+    private final ClusterKeyTagger keyTagger;
+    private final GlobalLimitSharder globalSharder;
+    private final FallbackStrategy fallbackStrategy;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+
+    public ShardedRateLimitExecutor(
+            Map<String, RateLimitExecutor> shardExecutors,
+            int virtualNodes,
+            ClusterKeyTagger keyTagger,
+            GlobalLimitSharder globalSharder,
+            FallbackStrategy fallbackStrategy,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            MeterRegistry meterRegistry,
+            Duration timeout) {
+
+        Map<String, Shard> byName = new LinkedHashMap<>();
+        shardExecutors.forEach((name, executor) -> byName.put(name, new Shard(
+            name,
+            executor,
+            circuitBreakerRegistry.circuitBreaker("rateLimiterShard-" + name))));
+
+        this.ring = new ConsistentHashRing<>(byName, virtualNodes);
+        this.shards = List.copyOf(byName.values());
+        this.keyTagger = keyTagger;
+        this.globalSharder = globalSharder;
+        this.fallbackStrategy = fallbackStrategy;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+
+        log.info("ShardedRateLimitExecutor initialized: shards={}, virtualNodes={}", byName.keySet(), virtualNodes);
+    }
+
+    @Override
+    public RateLimitDecision checkLimit(RateLimitRule rule, RateLimitContext context) {
+        return checkLimits(List.of(rule), context);
+    }
+
+    @Override
+    public RateLimitDecision checkLimits(List<RateLimitRule> rules, RateLimitContext context) {
+        RateLimitDecision decision = null;
+        for (Map.Entry<Shard, List<RateLimitRule>> group : groupByShard(rules, context).entrySet()) {
+            decision = RedisRateLimitExecutor.merge(decision, checkOnShard(group.getKey(), group.getValue(), context));
+            if (!decision.isAllowed()) {
+                break;
+            }
+        }
+
+        return decision != null ? decision : RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE,
+            System.currentTimeMillis() / 1000 + 60);
+    }
+
+    @Override
+    public CompletionStage<RateLimitDecision> checkLimitsAsync(List<RateLimitRule> rules, RateLimitContext context) {
+        CompletionStage<RateLimitDecision> result = CompletableFuture.completedFuture(null);
+        for (Map.Entry<Shard, List<RateLimitRule>> group : groupByShard(rules, context).entrySet()) {
+            result = result.thenCompose(previous -> {
+                if (previous != null && !previous.isAllowed()) {
+                    return CompletableFuture.completedFuture(previous);
+                }
+                return checkOnShardAsync(group.getKey(), group.getValue(), context)
+                    .thenApply(decision -> RedisRateLimitExecutor.merge(previous, decision));
+            });
+        }
+
+        return result.thenApply(decision -> decision != null ? decision : RateLimitDecision.allowed(
+            Long.MAX_VALUE, Long.MAX_VALUE, System.currentTimeMillis() / 1000 + 60));
+    }
+
+    /**
+     * Peek shard by shard; a shard whose circuit is OPEN is not asked
+     */
+    @Override
+    public RateLimitDecision peek(List<RateLimitRule> rules, RateLimitContext context) {
+        RateLimitDecision decision = null;
+        for (Map.Entry<Shard, List<RateLimitRule>> group : groupByShard(rules, context).entrySet()) {
+            Shard shard = group.getKey();
+            if (shard.circuitBreaker().getState() == CircuitBreaker.State.OPEN) {
+                throw new RedisUnavailableException("Redis shard " + shard.name() + " is unavailable");
+            }
+            decision = RedisRateLimitExecutor.merge(decision, shard.executor().peek(group.getValue(), context));
+            if (!decision.isAllowed()) {
+                break;
+            }
+        }
+
+        return decision != null ? decision : RateLimitDecision.allowed(Long.MAX_VALUE, Long.MAX_VALUE,
+            System.currentTimeMillis() / 1000 + 60);
+    }
+
+    /**
+     * Reconcile on the shard owning the key
+     */
+    @Override
+    public CompletionStage<Long> reconcile(FallbackUsage usage) {
+        return ring.nodeFor(usage.redisKey()).executor().reconcile(usage);
+    }
+
+    /**
+     * Group rules by the shard owning their key, keeping rule order.
+     * Rules without an identifier are skipped, as in the Redis executor.
+     */
+    private Map<Shard, List<RateLimitRule>> groupByShard(List<RateLimitRule> rules, RateLimitContext context) {
+        Map<Shard, List<RateLimitRule>> groups = new LinkedHashMap<>();
+        for (RateLimitRule rule : rules) {
+            String identifier = globalSharder.identifierFor(rule, context);
+            if (identifier == null || identifier.isEmpty()) {
+                continue;
+            }
+            String redisKey = keyTagger.keyFor(rule, identifier, context).toRedisKey();
+            groups.computeIfAbsent(ring.nodeFor(redisKey), shard -> new ArrayList<>()).add(rule);
+        }
+
+        if (groups.size() > 1) {
+            meterRegistry.counter("ratelimiter.shard.split").increment();
+        }
+        return groups;
+    }
+
+    private RateLimitDecision checkOnShard(Shard shard, List<RateLimitRule> rules, RateLimitContext context) {
+        try {
+            return shard.circuitBreaker().executeSupplier(() -> shard.executor().checkLimits(rules, context));
+        } catch (Exception e) {
+            return shardFallback(shard, rules, context, e);
+        }
+    }
+
+    private CompletionStage<RateLimitDecision> checkOnShardAsync(
+            Shard shard,
+            List<RateLimitRule> rules,
+            RateLimitContext context) {
+
+        CompletionStage<RateLimitDecision> decision;
+        try {
+            decision = shard.circuitBreaker().executeCompletionStage(() -> shard.executor()
+                .checkLimitsAsync(rules, context)
+                .toCompletableFuture()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            decision = CompletableFuture.failedFuture(e);
+        }
+
+        return decision.exceptionally(e -> shardFallback(shard, rules, context, RedisAsyncScriptExecutor.unwrap(e)));
+    }
+
+    /**
+     * Decide the rules of an unavailable shard with the fallback strategy
+     */
+    private RateLimitDecision shardFallback(
+            Shard shard,
+            List<RateLimitRule> rules,
+            RateLimitContext context,
+            Throwable cause) {
+
+        log.warn("Shard {} unavailable, falling back to {} strategy due to: {}",
+            shard.name(), fallbackStrategy.getStrategyName(), cause.toString());
+
+        meterRegistry.counter("ratelimiter.shard.fallback",
+            "shard", shard.name(),
+            "strategy", fallbackStrategy.getStrategyName()
+        ).increment();
+
+        return fallbackStrategy.onExecutorUnavailable(rules, context);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    /**
+     * Available while at least one shard is: a lost shard only degrades its own keys
+     */
+    @Override
+    public boolean isAvailable() {
+        return shards.stream().anyMatch(shard -> shard.executor().isAvailable());
+    }
+
+    @Override
+    public String getExecutorType() {
+        return "SHARDED";
+    }
+
+    private record Shard(String name, RateLimitExecutor executor, CircuitBreaker circuitBreaker) {
+    }
+}
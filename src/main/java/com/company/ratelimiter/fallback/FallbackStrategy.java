@@ -2,9 +2,12 @@ package com.company.ratelimiter.fallback;
 
 import com.company.ratelimiter.core.RateLimitContext;
 import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.executor.RateLimitExecutor;
 import com.company.ratelimiter.model.RateLimitRule;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Interface for fallback strategies when primary executor (Redis) is unavailable.
@@ -21,6 +24,17 @@ public interface FallbackStrategy {
      */
     RateLimitDecision onExecutorUnavailable(List<RateLimitRule> rules, RateLimitContext context);
 
+    /**
+     * Called when the primary executor is available again (circuit CLOSED).
+     * Strategies that counted requests locally hand their usage back to it.
+     * 
+     * @param executor The recovered executor
+     * @return Stage completing with the number of keys reconciled
+     */
+    default CompletionStage<Long> onExecutorRecovered(RateLimitExecutor executor) {
+        return CompletableFuture.completedFuture(0L);
+    }
+
     /**
      * Get strategy name for logging/metrics
      */
@@ -0,0 +1,147 @@
+package com.company.ratelimiter.fallback;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the live instances of the fleet, so the LOCAL_CACHE fallback can
+ * enforce each instance's share of a limit instead of the whole limit.
+ *
+ * While Redis is reachable, every instance refreshes its member in the
+ * {@code ratelimit:instances} sorted set (score = heartbeat time) every
+ * heartbeat interval, drops members older than the instance TTL and reads the
+ * count. The last count read is kept locally: during an outage, when the
+ * fallback runs, heartbeats fail and the count from before the outage is used.
+ *
+ * Disabled, or before the first heartbeat, the count is 1 (full limit per instance).
+ */
+@Slf4j
+@Component
+public class InstanceRegistry {
+
+    private static final String INSTANCES_KEY = "ratelimit:instances";
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final double headroom;
+    private final String instanceId;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private volatile long liveInstances = 1;
+
+    private final ScheduledExecutorService heartbeats;
+
+    public InstanceRegistry(
+            RateLimiterProperties properties,
+            RedisTemplate<String, String> redisTemplate,
+            MeterRegistry meterRegistry) {
+        RateLimiterProperties.InstanceRegistryConfig config = properties.getInstanceRegistry();
+
+        this.enabled = config.isEnabled();
+        this.ttlMillis = config.getInstanceTtl().toMillis();
+        this.headroom = config.getHeadroom();
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName()
+            + ":" + UUID.randomUUID().toString().substring(0, 8);
+        this.redisTemplate = redisTemplate;
+
+        Gauge.builder("ratelimiter.fallback.divisor", this, InstanceRegistry::getDivisor)
+            .description("Divisor applied to limits by the LOCAL_CACHE fallback (live instances / headroom)")
+            .register(meterRegistry);
+
+        if (enabled) {
+            long intervalMillis = config.getHeartbeatInterval().toMillis();
+            this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ratelimiter-instance-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.heartbeats.scheduleWithFixedDelay(this::heartbeat, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.heartbeats = null;
+        }
+
+        log.info("InstanceRegistry initialized: enabled={}, instance={}, heartbeatInterval={}, headroom={}",
+            enabled, instanceId, config.getHeartbeatInterval(), headroom);
+    }
+
+    /**
+     * Refresh this instance's heartbeat and the live count.
+     * Runs every heartbeat interval; on failure the last count is kept.
+     */
+    public void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(INSTANCES_KEY, instanceId, now);
+            redisTemplate.opsForZSet().removeRangeByScore(INSTANCES_KEY, 0, now - ttlMillis);
+            redisTemplate.expire(INSTANCES_KEY, Duration.ofMillis(ttlMillis * 2));
+
+            Long count = redisTemplate.opsForZSet().zCard(INSTANCES_KEY);
+            if (count != null && count > 0) {
+                if (count != liveInstances) {
+                    log.info("Live rate limiter instances: {} -> {}", liveInstances, count);
+                }
+                liveInstances = count;
+            }
+        } catch (Exception e) {
+            log.debug("Instance heartbeat failed, keeping {} live instances: {}", liveInstances, e.getMessage());
+        }
+    }
+
+    /**
+     * This instance's share of a limit: {@code limit × headroom / live instances}, at least 1
+     */
+    public long localLimit(long limit) {
+        if (!enabled) {
+            return limit;
+        }
+        return Math.max(1, (long) Math.floor(limit / getDivisor()));
+    }
+
+    /**
+     * Divisor applied to limits (1 when disabled)
+     */
+    public double getDivisor() {
+        if (!enabled) {
+            return 1;
+        }
+        return Math.max(1, liveInstances / headroom);
+    }
+
+    /**
+     * Last known number of live instances
+     */
+    public long getLiveInstances() {
+        return liveInstances;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeats == null) {
+            return;
+        }
+        heartbeats.shutdownNow();
+
+        // Leave the count right away instead of after the TTL
+        try {
+            redisTemplate.opsForZSet().remove(INSTANCES_KEY, instanceId);
+        } catch (Exception e) {
+            log.debug("Failed to remove instance heartbeat: {}", e.getMessage());
+        }
+    }
+}
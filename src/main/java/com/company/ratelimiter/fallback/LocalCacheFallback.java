@@ -1,21 +1,28 @@
 package com.company.ratelimiter.fallback;
 
+import com.company.ratelimiter.config.RateLimiterProperties;
 import com.company.ratelimiter.core.RateLimitContext;
 import com.company.ratelimiter.core.RateLimitDecision;
-import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.executor.ClusterKeyTagger;
+import com.company.ratelimiter.executor.FallbackUsage;
+import com.company.ratelimiter.executor.RateLimitExecutor;
 import com.company.ratelimiter.model.RateLimitKey;
 import com.company.ratelimiter.model.RateLimitRule;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Balanced fallback strategy - uses local in-memory rate limiting when Redis is unavailable.
@@ -24,6 +31,15 @@ import java.util.concurrent.atomic.AtomicLong;
  * - Eventual consistency: Each instance has its own counter (not distributed)
  * - Better than nothing: Provides some rate limiting protection
  * - Automatic cleanup: Entries expire after window duration
+ * - Constant cost: each key is a fixed {@link RequestWindow} ring of counters
+ * - Bounded memory: local-fallback.maximum-size keys on the heap, or with
+ *   storage OFF_HEAP an {@link OffHeapWindowTable} of local-fallback.off-heap-capacity
+ *   keys outside the heap (millions of keys without GC pressure)
+ * - Fleet-aware: with instance-registry enabled, each instance enforces its
+ *   share of a limit (limit × headroom / live instances, see {@link InstanceRegistry}),
+ *   so N instances together admit about the limit instead of N times it
+ * - Reconciled: when the circuit closes, the usage counted here (storage HEAP)
+ *   is replayed into Redis ({@link UsageReconciler}), so keys do not start over
  * 
  * Use when: You want best-effort rate limiting during Redis outages
  */
@@ -37,17 +53,59 @@ import java.util.concurrent.atomic.AtomicLong;
 )
 public class LocalCacheFallback implements FallbackStrategy {
 
-    // Cache structure: Key -> {timestamps of requests in window}
-    private final Cache<String, RequestWindow> localCache;
+    // Cache structure: Key -> rule and permits per sub-window of its window (storage: HEAP)
+    private final Cache<String, LocalWindow> localCache;
+
+    // Window counters per key (storage: OFF_HEAP), null on the heap
+    private final OffHeapWindowTable offHeapTable;
+
+    private final InstanceRegistry instanceRegistry;
+    private final ClusterKeyTagger keyTagger;
+
+    // Replays heap usage when the circuit closes, null if disabled or off-heap (keys are hashed)
+    private final UsageReconciler reconciler;
+
+    public LocalCacheFallback(
+            RateLimiterProperties properties,
+            MeterRegistry meterRegistry,
+            InstanceRegistry instanceRegistry,
+            ClusterKeyTagger keyTagger) {
+        RateLimiterProperties.LocalFallbackConfig config = properties.getLocalFallback();
+        this.instanceRegistry = instanceRegistry;
+        this.keyTagger = keyTagger;
+
+        if (config.getStorage() == RateLimiterProperties.LocalStorage.OFF_HEAP) {
+            this.localCache = null;
+            this.offHeapTable = new OffHeapWindowTable(config.getOffHeapCapacity());
+
+            Gauge.builder("ratelimiter.fallback.table.occupancy", offHeapTable, OffHeapWindowTable::getOccupancy)
+                .description("Slots of the off-heap fallback table holding a key")
+                .register(meterRegistry);
+            Gauge.builder("ratelimiter.fallback.table.capacity", offHeapTable, OffHeapWindowTable::getCapacity)
+                .description("Slots of the off-heap fallback table")
+                .register(meterRegistry);
+            FunctionCounter.builder("ratelimiter.fallback.table.evictions", offHeapTable,
+                    OffHeapWindowTable::getEvictions)
+                .description("Keys evicted from the off-heap fallback table to make room")
+                .register(meterRegistry);
+
+            log.info("LocalCacheFallback initialized off-heap: {} slots ({} MB)",
+                offHeapTable.getCapacity(),
+                offHeapTable.getCapacity() * OffHeapWindowTable.SLOT_BYTES / (1024 * 1024));
+        } else {
+            this.offHeapTable = null;
+            this.localCache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())  // Limit memory usage
+                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+
+            log.info("LocalCacheFallback initialized with max size: {} entries", config.getMaximumSize());
+        }
 
-    public LocalCacheFallback() {
-        this.localCache = Caffeine.newBuilder()
-            .maximumSize(10_000)  // Limit memory usage
-            .expireAfterWrite(5, TimeUnit.MINUTES)
-            .recordStats()
-            .build();
-        
-        log.info("LocalCacheFallback initialized with max size: 10,000 entries");
+        this.reconciler = localCache != null && config.getReconciliation().isEnabled()
+            ? new UsageReconciler(config.getReconciliation(), meterRegistry)
+            : null;
     }
 
     @Override
@@ -57,16 +115,13 @@ public class LocalCacheFallback implements FallbackStrategy {
 
         // Check each rule
         for (RateLimitRule rule : rules) {
-            String identifier = context.getIdentifier(rule.getDimension());
+            String identifier = context.getIdentifier(rule);
             if (identifier == null || identifier.isEmpty()) {
                 continue;
             }
 
-            RateLimitKey key = new RateLimitKey(
-                rule.getDimension(),
-                identifier,
-                rule.getWindowSeconds()
-            );
+            // The key the executor uses, so usage can be reconciled into it
+            RateLimitKey key = keyTagger.keyFor(rule, identifier, context);
 
             RateLimitDecision decision = checkLocalLimit(key, rule, context);
             
@@ -85,7 +140,8 @@ public class LocalCacheFallback implements FallbackStrategy {
 
     /**
      * Check rate limit using local cache (per-instance)
-     * Uses sliding window log algorithm similar to Redis
+     * Sliding window over sub-window counters, see {@link RequestWindow},
+     * or window counters in the off-heap table, see {@link OffHeapWindowTable}
      */
     private RateLimitDecision checkLocalLimit(
             RateLimitKey key, 
@@ -94,36 +150,63 @@ public class LocalCacheFallback implements FallbackStrategy {
         
         String cacheKey = key.toRedisKey();
         long currentMillis = System.currentTimeMillis();
-        long windowStartMillis = currentMillis - rule.getWindowMillis();
-
-        RequestWindow window = localCache.get(cacheKey, k -> new RequestWindow());
-
-        synchronized (window) {
-            // Remove expired timestamps
-            window.removeExpiredRequests(windowStartMillis);
-
-            // Check if limit exceeded
-            long currentCount = window.getRequestCount();
-
-            if (currentCount >= rule.getLimit()) {
-                // DENIED
-                long resetTime = window.getOldestTimestamp() + rule.getWindowMillis();
-                return RateLimitDecision.denied(
-                    rule.getLimit(),
-                    resetTime / 1000,
-                    rule.getDimension(),
-                    cacheKey
-                );
-            }
+        long permits = context.getPermits(rule);
+        long limit = instanceRegistry.localLimit(rule.getLimit());
+
+        long remaining;
+        RequestWindow window = null;
+        if (offHeapTable != null) {
+            remaining = offHeapTable.tryAcquire(
+                cacheKey, currentMillis, permits, limit, rule.getWindowMillis());
+        } else {
+            window = localCache.get(cacheKey, k -> new LocalWindow(rule, new RequestWindow(rule.getWindowMillis())))
+                .window();
+            remaining = window.tryAcquire(currentMillis, permits, limit);
+        }
 
-            // ALLOWED - add new request
-            window.addRequest(currentMillis);
+        if (remaining < 0) {
+            // DENIED
+            long retryAfter = window != null
+                ? window.retryAfterMillis(currentMillis, permits, limit)
+                : offHeapTable.retryAfterMillis(
+                    cacheKey, currentMillis, permits, limit, rule.getWindowMillis());
+            RateLimitDecision decision = RateLimitDecision.denied(
+                limit,
+                (currentMillis + retryAfter) / 1000,
+                rule.getDimension(),
+                cacheKey
+            );
+            decision.setRetryAfterMillis(retryAfter);
+            return decision;
+        }
 
-            long remaining = rule.getLimit() - currentCount - 1;
-            long resetTime = (currentMillis + rule.getWindowMillis()) / 1000;
+        long resetTime = (currentMillis + rule.getWindowMillis()) / 1000;
+        return RateLimitDecision.allowed(limit, remaining, resetTime);
+    }
 
-            return RateLimitDecision.allowed(rule.getLimit(), remaining, resetTime);
+    /**
+     * Replay the permits counted locally into the recovered executor, in the background.
+     * The local windows are emptied: from now on the executor counts them.
+     */
+    @Override
+    public CompletionStage<Long> onExecutorRecovered(RateLimitExecutor executor) {
+        if (reconciler == null) {
+            return CompletableFuture.completedFuture(0L);
         }
+
+        long currentMillis = System.currentTimeMillis();
+        List<FallbackUsage> usage = new ArrayList<>();
+        localCache.asMap().forEach((cacheKey, local) -> {
+            long[] drained = local.window().drainUsage(currentMillis);
+            if (drained.length > 0) {
+                usage.add(new FallbackUsage(local.rule(), cacheKey, drained));
+            }
+        });
+
+        if (usage.isEmpty()) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        return reconciler.submit(usage, executor);
     }
 
     @Override
@@ -135,6 +218,10 @@ public class LocalCacheFallback implements FallbackStrategy {
      * Get cache statistics for monitoring
      */
     public String getCacheStats() {
+        if (offHeapTable != null) {
+            return String.format("OffHeapWindowTable{capacity=%d, occupancy=%d, evictions=%d}",
+                offHeapTable.getCapacity(), offHeapTable.getOccupancy(), offHeapTable.getEvictions());
+        }
         return localCache.stats().toString();
     }
 
@@ -142,36 +229,21 @@ public class LocalCacheFallback implements FallbackStrategy {
      * Clear local cache (useful for testing)
      */
     public void clearCache() {
-        localCache.invalidateAll();
+        if (offHeapTable != null) {
+            offHeapTable.clear();
+        } else {
+            localCache.invalidateAll();
+        }
         log.info("Local cache cleared");
     }
 
-    /**
-     * Internal class to track requests in a sliding window
-     */
-    private static class RequestWindow {
-        // Using ConcurrentHashMap to store timestamps
-        // Key: timestamp, Value: count (usually 1, but supports duplicate timestamps)
-        private final ConcurrentHashMap<Long, AtomicLong> timestamps = new ConcurrentHashMap<>();
-
-        void addRequest(long timestamp) {
-            timestamps.computeIfAbsent(timestamp, k -> new AtomicLong(0)).incrementAndGet();
-        }
-
-        void removeExpiredRequests(long windowStart) {
-            timestamps.entrySet().removeIf(entry -> entry.getKey() < windowStart);
-        }
-
-        long getRequestCount() {
-            return timestamps.values().stream()
-                .mapToLong(AtomicLong::get)
-                .sum();
+    @PreDestroy
+    public void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdown();
         }
+    }
 
-        long getOldestTimestamp() {
-            return timestamps.keySet().stream()
-                .min(Long::compare)
-                .orElse(System.currentTimeMillis());
-        }
+    private record LocalWindow(RateLimitRule rule, RequestWindow window) {
     }
 }
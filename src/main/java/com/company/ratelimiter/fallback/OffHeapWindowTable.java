@@ -0,0 +1,303 @@
+package com.company.ratelimiter.fallback;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-capacity table of per-key sliding window counters in direct memory.
+ *
+ * Each key takes one 32-byte slot of an open-addressing hash table:
+ * <pre>
+ *   0  long  key hash (0 = empty slot)
+ *   8  long  index of the current fixed window (now / window)
+ *  16  int   permits in the current window
+ *  20  int   permits in the previous window
+ *  24  int   window length in milliseconds
+ *  28  int   reference bit (clock eviction)
+ * </pre>
+ * The window count is the two-bucket estimate of SLIDING_WINDOW_COUNTER:
+ * {@code previous * (1 - elapsed fraction) + current}. Keys are stored as
+ * 64-bit hashes; two keys sharing a hash share a counter.
+ *
+ * The table is split into segments, each with its own buffer and lock. A key
+ * lives within {@value #PROBE_LIMIT} slots of its home slot. When they are
+ * all taken, an expired slot is reused, or else one is evicted clock-style:
+ * a hand sweeps the probe range, clearing reference bits, and evicts the
+ * first key that was not used since the last sweep. New keys start
+ * unreferenced, so a flood of one-off keys evicts itself before keys that
+ * are seen again.
+ *
+ * Nothing is allocated per key: memory is fixed at capacity × 32 bytes,
+ * outside the Java heap (bounded by -XX:MaxDirectMemorySize).
+ */
+public final class OffHeapWindowTable {
+
+    static final int SLOT_BYTES = 32;
+    static final int PROBE_LIMIT = 16;
+
+    private static final int KEY = 0;
+    private static final int WINDOW_INDEX = 8;
+    private static final int CURRENT = 16;
+    private static final int PREVIOUS = 20;
+    private static final int WINDOW_MILLIS = 24;
+    private static final int REFERENCED = 28;
+
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_SEGMENT_SLOTS = 4096;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int slotMask;
+    private final int probeLimit;
+    private final long capacity;
+
+    private final AtomicLong occupied = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public OffHeapWindowTable(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(PROBE_LIMIT, capacity - 1) << 1);
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, slots / MIN_SEGMENT_SLOTS));
+        int segmentSlots = slots / segmentCount;
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(ByteBuffer.allocateDirect(segmentSlots * SLOT_BYTES));
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        this.slotMask = segmentSlots - 1;
+        this.probeLimit = Math.min(PROBE_LIMIT, segmentSlots);
+        this.capacity = slots;
+    }
+
+    /**
+     * Take permits for a key if they fit under the limit
+     *
+     * @return permits remaining after this request, or -1 if denied
+     */
+    public long tryAcquire(String key, long nowMillis, long permits, long limit, long windowMillis) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+
+        synchronized (segment) {
+            int offset = segment.locate(hash, home(hash), nowMillis, windowMillis);
+            ByteBuffer slots = segment.slots;
+            roll(slots, offset, nowMillis, windowMillis);
+
+            double estimated = estimate(slots, offset, nowMillis, windowMillis);
+            if (estimated + permits > limit) {
+                return -1;
+            }
+
+            long current = slots.getInt(offset + CURRENT) + permits;
+            slots.putInt(offset + CURRENT, (int) Math.min(Integer.MAX_VALUE, current));
+            return Math.max(0, (long) Math.floor(limit - estimated - permits));
+        }
+    }
+
+    /**
+     * Milliseconds until a request of {@code permits} fits under the limit again
+     */
+    public long retryAfterMillis(String key, long nowMillis, long permits, long limit, long windowMillis) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+
+        synchronized (segment) {
+            int offset = segment.find(hash, home(hash));
+            if (offset < 0) {
+                return 0;
+            }
+            ByteBuffer slots = segment.slots;
+            roll(slots, offset, nowMillis, windowMillis);
+
+            long current = slots.getInt(offset + CURRENT);
+            long previous = slots.getInt(offset + PREVIOUS);
+            if (estimate(slots, offset, nowMillis, windowMillis) + permits <= limit) {
+                return 0;
+            }
+
+            // Same estimate as sliding_window_counter.lua
+            long windowStart = nowMillis / windowMillis * windowMillis;
+            double retryAt = windowStart + windowMillis;
+            if (current + permits <= limit && previous > 0) {
+                retryAt = windowStart + (1 - (double) (limit - permits - current) / previous) * windowMillis;
+            } else if (current > 0) {
+                retryAt += Math.max(0, 1 - (double) (limit - permits) / current) * windowMillis;
+            }
+            return Math.max(1, (long) Math.ceil(retryAt - nowMillis));
+        }
+    }
+
+    /**
+     * Drop every key
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                ByteBuffer slots = segment.slots;
+                for (int offset = 0; offset < slots.capacity(); offset += 8) {
+                    slots.putLong(offset, 0);
+                }
+            }
+        }
+        occupied.set(0);
+    }
+
+    /**
+     * Number of slots
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of slots holding a key (including keys whose windows have passed)
+     */
+    public long getOccupancy() {
+        return occupied.get();
+    }
+
+    /**
+     * Keys evicted to make room since the table was created
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    private int home(long hash) {
+        return (int) hash & slotMask;
+    }
+
+    /**
+     * Move the slot's counters to the fixed window of {@code nowMillis}.
+     * A clock stepping back keeps counting into the current window.
+     */
+    private static void roll(ByteBuffer slots, int offset, long nowMillis, long windowMillis) {
+        long index = nowMillis / windowMillis;
+        long slotIndex = slots.getLong(offset + WINDOW_INDEX);
+        boolean sameWindow = slots.getInt(offset + WINDOW_MILLIS) == windowMillis;
+        if (sameWindow && slotIndex >= index) {
+            return;
+        }
+
+        int previous = sameWindow && slotIndex == index - 1 ? slots.getInt(offset + CURRENT) : 0;
+        slots.putLong(offset + WINDOW_INDEX, index);
+        slots.putInt(offset + CURRENT, 0);
+        slots.putInt(offset + PREVIOUS, previous);
+        slots.putInt(offset + WINDOW_MILLIS, (int) windowMillis);
+    }
+
+    private static double estimate(ByteBuffer slots, int offset, long nowMillis, long windowMillis) {
+        double elapsedFraction = (double) (nowMillis % windowMillis) / windowMillis;
+        return slots.getInt(offset + PREVIOUS) * (1 - elapsedFraction) + slots.getInt(offset + CURRENT);
+    }
+
+    /**
+     * 64-bit hash of the key (FNV-1a, then the MurmurHash3 finalizer); never 0
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+
+    private final class Segment {
+
+        final ByteBuffer slots;
+
+        // Clock hand over the probe range
+        private int hand;
+
+        Segment(ByteBuffer slots) {
+            this.slots = slots;
+        }
+
+        /**
+         * Byte offset of the key's slot, or -1 if the key is not in the table
+         */
+        int find(long hash, int home) {
+            for (int i = 0; i < probeLimit; i++) {
+                int offset = offset(home, i);
+                long key = slots.getLong(offset + KEY);
+                if (key == hash) {
+                    slots.putInt(offset + REFERENCED, 1);
+                    return offset;
+                }
+                if (key == 0) {
+                    // Slots are never emptied one by one, so the key would be here
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Byte offset of the key's slot, claiming one if the key is not in the table
+         */
+        int locate(long hash, int home, long nowMillis, long windowMillis) {
+            int expired = -1;
+            for (int i = 0; i < probeLimit; i++) {
+                int offset = offset(home, i);
+                long key = slots.getLong(offset + KEY);
+                if (key == hash) {
+                    slots.putInt(offset + REFERENCED, 1);
+                    return offset;
+                }
+                if (key == 0) {
+                    occupied.incrementAndGet();
+                    return claim(offset, hash);
+                }
+                if (expired < 0 && isExpired(offset, nowMillis)) {
+                    expired = offset;
+                }
+            }
+
+            if (expired >= 0) {
+                return claim(expired, hash);
+            }
+
+            // Clock sweep: second chance for keys used since the last sweep
+            while (true) {
+                int offset = offset(home, hand++ % probeLimit);
+                if (slots.getInt(offset + REFERENCED) == 0) {
+                    evictions.incrementAndGet();
+                    return claim(offset, hash);
+                }
+                slots.putInt(offset + REFERENCED, 0);
+            }
+        }
+
+        private boolean isExpired(int offset, long nowMillis) {
+            long windowMillis = slots.getInt(offset + WINDOW_MILLIS);
+            return windowMillis > 0 && slots.getLong(offset + WINDOW_INDEX) < nowMillis / windowMillis - 1;
+        }
+
+        private int claim(int offset, long hash) {
+            slots.putLong(offset + KEY, hash);
+            slots.putLong(offset + WINDOW_INDEX, 0);
+            slots.putInt(offset + CURRENT, 0);
+            slots.putInt(offset + PREVIOUS, 0);
+            slots.putInt(offset + WINDOW_MILLIS, 0);
+            slots.putInt(offset + REFERENCED, 0);
+            return offset;
+        }
+
+        private int offset(int home, int probe) {
+            return ((home + probe) & slotMask) * SLOT_BYTES;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.company.ratelimiter.fallback;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of permits kept as a fixed ring of sub-window counters.
+ *
+ * The window is split into {@value #SUB_WINDOWS} sub-windows; each slot of the
+ * ring holds the permits taken during one of them, and a running total holds
+ * their sum. A check advances the ring to the current sub-window (clearing the
+ * slots that left the window from the total) and compares the total with the
+ * limit, so it costs O(1) amortized and the footprint per key is constant,
+ * however many requests the window holds.
+ *
+ * Permits leave the window at the end of the sub-window after their window
+ * has passed: never early, at most one sub-window late. Methods are
+ * synchronized; the critical sections are a few array operations.
+ */
+public final class RequestWindow {
+
+    static final int SUB_WINDOWS = 32;
+
+    private final long subWindowMillis;
+
+    // Permits per sub-window; sub-window i lives in slot i mod length
+    private final long[] counts;
+
+    // Current sub-window and permits across the ring
+    private long currentIndex = Long.MIN_VALUE;
+    private long total;
+
+    public RequestWindow(long windowMillis) {
+        this.subWindowMillis = Math.max(1, windowMillis / SUB_WINDOWS);
+        long span = (windowMillis + subWindowMillis - 1) / subWindowMillis;
+        // One extra slot so a permit stays for at least the full window
+        this.counts = new long[(int) span + 1];
+    }
+
+    /**
+     * Take permits if they fit under the limit
+     *
+     * @return permits remaining after this request, or -1 if denied
+     */
+    public synchronized long tryAcquire(long nowMillis, long permits, long limit) {
+        advance(nowMillis);
+        if (total + permits > limit) {
+            return -1;
+        }
+        counts[slot(currentIndex)] += permits;
+        total += permits;
+        return limit - total;
+    }
+
+    /**
+     * Milliseconds until enough permits leave the window for a request of {@code permits}
+     */
+    public synchronized long retryAfterMillis(long nowMillis, long permits, long limit) {
+        advance(nowMillis);
+        long excess = total + permits - limit;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        // Oldest sub-window first; sub-window i leaves the ring at (i + length) * subWindowMillis
+        for (long i = currentIndex - counts.length + 1; i <= currentIndex; i++) {
+            excess -= counts[slot(i)];
+            if (excess <= 0) {
+                return Math.max(1, (i + counts.length) * subWindowMillis - nowMillis);
+            }
+        }
+        // Request larger than the limit: never fits, report a full window
+        return Math.max(1, (currentIndex + counts.length) * subWindowMillis - nowMillis);
+    }
+
+    /**
+     * Permits currently in the window
+     */
+    public synchronized long getCount(long nowMillis) {
+        advance(nowMillis);
+        return total;
+    }
+
+    /**
+     * Take the permits still in the window out of the ring, oldest first, as
+     * pairs of (timestamp millis, permits); the ring is left empty. Each
+     * sub-window is stamped with its last millisecond (capped at now), so its
+     * permits never leave a window earlier than they would have here.
+     */
+    public synchronized long[] drainUsage(long nowMillis) {
+        advance(nowMillis);
+        if (total == 0) {
+            return new long[0];
+        }
+
+        int size = 0;
+        long[] usage = new long[counts.length * 2];
+        for (long i = currentIndex - counts.length + 1; i <= currentIndex; i++) {
+            long permits = counts[slot(i)];
+            if (permits > 0) {
+                usage[size++] = Math.min(nowMillis, (i + 1) * subWindowMillis - 1);
+                usage[size++] = permits;
+            }
+        }
+        Arrays.fill(counts, 0);
+        total = 0;
+        return Arrays.copyOf(usage, size);
+    }
+
+    /**
+     * Move the ring to the sub-window of {@code nowMillis}, clearing the sub-windows left behind.
+     * A clock stepping back keeps counting into the current sub-window.
+     */
+    private void advance(long nowMillis) {
+        long index = nowMillis / subWindowMillis;
+        if (index <= currentIndex) {
+            return;
+        }
+
+        if (total == 0 || index - currentIndex >= counts.length) {
+            Arrays.fill(counts, 0);
+            total = 0;
+        } else {
+            for (long i = currentIndex + 1; i <= index; i++) {
+                int slot = slot(i);
+                total -= counts[slot];
+                counts[slot] = 0;
+            }
+        }
+        currentIndex = index;
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) counts.length);
+    }
+}
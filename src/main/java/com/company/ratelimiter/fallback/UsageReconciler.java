@@ -0,0 +1,110 @@
+package com.company.ratelimiter.fallback;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.executor.FallbackUsage;
+import com.company.ratelimiter.executor.RateLimitExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays usage counted by a fallback into the executor once it is back.
+ *
+ * Runs on its own thread, off the circuit breaker's event thread. Keys are
+ * sent in batches of {@code batch-size}: all calls of a batch are issued at
+ * once, so they share round trips on the async connection, and the next batch
+ * starts when the batch completed and the pace allows it
+ * ({@code max-keys-per-second}). A failed or timed out batch ends the replay:
+ * Redis is struggling again and the rest of the usage is dropped, which can
+ * only make the limit looser than exact, never stricter.
+ */
+@Slf4j
+class UsageReconciler {
+
+    private final int batchSize;
+    private final long nanosPerKey;
+    private final long batchTimeoutMillis;
+    private final ExecutorService worker;
+
+    private final Counter reconciledKeys;
+    private final Counter failedKeys;
+    private final Counter reconciledPermits;
+
+    UsageReconciler(RateLimiterProperties.ReconciliationConfig config, MeterRegistry meterRegistry) {
+        this.batchSize = config.getBatchSize();
+        this.nanosPerKey = TimeUnit.SECONDS.toNanos(1) / config.getMaxKeysPerSecond();
+        this.batchTimeoutMillis = config.getBatchTimeout().toMillis();
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ratelimiter-fallback-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.reconciledKeys = meterRegistry.counter("ratelimiter.fallback.reconciled", "result", "ok");
+        this.failedKeys = meterRegistry.counter("ratelimiter.fallback.reconciled", "result", "failed");
+        this.reconciledPermits = meterRegistry.counter("ratelimiter.fallback.reconciled.permits");
+    }
+
+    /**
+     * Replay usage in the background
+     *
+     * @return completes when the replay has ended, with the number of keys reconciled
+     */
+    CompletableFuture<Long> submit(List<FallbackUsage> usage, RateLimitExecutor executor) {
+        return CompletableFuture.supplyAsync(() -> replay(usage, executor), worker);
+    }
+
+    private long replay(List<FallbackUsage> usage, RateLimitExecutor executor) {
+        log.info("Reconciling fallback usage of {} keys into {}", usage.size(), executor.getExecutorType());
+        long start = System.nanoTime();
+        AtomicLong permits = new AtomicLong();
+
+        for (int from = 0; from < usage.size(); from += batchSize) {
+            List<FallbackUsage> batch = usage.subList(from, Math.min(from + batchSize, usage.size()));
+
+            // Pace by keys already sent
+            long wait = start + from * nanosPerKey - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failedKeys.increment(usage.size() - from);
+                    return from;
+                }
+            }
+
+            CompletableFuture<?>[] calls = batch.stream()
+                .map(item -> executor.reconcile(item).toCompletableFuture().thenAccept(permits::addAndGet))
+                .toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.allOf(calls).get(batchTimeoutMillis, TimeUnit.MILLISECONDS);
+                reconciledKeys.increment(batch.size());
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Fallback reconciliation stopped after {} of {} keys: {}", from, usage.size(),
+                    cause.toString());
+                failedKeys.increment(usage.size() - from);
+                reconciledPermits.increment(permits.get());
+                return from;
+            }
+        }
+
+        reconciledPermits.increment(permits.get());
+        log.info("Reconciled {} permits of {} keys in {} ms", permits.get(), usage.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return usage.size();
+    }
+
+    void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -3,26 +3,45 @@ package com.company.ratelimiter.filter;
 import com.company.ratelimiter.config.RateLimiterProperties;
 import com.company.ratelimiter.core.RateLimitContext;
 import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimitReservation;
 import com.company.ratelimiter.core.RateLimiterService;
 import com.company.ratelimiter.exception.RateLimitExceededException;
+import com.company.ratelimiter.strategy.EndpointTrie;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
+import java.util.concurrent.CompletionException;
 
 /**
  * Servlet filter that intercepts HTTP requests and applies rate limiting.
  * Runs early in the filter chain to protect downstream services.
+ * 
+ * With {@code filter-mode: ASYNC} the request is put into async mode while
+ * the check is in flight, so the container thread returns to the pool; the
+ * request is resumed by an ASYNC dispatch once the decision is known. The
+ * rest of the chain then runs on that ASYNC dispatch only: filters registered
+ * for REQUEST alone (the default for filter beans that are not a
+ * {@code OncePerRequestFilter}) and {@code OncePerRequestFilter}s that skip
+ * async dispatches, such as Boot's {@code FormContentFilter}, do not run.
+ * 
+ * With {@code refund.on-server-error} a blocking request's permits are
+ * reserved and refunded if the request fails with a 5xx response, so a
+ * client retrying a failed request does not pay twice. It has no effect in
+ * ASYNC mode.
  */
 @Slf4j
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE + 10)  // Run early, but after security filters
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ConditionalOnProperty(
     prefix = "ratelimiter",
     name = "enabled",
@@ -31,6 +50,11 @@ import java.io.IOException;
 )
 public class RateLimiterFilter implements Filter {
 
+    /**
+     * Request attribute carrying the async outcome (decision or failure) into the ASYNC dispatch
+     */
+    static final String OUTCOME_ATTRIBUTE = RateLimiterFilter.class.getName() + ".OUTCOME";
+
     private final RateLimiterService rateLimiterService;
     private final RateLimiterProperties properties;
 
@@ -50,15 +74,28 @@ public class RateLimiterFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Resumed after an async check, or an async dispatch from downstream
+            resumeAsync(httpRequest, httpResponse, chain);
+            return;
+        }
+
         // Build rate limit context from request
         RateLimitContext context = buildContext(httpRequest);
 
-        try {
-            // Check rate limit
-            rateLimiterService.checkRateLimit(context);
+        if (properties.getFilterMode() == RateLimiterProperties.FilterMode.ASYNC && request.isAsyncSupported()) {
+            startAsync(httpRequest, context);
+            return;
+        }
+
+        if (properties.getRefund().isOnServerError()) {
+            doFilterWithRefund(httpRequest, httpResponse, chain, context);
+            return;
+        }
 
-            // Get decision for headers (don't throw exception)
-            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(context);
+        try {
+            // Check rate limit - the same decision drives the response headers
+            RateLimitDecision decision = rateLimiterService.checkRateLimit(context);
             
             // Add rate limit headers to response
             if (properties.getHeaders().isIncludeRateLimitHeaders()) {
@@ -74,6 +111,80 @@ public class RateLimiterFilter implements Filter {
         }
     }
 
+    /**
+     * Reserve the request's permits and refund them if the request fails with a server error
+     */
+    private void doFilterWithRefund(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain,
+            RateLimitContext context) throws IOException, ServletException {
+
+        RateLimitReservation reservation;
+        try {
+            reservation = rateLimiterService.reserve(context);
+        } catch (RateLimitExceededException e) {
+            handleRateLimitExceeded(response, e);
+            return;
+        }
+
+        if (properties.getHeaders().isIncludeRateLimitHeaders()) {
+            addRateLimitHeaders(response, reservation.getDecision());
+        }
+
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            // Requests continuing asynchronously keep their permits
+            failed = !request.isAsyncStarted() && response.getStatus() >= 500;
+        } finally {
+            if (failed) {
+                rateLimiterService.refund(reservation);
+            }
+        }
+    }
+
+    /**
+     * Release the container thread while the check is in flight.
+     * The outcome is stored on the request and handled by the ASYNC dispatch.
+     */
+    private void startAsync(HttpServletRequest request, RateLimitContext context) {
+        AsyncContext asyncContext = request.startAsync();
+
+        rateLimiterService.checkRateLimitAsync(context).whenComplete((decision, error) -> {
+            Object outcome = error == null ? decision
+                : error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            request.setAttribute(OUTCOME_ATTRIBUTE, outcome);
+            asyncContext.dispatch();
+        });
+    }
+
+    /**
+     * Continue or reject a request resumed by an ASYNC dispatch
+     */
+    private void resumeAsync(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+
+        Object outcome = request.getAttribute(OUTCOME_ATTRIBUTE);
+        request.removeAttribute(OUTCOME_ATTRIBUTE);
+
+        if (outcome instanceof RateLimitExceededException e) {
+            handleRateLimitExceeded(response, e);
+            return;
+        }
+
+        if (outcome instanceof RateLimitDecision decision && properties.getHeaders().isIncludeRateLimitHeaders()) {
+            addRateLimitHeaders(response, decision);
+        } else if (outcome instanceof Throwable t) {
+            throw new ServletException("Rate limit check failed", t);
+        }
+
+        // No outcome: async dispatch started downstream, already rate limited
+        chain.doFilter(request, response);
+    }
+
     /**
      * Build rate limit context from HTTP request
      */
@@ -85,9 +196,19 @@ public class RateLimiterFilter implements Filter {
             .tenantId(extractTenantId(request))
             .httpMethod(request.getMethod())
             .requestUri(request.getRequestURI())
+            .endpointPattern(extractEndpointPattern(request))
             .build();
     }
 
+    /**
+     * Route template chosen by Spring MVC, if the handler is already resolved
+     * (e.g. on ASYNC or FORWARD dispatches); otherwise endpoint rules decide
+     */
+    protected String extractEndpointPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? EndpointTrie.normalizeTemplate(pattern.toString()) : null;
+    }
+
     /**
      * Extract user ID from request (authenticated user)
      * Override this method to integrate with your authentication system
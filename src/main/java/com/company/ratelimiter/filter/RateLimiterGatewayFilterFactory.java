@@ -0,0 +1,58 @@
+package com.company.ratelimiter.filter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spring Cloud Gateway filter factory for the distributed rate limiter.
+ *
+ * Usage on a route:
+ * <pre>
+ * spring.cloud.gateway.routes:
+ *   - id: api
+ *     uri: http://backend
+ *     filters:
+ *       - DistributedRateLimiter
+ * </pre>
+ *
+ * Rules come from {@code ratelimiter.rules}, as for the servlet and WebFlux filters.
+ */
+@Component
+@ConditionalOnClass(name = "org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(
+    prefix = "ratelimiter",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true
+)
+public class RateLimiterGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<RateLimiterGatewayFilterFactory.Config> {
+
+    private final ReactiveRateLimitHandler handler;
+
+    public RateLimiterGatewayFilterFactory(ReactiveRateLimitHandler handler) {
+        super(Config.class);
+        this.handler = handler;
+    }
+
+    @Override
+    public String name() {
+        return "DistributedRateLimiter";
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> handler.filter(exchange, chain::filter);
+    }
+
+    /**
+     * No per-route options yet
+     */
+    public static class Config {
+    }
+}
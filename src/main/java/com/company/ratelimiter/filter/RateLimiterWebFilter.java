@@ -0,0 +1,45 @@
+package com.company.ratelimiter.filter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux filter that applies rate limiting to every request of a reactive application.
+ * Reactive counterpart of {@link RateLimiterFilter}.
+ *
+ * Gateways that only want to limit selected routes can disable it with
+ * {@code ratelimiter.web-filter-enabled: false} and use
+ * {@link RateLimiterGatewayFilterFactory} on those routes instead.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(
+    prefix = "ratelimiter",
+    name = {"enabled", "web-filter-enabled"},
+    havingValue = "true",
+    matchIfMissing = true
+)
+public class RateLimiterWebFilter implements WebFilter, Ordered {
+
+    private final ReactiveRateLimitHandler handler;
+
+    public RateLimiterWebFilter(ReactiveRateLimitHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return handler.filter(exchange, chain::filter);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;  // Run early, but after security filters
+    }
+}
@@ -0,0 +1,243 @@
+package com.company.ratelimiter.filter;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.exception.RateLimitExceededException;
+import com.company.ratelimiter.strategy.EndpointTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Rate limiting for reactive stacks, shared by {@link RateLimiterWebFilter}
+ * (WebFlux) and {@link RateLimiterGatewayFilterFactory} (Spring Cloud Gateway).
+ *
+ * Mirrors {@link RateLimiterFilter}: same identifier extraction, headers and
+ * 429 body. The check runs on the non-blocking executor API, so event-loop
+ * threads are never blocked on Redis; with an executor that has no native
+ * async path, the check is moved to the bounded elastic scheduler.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(
+    prefix = "ratelimiter",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true
+)
+public class ReactiveRateLimitHandler {
+
+    private final RateLimiterService rateLimiterService;
+    private final RateLimiterProperties properties;
+
+    public ReactiveRateLimitHandler(
+            RateLimiterService rateLimiterService,
+            RateLimiterProperties properties) {
+        this.rateLimiterService = rateLimiterService;
+        this.properties = properties;
+    }
+
+    /**
+     * Check the exchange and either continue with the rate limit headers or write the 429 response
+     *
+     * @param exchange Current exchange
+     * @param chain Continuation of the WebFilter or GatewayFilter chain
+     */
+    public Mono<Void> filter(ServerWebExchange exchange, Function<ServerWebExchange, Mono<Void>> chain) {
+        return exchange.getPrincipal()
+            .map(Principal::getName)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(principal -> {
+                RateLimitContext context = buildContext(exchange, principal.orElse(null));
+
+                Mono<RateLimitDecision> check =
+                    Mono.fromCompletionStage(() -> rateLimiterService.checkRateLimitAsync(context));
+                if (!rateLimiterService.isNonBlocking()) {
+                    check = check.subscribeOn(Schedulers.boundedElastic());
+                }
+
+                return check
+                    .onErrorResume(RateLimitExceededException.class,
+                        e -> handleRateLimitExceeded(exchange.getResponse(), e).then(Mono.empty()))
+                    .flatMap(decision -> {
+                        // Add rate limit headers to response
+                        if (properties.getHeaders().isIncludeRateLimitHeaders()) {
+                            addRateLimitHeaders(exchange.getResponse(), decision);
+                        }
+
+                        // Continue filter chain
+                        return chain.apply(exchange);
+                    });
+            });
+    }
+
+    /**
+     * Build rate limit context from the exchange
+     */
+    private RateLimitContext buildContext(ServerWebExchange exchange, String principalName) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        return RateLimitContext.builder()
+            .userId(extractUserId(request, principalName))
+            .ipAddress(extractClientIp(request))
+            .apiKey(extractApiKey(request))
+            .tenantId(extractTenantId(request))
+            .httpMethod(request.getMethod().name())
+            .requestUri(request.getPath().value())
+            .endpointPattern(extractEndpointPattern(exchange))
+            .build();
+    }
+
+    /**
+     * Route template chosen by WebFlux, if the handler is already resolved;
+     * otherwise endpoint rules decide
+     */
+    protected String extractEndpointPattern(ServerWebExchange exchange) {
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? EndpointTrie.normalizeTemplate(pattern.toString()) : null;
+    }
+
+    /**
+     * Extract user ID from request (authenticated user)
+     * Override this method to integrate with your authentication system
+     */
+    protected String extractUserId(ServerHttpRequest request, String principalName) {
+        // Option 1: From Principal
+        if (principalName != null) {
+            return principalName;
+        }
+
+        // Option 2: From custom header
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        if (userId != null && !userId.isEmpty()) {
+            return userId;
+        }
+
+        return null;
+    }
+
+    /**
+     * Extract client IP address
+     * Handles X-Forwarded-For header for proxied requests
+     */
+    protected String extractClientIp(ServerHttpRequest request) {
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            // X-Forwarded-For can contain multiple IPs, take the first one
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = request.getHeaders().getFirst("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return null;
+        }
+        return remoteAddress.getAddress() != null
+            ? remoteAddress.getAddress().getHostAddress()
+            : remoteAddress.getHostString();
+    }
+
+    /**
+     * Extract API key from request
+     */
+    protected String extractApiKey(ServerHttpRequest request) {
+        // Option 1: From Authorization header
+        String authorization = request.getHeaders().getFirst("Authorization");
+        if (authorization != null && authorization.startsWith("ApiKey ")) {
+            return authorization.substring(7);
+        }
+
+        // Option 2: From custom header
+        String apiKey = request.getHeaders().getFirst("X-API-Key");
+        if (apiKey != null && !apiKey.isEmpty()) {
+            return apiKey;
+        }
+
+        return null;
+    }
+
+    /**
+     * Extract tenant ID from request (for multi-tenant systems)
+     */
+    protected String extractTenantId(ServerHttpRequest request) {
+        String tenantId = request.getHeaders().getFirst("X-Tenant-Id");
+        if (tenantId != null && !tenantId.isEmpty()) {
+            return tenantId;
+        }
+
+        return null;
+    }
+
+    /**
+     * Add rate limit headers to response
+     */
+    private void addRateLimitHeaders(ServerHttpResponse response, RateLimitDecision decision) {
+        RateLimiterProperties.HeaderConfig headerConfig = properties.getHeaders();
+
+        if (decision.getLimit() > 0) {
+            response.getHeaders().set(headerConfig.getLimitHeader(), String.valueOf(decision.getLimit()));
+            response.getHeaders().set(headerConfig.getRemainingHeader(), String.valueOf(decision.getRemaining()));
+            response.getHeaders().set(headerConfig.getResetHeader(), String.valueOf(decision.getResetTime()));
+        }
+    }
+
+    /**
+     * Handle rate limit exceeded - write 429 response
+     */
+    private Mono<Void> handleRateLimitExceeded(ServerHttpResponse response, RateLimitExceededException e) {
+        RateLimitDecision decision = e.getDecision();
+
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+
+        // Add rate limit headers
+        if (properties.getHeaders().isIncludeRateLimitHeaders()) {
+            RateLimiterProperties.HeaderConfig headerConfig = properties.getHeaders();
+
+            response.getHeaders().set(headerConfig.getLimitHeader(), String.valueOf(decision.getLimit()));
+            response.getHeaders().set(headerConfig.getRemainingHeader(), "0");
+            response.getHeaders().set(headerConfig.getResetHeader(), String.valueOf(decision.getResetTime()));
+
+            if (headerConfig.isIncludeRetryAfter()) {
+                response.getHeaders().set(headerConfig.getRetryAfterHeader(),
+                    String.valueOf(decision.getRetryAfterSeconds()));
+            }
+        }
+
+        // Write error response body
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String errorBody = String.format(
+            "{\"error\":\"Rate limit exceeded\",\"message\":\"%s\",\"retryAfter\":%d}",
+            e.getMessage(),
+            decision.getRetryAfterSeconds()
+        );
+        DataBuffer buffer = response.bufferFactory().wrap(errorBody.getBytes(StandardCharsets.UTF_8));
+
+        log.warn("Rate limit exceeded: {}", e.getMessage());
+
+        return response.writeWith(Mono.just(buffer));
+    }
+}
@@ -0,0 +1,41 @@
+package com.company.ratelimiter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cost of requests to an endpoint, in permits.
+ * A request matching the pattern consumes {@code cost} permits of every rule
+ * that applies to it, instead of one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EndpointCost {
+
+    /**
+     * Endpoint path pattern (e.g. /api/reports/** or /api/users/{id}/export)
+     */
+    private String pattern;
+
+    /**
+     * Optional: HTTP method the cost applies to. If null, applies to all methods.
+     */
+    private String httpMethod;
+
+    /**
+     * Permits consumed per request
+     */
+    @Builder.Default
+    private long cost = 1;
+
+    /**
+     * Check if this cost applies to a request's HTTP method
+     */
+    public boolean appliesToMethod(String method) {
+        return this.httpMethod == null || this.httpMethod.equalsIgnoreCase(method);
+    }
+}
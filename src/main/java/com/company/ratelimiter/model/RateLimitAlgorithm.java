@@ -0,0 +1,57 @@
+package com.company.ratelimiter.model;
+
+/**
+ * Algorithm used to enforce a rate limit rule in Redis.
+ * Each algorithm keeps a different state structure per key, so keys carry
+ * an algorithm-specific suffix to avoid type clashes when a rule is switched.
+ */
+public enum RateLimitAlgorithm {
+    /**
+     * Exact sliding window log (one ZSET member per allowed request)
+     */
+    SLIDING_WINDOW_LOG("sliding_window_log", ""),
+    
+    /**
+     * Token bucket (O(1) hash per key: tokens + last refill timestamp)
+     */
+    TOKEN_BUCKET("token_bucket", ":tb"),
+    
+    /**
+     * Approximate sliding window counter (two fixed-window counters per key,
+     * blended by how much of the previous window still overlaps)
+     */
+    SLIDING_WINDOW_COUNTER("sliding_window_counter", ":swc"),
+    
+    /**
+     * Generic cell rate algorithm (single theoretical arrival time per key,
+     * exact retry-after)
+     */
+    GCRA("gcra", ":gcra");
+
+    private final String value;
+    private final String keySuffix;
+
+    RateLimitAlgorithm(String value, String keySuffix) {
+        this.value = value;
+        this.keySuffix = keySuffix;
+    }
+
+    /**
+     * Name of the algorithm as understood by the Lua scripts
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Suffix appended to the Redis key for this algorithm
+     */
+    public String getKeySuffix() {
+        return keySuffix;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -29,29 +30,101 @@ public class RateLimitKey {
      * Window size in seconds
      */
     private long windowSeconds;
+    
+    /**
+     * Algorithm whose state is stored under this key
+     */
+    private RateLimitAlgorithm algorithm = RateLimitAlgorithm.SLIDING_WINDOW_LOG;
+    
+    /**
+     * Optional Redis Cluster hash tag; keys with the same tag share a slot
+     */
+    private String hashTag;
+    
+    /**
+     * Further dimensions of a composite key, whose identifier joins all of them
+     */
+    private List<RateLimitDimension> combinedWith;
+
+    // Reused per thread to build Redis keys
+    private static final ThreadLocal<StringBuilder> KEY_BUILDER =
+        ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    public RateLimitKey(RateLimitDimension dimension, String identifier, long windowSeconds) {
+        this(dimension, identifier, windowSeconds, RateLimitAlgorithm.SLIDING_WINDOW_LOG);
+    }
+
+    public RateLimitKey(
+            RateLimitDimension dimension,
+            String identifier,
+            long windowSeconds,
+            RateLimitAlgorithm algorithm) {
+        this(dimension, identifier, windowSeconds, algorithm, null, null);
+    }
+
+    /**
+     * Build the key for a rule and the identifier resolved from the request context
+     */
+    public static RateLimitKey of(RateLimitRule rule, String identifier) {
+        return new RateLimitKey(
+            rule.getDimension(),
+            // Method-specific rules count separately from other methods on the same route
+            rule.getHttpMethod() != null ? rule.getHttpMethod().toUpperCase() + ":" + identifier : identifier,
+            rule.getWindowSeconds(),
+            rule.getAlgorithm(),
+            null,
+            rule.isComposite() ? rule.getCombinedWith() : null
+        );
+    }
 
     /**
-     * Build Redis key in format: ratelimit:{dimension}:{identifier}:{window}
+     * Copy of this key carrying a Redis Cluster hash tag
+     */
+    public RateLimitKey withHashTag(String tag) {
+        return new RateLimitKey(dimension, identifier, windowSeconds, algorithm, tag, combinedWith);
+    }
+
+    /**
+     * Build Redis key in format: ratelimit:[{hash tag}:]{dimension}[+{dimension}...]:{identifier}:{window}[{algorithm suffix}]
      * 
      * Examples:
      * - ratelimit:user:12345:60
      * - ratelimit:ip:192.168.1.1:300
-     * - ratelimit:apikey:abc123xyz:3600
+     * - ratelimit:apikey:abc123xyz:3600:tb
+     * - ratelimit:{tenant:acme}:user:12345:60 (cluster, tagged by tenant)
+     * - ratelimit:user+endpoint:12345|/users/:id:60 (composite)
      */
     public String toRedisKey() {
-        return String.format("ratelimit:%s:%s:%d", 
-            dimension.getValue(), 
-            identifier, 
-            windowSeconds);
+        StringBuilder key = KEY_BUILDER.get();
+        key.setLength(0);
+        key.append("ratelimit:");
+        if (hashTag != null) {
+            key.append('{').append(hashTag).append("}:");
+        }
+        appendScope(key);
+        return key.append(':').append(identifier)
+            .append(':').append(windowSeconds)
+            .append(algorithm.getKeySuffix())
+            .toString();
     }
 
     /**
-     * Build config key in format: ratelimit:config:{dimension}:{identifier}
+     * Build config key in format: ratelimit:config:{dimension}[+{dimension}...]:{identifier}
      */
     public String toConfigKey() {
-        return String.format("ratelimit:config:%s:%s", 
-            dimension.getValue(), 
-            identifier);
+        StringBuilder key = KEY_BUILDER.get();
+        key.setLength(0);
+        appendScope(key.append("ratelimit:config:"));
+        return key.append(':').append(identifier).toString();
+    }
+
+    private void appendScope(StringBuilder key) {
+        key.append(dimension.getValue());
+        if (combinedWith != null) {
+            for (RateLimitDimension combined : combinedWith) {
+                key.append('+').append(combined.getValue());
+            }
+        }
     }
 
     @Override
@@ -61,12 +134,15 @@ public class RateLimitKey {
         RateLimitKey that = (RateLimitKey) o;
         return windowSeconds == that.windowSeconds &&
                dimension == that.dimension &&
-               Objects.equals(identifier, that.identifier);
+               algorithm == that.algorithm &&
+               Objects.equals(identifier, that.identifier) &&
+               Objects.equals(hashTag, that.hashTag) &&
+               Objects.equals(combinedWith, that.combinedWith);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dimension, identifier, windowSeconds);
+        return Objects.hash(dimension, identifier, windowSeconds, algorithm, hashTag, combinedWith);
     }
 
     @Override
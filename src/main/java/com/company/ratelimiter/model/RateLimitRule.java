@@ -6,13 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * Represents a rate limiting rule configuration.
  * Defines how many requests are allowed within a specific time window for a given dimension.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class RateLimitRule {
@@ -22,6 +23,13 @@ public class RateLimitRule {
      */
     private RateLimitDimension dimension;
     
+    /**
+     * Optional: further dimensions combined with {@code dimension} into one composite key
+     * Example: USER combined with ENDPOINT limits each user per endpoint template.
+     * The rule applies only to requests carrying all of them.
+     */
+    private List<RateLimitDimension> combinedWith;
+    
     /**
      * Maximum number of requests allowed within the window
      */
@@ -32,6 +40,18 @@ public class RateLimitRule {
      */
     private Duration window;
     
+    /**
+     * Algorithm used to enforce this rule (defaults to the exact sliding window log)
+     */
+    @Builder.Default
+    private RateLimitAlgorithm algorithm = RateLimitAlgorithm.SLIDING_WINDOW_LOG;
+    
+    /**
+     * Permits a request consumes from this rule (multiplied by the request's own cost)
+     */
+    @Builder.Default
+    private long cost = 1;
+    
     /**
      * Priority of this rule (lower number = higher priority)
      * Used when multiple rules apply to the same request
@@ -52,6 +72,12 @@ public class RateLimitRule {
      */
     private String identifier;
     
+    /**
+     * Optional: HTTP method an ENDPOINT pattern rule is limited to (e.g. POST).
+     * If null, the rule applies to all methods.
+     */
+    private String httpMethod;
+    
     /**
      * Optional: description for documentation/debugging
      */
@@ -79,10 +105,24 @@ public class RateLimitRule {
         return getWindowSeconds() + 20;
     }
 
+    /**
+     * Whether this rule's key combines several dimensions
+     */
+    public boolean isComposite() {
+        return combinedWith != null && !combinedWith.isEmpty();
+    }
+
     /**
      * Check if this rule applies to a specific identifier
      */
     public boolean appliesTo(String identifier) {
         return this.identifier == null || this.identifier.equals(identifier);
     }
+
+    /**
+     * Check if this rule applies to a request's HTTP method
+     */
+    public boolean appliesToMethod(String method) {
+        return this.httpMethod == null || this.httpMethod.equalsIgnoreCase(method);
+    }
 }
@@ -67,6 +67,69 @@ public class LuaScriptLoader {
         return loadScript("sliding_window_multi");
     }
 
+    /**
+     * Get the token bucket script
+     */
+    public String getTokenBucketScript() {
+        return loadScript("token_bucket");
+    }
+
+    /**
+     * Get the sliding window counter (two-bucket approximation) script
+     */
+    public String getSlidingWindowCounterScript() {
+        return loadScript("sliding_window_counter");
+    }
+
+    /**
+     * Get the GCRA (generic cell rate algorithm) script
+     */
+    public String getGcraScript() {
+        return loadScript("gcra");
+    }
+
+    /**
+     * Get the permit lease acquisition script
+     */
+    public String getLeaseAcquireScript() {
+        return loadScript("lease_acquire");
+    }
+
+    /**
+     * Get the permit lease release script
+     */
+    public String getLeaseReleaseScript() {
+        return loadScript("lease_release");
+    }
+
+    /**
+     * Get the read-only quota peek script
+     */
+    public String getPeekScript() {
+        return loadScript("peek");
+    }
+
+    /**
+     * Get the permit refund script
+     */
+    public String getRefundScript() {
+        return loadScript("refund");
+    }
+
+    /**
+     * Get the fallback usage reconciliation script
+     */
+    public String getReconcileScript() {
+        return loadScript("reconcile");
+    }
+
+    /**
+     * Get the local-first delta sync script
+     */
+    public String getLocalFirstSyncScript() {
+        return loadScript("local_first_sync");
+    }
+
     /**
      * Clear the script cache (useful for testing)
      */
@@ -0,0 +1,210 @@
+package com.company.ratelimiter.strategy;
+
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.model.EndpointCost;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of the registered rules, compiled once per rule change.
+ *
+ * Rules are split per dimension into default rules (no identifier) and
+ * identifier overrides (hash map per dimension). Default rules are
+ * pre-resolved for every combination of dimensions a request can carry, so a
+ * request without a matching override resolves to a shared, precomputed list
+ * without allocating. Composite rules apply when all of their dimensions are
+ * present. ENDPOINT rules with a pattern live in an
+ * {@link EndpointTrie}; a request matching one gets the normalized template as
+ * its ENDPOINT identifier. Endpoint costs are matched the same way and set
+ * the request's cost unless it was set explicitly. Results keep the global
+ * priority order.
+ */
+final class CompiledRuleIndex {
+
+    private static final RateLimitDimension[] DIMENSIONS = RateLimitDimension.values();
+
+    static final CompiledRuleIndex EMPTY = new CompiledRuleIndex(List.of(), List.of());
+
+    // All registered rules, priority order (including disabled ones)
+    private final List<RateLimitRule> rules;
+
+    // All registered endpoint costs
+    private final List<EndpointCost> endpointCosts;
+
+    // Position of each enabled rule in priority order
+    private final Map<RateLimitRule, Integer> order;
+
+    // Bitmask of dimensions present on a request -> applicable default rules
+    private final List<RateLimitRule>[] defaultsByPresence;
+
+    // Dimension -> identifier -> override rules, priority order
+    private final EnumMap<RateLimitDimension, Map<String, List<RateLimitRule>>> overrides;
+
+    // ENDPOINT rules with a path pattern
+    private final EndpointTrie<RateLimitRule> endpoints = new EndpointTrie<>();
+
+    // Endpoint pattern -> request cost
+    private final EndpointTrie<EndpointCost> costs = new EndpointTrie<>();
+
+    // Composite rules with an identifier, matched against the request's composite identifier
+    private final List<RateLimitRule> compositeOverrides = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    CompiledRuleIndex(List<RateLimitRule> registered, List<EndpointCost> endpointCosts) {
+        List<RateLimitRule> sorted = new ArrayList<>(registered);
+        sorted.sort(Comparator.comparingInt(RateLimitRule::getPriority));
+        this.rules = List.copyOf(sorted);
+        this.endpointCosts = List.copyOf(endpointCosts);
+        endpointCosts.forEach(cost -> costs.add(cost.getPattern(), cost));
+
+        this.order = new IdentityHashMap<>();
+        this.overrides = new EnumMap<>(RateLimitDimension.class);
+        List<RateLimitRule> defaults = new ArrayList<>();
+
+        for (RateLimitRule rule : rules) {
+            if (!rule.isEnabled()) {
+                continue;
+            }
+            order.put(rule, order.size());
+            validate(rule);
+
+            if (rule.getIdentifier() == null) {
+                defaults.add(rule);
+            } else if (rule.isComposite()) {
+                compositeOverrides.add(rule);
+            } else if (rule.getDimension() == RateLimitDimension.ENDPOINT) {
+                endpoints.add(rule.getIdentifier(), rule);
+            } else {
+                overrides.computeIfAbsent(rule.getDimension(), d -> new HashMap<>())
+                    .computeIfAbsent(rule.getIdentifier(), id -> new ArrayList<>())
+                    .add(rule);
+            }
+        }
+        overrides.values().forEach(byIdentifier -> byIdentifier.replaceAll((id, list) -> List.copyOf(list)));
+
+        this.defaultsByPresence = new List[1 << DIMENSIONS.length];
+        for (int mask = 0; mask < defaultsByPresence.length; mask++) {
+            List<RateLimitRule> applicable = new ArrayList<>();
+            for (RateLimitRule rule : defaults) {
+                if ((mask & mask(rule)) == mask(rule)) {
+                    applicable.add(rule);
+                }
+            }
+            defaultsByPresence[mask] = List.copyOf(applicable);
+        }
+    }
+
+    /**
+     * Applicable enabled rules for a request, in priority order
+     */
+    List<RateLimitRule> resolve(RateLimitContext context) {
+        int presence = 0;
+        List<RateLimitRule> matchedOverrides = null;
+
+        if (!costs.isEmpty() && !context.hasCost()) {
+            EndpointTrie.Match<EndpointCost> cost = costs.match(context.getRequestUri());
+            if (cost != null) {
+                cost.values().stream()
+                    .filter(c -> c.appliesToMethod(context.getHttpMethod()))
+                    .findFirst()
+                    .ifPresent(c -> context.setCost(c.getCost()));
+            }
+        }
+
+        EndpointTrie.Match<RateLimitRule> endpoint = endpoints.match(context.getRequestUri());
+        if (endpoint != null) {
+            context.setEndpointPattern(endpoint.template());
+            for (RateLimitRule rule : endpoint.values()) {
+                if (rule.appliesToMethod(context.getHttpMethod())) {
+                    if (matchedOverrides == null) {
+                        matchedOverrides = new ArrayList<>();
+                    }
+                    matchedOverrides.add(rule);
+                }
+            }
+        }
+
+        for (RateLimitDimension dimension : DIMENSIONS) {
+            String identifier = context.getIdentifier(dimension);
+            if (identifier == null || identifier.isEmpty()) {
+                continue;
+            }
+            presence |= bit(dimension);
+
+            Map<String, List<RateLimitRule>> byIdentifier = overrides.get(dimension);
+            if (byIdentifier != null) {
+                List<RateLimitRule> matched = byIdentifier.get(identifier);
+                if (matched != null) {
+                    if (matchedOverrides == null) {
+                        matchedOverrides = new ArrayList<>(matched);
+                    } else {
+                        matchedOverrides.addAll(matched);
+                    }
+                }
+            }
+        }
+
+        for (RateLimitRule rule : compositeOverrides) {
+            if ((presence & mask(rule)) == mask(rule) && rule.getIdentifier().equals(context.getIdentifier(rule))) {
+                if (matchedOverrides == null) {
+                    matchedOverrides = new ArrayList<>();
+                }
+                matchedOverrides.add(rule);
+            }
+        }
+
+        List<RateLimitRule> defaults = defaultsByPresence[presence];
+        if (matchedOverrides == null) {
+            return defaults;
+        }
+
+        // Rare path: merge the request's overrides into the defaults by priority
+        matchedOverrides.addAll(defaults);
+        matchedOverrides.sort(Comparator.comparingInt(order::get));
+        return matchedOverrides;
+    }
+
+    List<RateLimitRule> getRules() {
+        return rules;
+    }
+
+    List<EndpointCost> getEndpointCosts() {
+        return endpointCosts;
+    }
+
+    private static void validate(RateLimitRule rule) {
+        if (!rule.isComposite()) {
+            return;
+        }
+        if (rule.getDimension() == RateLimitDimension.GLOBAL
+                || rule.getCombinedWith().contains(RateLimitDimension.GLOBAL)) {
+            throw new IllegalArgumentException("GLOBAL cannot be part of a composite rule: " + rule);
+        }
+        if (rule.getCombinedWith().contains(rule.getDimension())
+                || rule.getCombinedWith().stream().distinct().count() != rule.getCombinedWith().size()) {
+            throw new IllegalArgumentException("Composite rule repeats a dimension: " + rule);
+        }
+    }
+
+    private static int mask(RateLimitRule rule) {
+        int mask = bit(rule.getDimension());
+        if (rule.isComposite()) {
+            for (RateLimitDimension dimension : rule.getCombinedWith()) {
+                mask |= bit(dimension);
+            }
+        }
+        return mask;
+    }
+
+    private static int bit(RateLimitDimension dimension) {
+        return 1 << dimension.ordinal();
+    }
+}
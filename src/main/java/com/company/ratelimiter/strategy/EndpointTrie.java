@@ -0,0 +1,161 @@
+package com.company.ratelimiter.strategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie of endpoint patterns over path segments, holding the values registered
+ * for each pattern (ENDPOINT rules, endpoint costs).
+ *
+ * Patterns are path templates with segment wildcards: a literal segment,
+ * {@code {name}} or {@code *} for exactly one segment, and a trailing
+ * {@code **} for any number of remaining segments. Matching walks the request
+ * path once per segment and prefers, at every segment, a literal over a
+ * single-segment wildcard over {@code **}, so the most specific pattern wins.
+ *
+ * A match yields the normalized template used as the ENDPOINT identifier
+ * (e.g. {@code /users/:id} for {@code /users/{id}}), which keeps endpoint keys
+ * bounded by the number of routes, and the values of that template.
+ */
+public final class EndpointTrie<T> {
+
+    private final Node<T> root = new Node<>();
+    private boolean empty = true;
+
+    /**
+     * Add a value for an endpoint pattern
+     */
+    void add(String pattern, T value) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Endpoint pattern must start with '/': " + pattern);
+        }
+
+        Node<T> node = root;
+        String[] segments = segments(pattern);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported as the last segment: " + pattern);
+                }
+                if (node.tail == null) {
+                    node.tail = new Node<>();
+                }
+                node = node.tail;
+            } else if (segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node<>();
+                }
+                node = node.wildcard;
+            } else if (segment.contains("*") || segment.contains("{")) {
+                throw new IllegalArgumentException("Partial segment wildcards are not supported: " + pattern);
+            } else {
+                node = node.literals.computeIfAbsent(segment, s -> new Node<>());
+            }
+        }
+
+        // Patterns differing only in variable names share a node and a template
+        if (node.template == null) {
+            node.template = normalizeTemplate(pattern);
+        }
+        node.values.add(value);
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Most specific pattern matching a request path, or null
+     */
+    Match<T> match(String path) {
+        if (empty || path == null || !path.startsWith("/")) {
+            return null;
+        }
+        Node<T> node = match(root, path, 1);
+        return node != null ? new Match<>(node.template, node.values) : null;
+    }
+
+    private static <T> Node<T> match(Node<T> node, String path, int start) {
+        if (start >= path.length()) {
+            // Path consumed; a trailing '**' also matches zero remaining segments
+            if (node.template != null) {
+                return node;
+            }
+            return node.tail != null && node.tail.template != null ? node.tail : null;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int next = end + 1;
+
+        if (end == start) {
+            // Empty segment ("//" or trailing "/")
+            return match(node, path, next);
+        }
+
+        Node<T> literal = node.literals.isEmpty() ? null : node.literals.get(path.substring(start, end));
+        if (literal != null) {
+            Node<T> found = match(literal, path, next);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        if (node.wildcard != null) {
+            Node<T> found = match(node.wildcard, path, next);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        return node.tail != null && node.tail.template != null ? node.tail : null;
+    }
+
+    /**
+     * Template form safe for Redis keys: {@code {name}} becomes {@code :name}, so
+     * braces never act as Redis Cluster hash tags
+     */
+    public static String normalizeTemplate(String pattern) {
+        StringBuilder template = new StringBuilder(pattern.length());
+        for (String segment : segments(pattern)) {
+            template.append('/');
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                int colon = segment.indexOf(':');  // {id:[0-9]+} -> :id
+                template.append(':').append(segment, 1, colon > 0 ? colon : segment.length() - 1);
+            } else {
+                template.append(segment);
+            }
+        }
+        return template.length() > 0 ? template.toString() : "/";
+    }
+
+    private static String[] segments(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    /**
+     * Matched template and the values registered for it
+     */
+    record Match<T>(String template, List<T> values) {
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private Node<T> wildcard;
+        private Node<T> tail;
+        private String template;
+        private final List<T> values = new ArrayList<>();
+    }
+}
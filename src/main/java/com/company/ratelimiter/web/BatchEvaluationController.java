@@ -0,0 +1,134 @@
+package com.company.ratelimiter.web;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * HTTP endpoint evaluating many requests in one call
+ * ({@link RateLimiterService#evaluateBatch(List)}).
+ *
+ * Request: a JSON array of items, evaluated in order:
+ * <pre>
+ * [{"userId":"42","ipAddress":"10.0.0.1","requestUri":"/api/orders","httpMethod":"POST","cost":1}, ...]
+ * </pre>
+ * Response: one positional array per item, in the same order:
+ * <pre>
+ * {"results":[[1,10,9,1700000060,0],[0,10,0,1700000060,1500,"user"]]}
+ * </pre>
+ * i.e. {@code [allowed, limit, remaining, resetTime, retryAfterMillis(, deniedBy)]},
+ * with the denying dimension only on denials.
+ *
+ * Disabled by default (ratelimiter.batch-endpoint.enabled): the caller
+ * chooses the identifiers whose quota is consumed. Batches above
+ * {@code max-size} items, or with an item cost outside 1..{@code max-cost},
+ * are rejected with 400.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(
+    prefix = "ratelimiter.batch-endpoint",
+    name = "enabled",
+    havingValue = "true"
+)
+public class BatchEvaluationController {
+
+    private final RateLimiterService rateLimiterService;
+    private final int maxSize;
+    private final long maxCost;
+
+    public BatchEvaluationController(
+            RateLimiterService rateLimiterService,
+            RateLimiterProperties properties) {
+        this.rateLimiterService = rateLimiterService;
+        this.maxSize = properties.getBatchEndpoint().getMaxSize();
+        this.maxCost = properties.getBatchEndpoint().getMaxCost();
+    }
+
+    @PostMapping(
+        path = "${ratelimiter.batch-endpoint.path:/ratelimiter/evaluate}",
+        consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletionStage<ResponseEntity<BatchResponse>> evaluate(@RequestBody List<BatchItem> items) {
+        if (items.size() > maxSize) {
+            log.warn("Rejected batch of {} requests (max {})", items.size(), maxSize);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        for (BatchItem item : items) {
+            if (item == null) {
+                log.warn("Rejected batch with a null item");
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+            }
+            if (item.cost() != null && (item.cost() < 1 || item.cost() > maxCost)) {
+                log.warn("Rejected batch with an item of cost {} (allowed 1..{})", item.cost(), maxCost);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+            }
+        }
+
+        List<RateLimitContext> contexts = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            contexts.add(item.toContext());
+        }
+
+        return rateLimiterService.evaluateBatchAsync(contexts)
+            .thenApply(decisions -> ResponseEntity.ok(new BatchResponse(
+                decisions.stream().map(BatchEvaluationController::compact).toList())));
+    }
+
+    private static Object[] compact(RateLimitDecision decision) {
+        if (decision.isAllowed()) {
+            return new Object[] {1, decision.getLimit(), decision.getRemaining(), decision.getResetTime(), 0};
+        }
+        return new Object[] {0, decision.getLimit(), 0, decision.getResetTime(), decision.getRetryAfterMillis(),
+            decision.getDeniedBy() != null ? decision.getDeniedBy().getValue() : null};
+    }
+
+    /**
+     * One request to evaluate; unset fields are absent dimensions.
+     * Request IDs are always generated here: a caller-chosen ID could collide
+     * with another request's sliding window log member.
+     */
+    public record BatchItem(
+            String userId,
+            String ipAddress,
+            String apiKey,
+            String tenantId,
+            String httpMethod,
+            String requestUri,
+            Long cost) {
+
+        RateLimitContext toContext() {
+            RateLimitContext context = RateLimitContext.builder()
+                .userId(userId)
+                .ipAddress(ipAddress)
+                .apiKey(apiKey)
+                .tenantId(tenantId)
+                .httpMethod(httpMethod)
+                .requestUri(requestUri)
+                .build();
+            if (cost != null) {
+                context.setCost(cost);
+            }
+            return context;
+        }
+    }
+
+    /**
+     * Positional results, one per item
+     */
+    public record BatchResponse(List<Object[]> results) {
+    }
+}
@@ -0,0 +1,48 @@
+-- Generic Cell Rate Algorithm (GCRA) Rate Limiting
+-- Stores a single value per key: the theoretical arrival time (TAT) of the
+-- next request in milliseconds. Requests are spaced by an emission interval
+-- of window / limit, with a tolerance of one full window (burst of `limit`).
+--
+-- KEYS[1] = rate limit key (e.g., "ratelimit:user:12345:60:gcra")
+-- ARGV[1] = limit (max requests allowed per window)
+-- ARGV[2] = window size in milliseconds
+-- ARGV[3] = request ID (unused, kept for argument compatibility)
+-- ARGV[4] = TTL in seconds (unused, the key expires when its TAT is reached)
+-- ARGV[5] = cost in permits (optional, default 1); advances the TAT by cost intervals
+--
+-- Returns: {allowed, remaining, reset_time, retry_after_ms}
+--   allowed: 1 if allowed, 0 if denied
+--   remaining: number of requests that could still be made right now
+--   reset_time: Unix timestamp when the full burst is available again
+--   retry_after_ms: exact milliseconds until the next request is allowed (0 if allowed)
+
+-- Get current time from Redis server (avoids clock drift across app instances)
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+-- Parse arguments
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window_millis = tonumber(ARGV[2])
+local cost = tonumber(ARGV[5]) or 1
+
+local emission_interval = window_millis / limit
+
+-- A missing or past TAT means the key is fully replenished
+local tat = tonumber(redis.call('GET', key)) or current_millis
+tat = math.max(tat, current_millis)
+
+local new_tat = tat + emission_interval * cost
+local allow_at = new_tat - window_millis
+
+if current_millis < allow_at then
+    -- DENIED: State is left untouched
+    local retry_after = math.ceil(allow_at - current_millis)
+    return {0, 0, math.ceil(tat / 1000), retry_after}
+end
+
+-- ALLOWED: Advance the TAT; the key is worthless once the TAT has passed
+redis.call('SET', key, tostring(new_tat), 'PX', math.ceil(new_tat - current_millis))
+
+local remaining = math.floor((current_millis - allow_at) / emission_interval)
+return {1, remaining, math.ceil(new_tat / 1000), 0}
@@ -0,0 +1,52 @@
+-- Permit Lease Acquisition (token bucket)
+-- Atomically takes up to `requested` tokens from a token bucket so that an
+-- instance can hand them out locally. Grants fewer tokens (possibly zero)
+-- when the bucket does not hold enough. Operates on the same state as
+-- token_bucket.lua, so leased and non-leased checks share one quota.
+--
+-- KEYS[1] = token bucket key (e.g., "ratelimit:user:12345:60:tb")
+-- ARGV[1] = limit (bucket capacity)
+-- ARGV[2] = window size in milliseconds (time to refill an empty bucket)
+-- ARGV[3] = requested number of permits
+-- ARGV[4] = TTL in seconds
+--
+-- Returns: {granted, remaining, reset_time, retry_after_ms}
+--   granted: number of permits leased to the caller
+--   remaining: whole tokens left in the bucket after the lease
+--   reset_time: Unix timestamp when the bucket is full again
+--   retry_after_ms: milliseconds until the next token is available (0 if granted)
+
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window_millis = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+local ttl_seconds = tonumber(ARGV[4])
+
+local refill_rate = limit / window_millis
+
+-- Load and refill bucket state (missing key = full bucket)
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local last_refill = tonumber(state[2])
+if tokens == nil or last_refill == nil then
+    tokens = limit
+    last_refill = current_millis
+end
+tokens = math.min(limit, tokens + math.max(0, current_millis - last_refill) * refill_rate)
+
+local granted = math.min(requested, math.floor(tokens))
+
+if granted < 1 then
+    local retry_after = math.ceil((1 - tokens) / refill_rate)
+    return {0, 0, math.ceil((current_millis + retry_after) / 1000), retry_after}
+end
+
+tokens = tokens - granted
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', current_millis)
+redis.call('EXPIRE', key, ttl_seconds)
+
+local reset_time = math.ceil((current_millis + (limit - tokens) / refill_rate) / 1000)
+return {granted, math.floor(tokens), reset_time, 0}
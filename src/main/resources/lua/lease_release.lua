@@ -0,0 +1,34 @@
+-- Permit Lease Release (token bucket)
+-- Returns unused leased permits to a token bucket, capped at its capacity.
+--
+-- KEYS[1] = token bucket key (e.g., "ratelimit:user:12345:60:tb")
+-- ARGV[1] = limit (bucket capacity)
+-- ARGV[2] = window size in milliseconds (time to refill an empty bucket)
+-- ARGV[3] = number of permits to return
+-- ARGV[4] = TTL in seconds
+--
+-- Returns: whole tokens in the bucket after the release
+
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window_millis = tonumber(ARGV[2])
+local returned = tonumber(ARGV[3])
+local ttl_seconds = tonumber(ARGV[4])
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local last_refill = tonumber(state[2])
+
+-- A missing bucket is already full
+if tokens == nil or last_refill == nil then
+    return limit
+end
+
+tokens = math.min(limit, tokens + math.max(0, current_millis - last_refill) * limit / window_millis + returned)
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', current_millis)
+redis.call('EXPIRE', key, ttl_seconds)
+
+return math.floor(tokens)
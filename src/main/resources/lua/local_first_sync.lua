@@ -0,0 +1,49 @@
+-- Local-First Sync
+-- Writes the permits one instance admitted locally since its last sync into
+-- the sliding window counter hash (same layout as sliding_window_counter.lua)
+-- and reads back the fleet-wide counts of the current and previous window.
+--
+-- Deltas are net counts and may be negative (permits given back after another
+-- rule denied the request). Deltas for windows that no longer overlap the
+-- sliding window are dropped.
+--
+-- KEYS[1] = rate limit key (e.g., "ratelimit:user:12345:60:swc")
+-- ARGV[1] = window size in milliseconds
+-- ARGV[2] = TTL in seconds
+-- ARGV[3] = index of the fixed window the deltas were counted in
+-- ARGV[4] = permits admitted in that window
+-- ARGV[5] = permits admitted in the window before it
+--
+-- Returns: {window_index, current_count, previous_count, current_millis}
+--   counts are fleet totals including this sync's deltas; current_millis is
+--   the Redis clock, which instances use to agree on window boundaries
+
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+local key = KEYS[1]
+local window_millis = tonumber(ARGV[1])
+local ttl_seconds = tonumber(ARGV[2])
+local index = tonumber(ARGV[3])
+local current_delta = tonumber(ARGV[4])
+local previous_delta = tonumber(ARGV[5])
+
+local window_index = math.floor(current_millis / window_millis)
+local written = false
+
+if current_delta ~= 0 and index >= window_index - 1 then
+    redis.call('HINCRBY', key, tostring(index), current_delta)
+    written = true
+end
+if previous_delta ~= 0 and index - 1 >= window_index - 1 then
+    redis.call('HINCRBY', key, tostring(index - 1), previous_delta)
+    written = true
+end
+
+if written then
+    redis.call('HDEL', key, tostring(window_index - 2))
+    redis.call('EXPIRE', key, ttl_seconds + math.ceil(window_millis / 1000))
+end
+
+local counts = redis.call('HMGET', key, tostring(window_index), tostring(window_index - 1))
+return {window_index, tonumber(counts[1]) or 0, tonumber(counts[2]) or 0, current_millis}
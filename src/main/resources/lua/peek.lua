@@ -0,0 +1,123 @@
+-- Read-Only Quota Peek
+-- Reports the quota left on rate limit keys without taking a permit.
+-- Only reads (no ZADD, trim or EXPIRE), so it can run on a replica (EVAL_RO).
+-- Each dimension may use its own algorithm; the state is read exactly as the
+-- check scripts read it, with expired entries ignored instead of removed.
+--
+-- KEYS[1..N] = rate limit keys (one per dimension)
+-- ARGV[1] = number of dimensions
+-- ARGV[2..] = quadruplets of (algorithm, limit, window_millis, cost) for each dimension
+--
+-- Returns: {allowed, failed_dimension_index, remaining, reset_time, retry_after_ms}
+--   allowed: 1 if a request of the given cost would currently pass all limits
+--   failed_dimension_index: index of first dimension without room (0 if none)
+--   remaining: minimum remaining across all dimensions
+--   reset_time: earliest reset time across all dimensions
+--   retry_after_ms: milliseconds until the failed dimension has room (0 if none)
+
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+local num_dimensions = tonumber(ARGV[1])
+
+local min_remaining = -1
+local earliest_reset = math.floor(current_millis / 1000) + 86400 -- 24 hours from now (seconds)
+
+for i = 1, num_dimensions do
+    local key = KEYS[i]
+
+    local arg_base = 2 + (i - 1) * 4
+    local algorithm = ARGV[arg_base]
+    local limit = tonumber(ARGV[arg_base + 1])
+    local window_millis = tonumber(ARGV[arg_base + 2])
+    local cost = tonumber(ARGV[arg_base + 3])
+
+    local remaining
+    local reset_time
+    local retry_after = 0
+
+    if algorithm == 'token_bucket' then
+        local refill_rate = limit / window_millis
+        local state = redis.call('HMGET', key, 'tokens', 'ts')
+        local tokens = tonumber(state[1])
+        local last_refill = tonumber(state[2])
+        if tokens == nil or last_refill == nil then
+            tokens = limit
+            last_refill = current_millis
+        end
+        tokens = math.min(limit, tokens + math.max(0, current_millis - last_refill) * refill_rate)
+
+        remaining = math.floor(tokens)
+        reset_time = math.ceil((current_millis + (limit - tokens) / refill_rate) / 1000)
+        if tokens < cost then
+            retry_after = math.ceil((cost - tokens) / refill_rate)
+        end
+    elseif algorithm == 'sliding_window_counter' then
+        local window_index = math.floor(current_millis / window_millis)
+        local window_start = window_index * window_millis
+        local counts = redis.call('HMGET', key, tostring(window_index), tostring(window_index - 1))
+        local current_count = tonumber(counts[1]) or 0
+        local previous_count = tonumber(counts[2]) or 0
+        local estimated = previous_count * (1 - (current_millis - window_start) / window_millis) + current_count
+
+        remaining = math.max(0, math.floor(limit - estimated))
+        reset_time = math.floor((window_start + window_millis) / 1000)
+        if estimated + cost > limit then
+            local retry_millis = window_start + window_millis
+            if current_count + cost <= limit and previous_count > 0 then
+                retry_millis = window_start + (1 - (limit - cost - current_count) / previous_count) * window_millis
+            elseif current_count > 0 then
+                retry_millis = retry_millis + math.max(0, 1 - (limit - cost) / current_count) * window_millis
+            end
+            retry_after = math.max(1, math.ceil(retry_millis - current_millis))
+        end
+    elseif algorithm == 'gcra' then
+        local emission_interval = window_millis / limit
+        local tat = math.max(tonumber(redis.call('GET', key)) or current_millis, current_millis)
+        local allow_at = tat + emission_interval * cost - window_millis
+
+        remaining = math.max(0, math.floor((current_millis - (tat - window_millis)) / emission_interval))
+        reset_time = math.ceil(tat / 1000)
+        if current_millis < allow_at then
+            retry_after = math.ceil(allow_at - current_millis)
+        end
+    else
+        local window_start = current_millis - window_millis
+
+        -- Members in the window, plus the extra weight of weighted members still in it
+        local current_count = redis.call('ZCOUNT', key, '(' .. window_start, '+inf')
+        local extra = -(tonumber(redis.call('ZSCORE', key, '#w')) or 0)
+        if extra > 0 then
+            for _, member in ipairs(redis.call('ZRANGEBYSCORE', key, 0, window_start)) do
+                local weight = tonumber(string.match(member, '^#(%d+):'))
+                if weight then
+                    extra = extra - (weight - 1)
+                end
+            end
+            current_count = current_count + math.max(0, extra)
+        end
+
+        remaining = math.max(0, limit - current_count)
+        reset_time = math.floor((current_millis + window_millis) / 1000)
+        if current_count + cost > limit then
+            local oldest = redis.call('ZRANGEBYSCORE', key, '(' .. window_start, '+inf', 'WITHSCORES', 'LIMIT', 0, 1)
+            retry_after = window_millis
+            if oldest[2] then
+                retry_after = math.max(1, tonumber(oldest[2]) + window_millis - current_millis)
+            end
+        end
+    end
+
+    if retry_after > 0 then
+        return {0, i, 0, reset_time, retry_after}
+    end
+
+    if reset_time < earliest_reset then
+        earliest_reset = reset_time
+    end
+    if min_remaining == -1 or remaining < min_remaining then
+        min_remaining = remaining
+    end
+end
+
+return {1, 0, min_remaining, earliest_reset, 0}
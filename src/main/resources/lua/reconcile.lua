@@ -0,0 +1,127 @@
+-- Fallback Usage Reconciliation
+-- Adds the permits a LOCAL_CACHE fallback allowed while Redis was unavailable,
+-- so keys do not start from a clean slate when the circuit closes. Usage
+-- arrives aggregated per sub-window as (age, permits) pairs: the permits were
+-- taken age milliseconds before now. Ages rather than timestamps keep
+-- instance clock skew out of the state.
+--
+-- KEYS[1] = rate limit key
+-- ARGV[1] = algorithm (sliding_window_log, token_bucket, sliding_window_counter, gcra)
+-- ARGV[2] = limit
+-- ARGV[3] = window size in milliseconds
+-- ARGV[4] = TTL in seconds
+-- ARGV[5] = sliding window log member prefix (unique per instance and reconciliation)
+-- ARGV[6..] = pairs of (age_millis, permits), oldest first
+--
+-- Returns: {permits added} (permits that already left the window are skipped)
+
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+local key = KEYS[1]
+local algorithm = ARGV[1]
+local limit = tonumber(ARGV[2])
+local window_millis = tonumber(ARGV[3])
+local ttl_seconds = tonumber(ARGV[4])
+local prefix = ARGV[5]
+
+if algorithm == 'token_bucket' then
+    -- Replay the usage as a deficit that refills at the bucket's rate
+    local refill_rate = limit / window_millis
+    local deficit = 0
+    local last = nil
+    for i = 6, #ARGV, 2 do
+        local at = current_millis - tonumber(ARGV[i])
+        if last then
+            deficit = math.max(0, deficit - (at - last) * refill_rate)
+        end
+        deficit = deficit + tonumber(ARGV[i + 1])
+        last = at
+    end
+    if last then
+        deficit = math.min(limit, math.max(0, deficit - (current_millis - last) * refill_rate))
+    end
+    if deficit <= 0 then
+        return {0}
+    end
+
+    local state = redis.call('HMGET', key, 'tokens', 'ts')
+    local tokens = tonumber(state[1])
+    local last_refill = tonumber(state[2])
+    if tokens == nil or last_refill == nil then
+        tokens = limit
+        last_refill = current_millis
+    end
+    tokens = math.min(limit, tokens + math.max(0, current_millis - last_refill) * refill_rate)
+
+    local added = math.min(tokens, deficit)
+    redis.call('HSET', key, 'tokens', tostring(tokens - added), 'ts', current_millis)
+    redis.call('EXPIRE', key, ttl_seconds)
+    return {math.floor(added)}
+
+elseif algorithm == 'sliding_window_counter' then
+    -- Count the permits in their fixed windows; only the last two matter
+    local window_index = math.floor(current_millis / window_millis)
+    local added = 0
+    for i = 6, #ARGV, 2 do
+        local index = math.floor((current_millis - tonumber(ARGV[i])) / window_millis)
+        if index >= window_index - 1 then
+            local permits = tonumber(ARGV[i + 1])
+            redis.call('HINCRBY', key, tostring(index), permits)
+            added = added + permits
+        end
+    end
+    if added > 0 then
+        redis.call('EXPIRE', key, ttl_seconds + math.ceil(window_millis / 1000))
+    end
+    return {added}
+
+elseif algorithm == 'gcra' then
+    -- Replay the usage into its own arrival time; what is still ahead of now is debt
+    local emission_interval = window_millis / limit
+    local local_tat = nil
+    local added = 0
+    for i = 6, #ARGV, 2 do
+        local at = current_millis - tonumber(ARGV[i])
+        local permits = tonumber(ARGV[i + 1])
+        local_tat = math.max(local_tat or at, at) + emission_interval * permits
+        added = added + permits
+    end
+    if local_tat == nil or local_tat <= current_millis then
+        return {0}
+    end
+
+    local tat = math.max(tonumber(redis.call('GET', key)) or current_millis, current_millis)
+    local new_tat = math.min(tat + (local_tat - current_millis), current_millis + window_millis)
+    redis.call('SET', key, tostring(new_tat), 'PX', math.ceil(new_tat - current_millis))
+    return {added}
+
+else
+    -- Sliding window log: one (weighted) member per sub-window, at its timestamp
+    local window_start = current_millis - window_millis
+    local extra_added = 0
+    local added = 0
+    for i = 6, #ARGV, 2 do
+        local at = current_millis - tonumber(ARGV[i])
+        local permits = tonumber(ARGV[i + 1])
+        if at > window_start then
+            local member = prefix .. ':' .. i
+            if permits > 1 then
+                redis.call('ZADD', key, at, '#' .. permits .. ':' .. member)
+                extra_added = extra_added + permits - 1
+            else
+                redis.call('ZADD', key, at, member)
+            end
+            added = added + permits
+        end
+    end
+
+    if extra_added > 0 then
+        local extra = -(tonumber(redis.call('ZSCORE', key, '#w')) or 0) + extra_added
+        redis.call('ZADD', key, -extra, '#w')
+    end
+    if added > 0 then
+        redis.call('EXPIRE', key, ttl_seconds)
+    end
+    return {added}
+end
@@ -0,0 +1,98 @@
+-- Permit Refund
+-- Gives back permits consumed by reserved requests that were cancelled or
+-- failed fast. Refunds of several requests on the same key arrive together.
+--
+-- KEYS[1] = rate limit key
+-- ARGV[1] = algorithm (sliding_window_log, token_bucket, sliding_window_counter, gcra)
+-- ARGV[2] = limit
+-- ARGV[3] = window size in milliseconds
+-- ARGV[4] = TTL in seconds
+-- ARGV[5] = total permits to give back
+-- ARGV[6..] = sliding window log members to remove (weighted members "#N:<id>" count N)
+--
+-- Returns: number of permits given back (members that already left the window,
+-- or state that already expired, are not refunded)
+
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+local key = KEYS[1]
+local algorithm = ARGV[1]
+local limit = tonumber(ARGV[2])
+local window_millis = tonumber(ARGV[3])
+local ttl_seconds = tonumber(ARGV[4])
+local permits = tonumber(ARGV[5])
+
+if algorithm == 'token_bucket' then
+    local state = redis.call('HMGET', key, 'tokens', 'ts')
+    local tokens = tonumber(state[1])
+    local last_refill = tonumber(state[2])
+
+    -- A missing bucket is already full
+    if tokens == nil or last_refill == nil then
+        return {0}
+    end
+
+    tokens = tokens + math.max(0, current_millis - last_refill) * limit / window_millis
+    local refunded = math.max(0, math.min(permits, limit - tokens))
+    redis.call('HSET', key, 'tokens', tostring(tokens + refunded), 'ts', current_millis)
+    redis.call('EXPIRE', key, ttl_seconds)
+    return {math.floor(refunded)}
+
+elseif algorithm == 'sliding_window_counter' then
+    -- Take the permits back from the current window first, then from the previous one
+    local window_index = math.floor(current_millis / window_millis)
+    local current_field = tostring(window_index)
+    local previous_field = tostring(window_index - 1)
+    local counts = redis.call('HMGET', key, current_field, previous_field)
+    local current_count = tonumber(counts[1]) or 0
+    local previous_count = tonumber(counts[2]) or 0
+
+    local from_current = math.min(permits, current_count)
+    local from_previous = math.min(permits - from_current, previous_count)
+    if from_current > 0 then
+        redis.call('HINCRBY', key, current_field, -from_current)
+    end
+    if from_previous > 0 then
+        redis.call('HINCRBY', key, previous_field, -from_previous)
+    end
+    return {from_current + from_previous}
+
+elseif algorithm == 'gcra' then
+    local tat = tonumber(redis.call('GET', key))
+    if tat == nil or tat <= current_millis then
+        return {0}
+    end
+
+    -- Move the theoretical arrival time back, never before now
+    local new_tat = tat - window_millis / limit * permits
+    if new_tat <= current_millis then
+        redis.call('DEL', key)
+        return {math.floor((tat - current_millis) * limit / window_millis)}
+    end
+    redis.call('SET', key, tostring(new_tat), 'PX', math.ceil(new_tat - current_millis))
+    return {permits}
+
+else
+    -- Sliding window log: remove the members, keep the extra weight in step
+    local refunded = 0
+    local extra_removed = 0
+    for i = 6, #ARGV do
+        local member = ARGV[i]
+        if redis.call('ZREM', key, member) == 1 then
+            local weight = tonumber(string.match(member, '^#(%d+):')) or 1
+            refunded = refunded + weight
+            extra_removed = extra_removed + weight - 1
+        end
+    end
+
+    if extra_removed > 0 then
+        local extra = -(tonumber(redis.call('ZSCORE', key, '#w')) or 0) - extra_removed
+        if extra > 0 then
+            redis.call('ZADD', key, -extra, '#w')
+        else
+            redis.call('ZREM', key, '#w')
+        end
+    end
+    return {refunded}
+end
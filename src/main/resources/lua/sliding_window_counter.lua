@@ -0,0 +1,77 @@
+-- Sliding Window Counter Rate Limiting Algorithm (two-bucket approximation)
+-- Keeps two integer counters per key (current and previous fixed window) in a
+-- small hash and estimates the sliding window count as a weighted blend:
+--
+--   estimated = previous * (1 - elapsed_fraction_of_current_window) + current
+--
+-- Constant memory per key, at the cost of assuming requests in the previous
+-- window were evenly distributed.
+--
+-- KEYS[1] = rate limit key (e.g., "ratelimit:ip:192.168.1.1:60:swc")
+-- ARGV[1] = limit (max requests allowed)
+-- ARGV[2] = window size in milliseconds
+-- ARGV[3] = request ID (unused, kept for argument compatibility)
+-- ARGV[4] = TTL in seconds
+-- ARGV[5] = cost in permits (optional, default 1)
+--
+-- Returns: {allowed, remaining, reset_time, retry_after_ms}
+--   allowed: 1 if allowed, 0 if denied
+--   remaining: estimated number of requests remaining in window
+--   reset_time: Unix timestamp when the current fixed window ends (allowed)
+--               or when the estimate drops below the limit again (denied)
+--   retry_after_ms: estimated milliseconds until the next request is allowed (0 if allowed)
+
+-- Get current time from Redis server (avoids clock drift across app instances)
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+-- Parse arguments
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window_millis = tonumber(ARGV[2])
+local ttl_seconds = tonumber(ARGV[4])
+local cost = tonumber(ARGV[5]) or 1
+
+-- Fixed windows are identified by their index since the epoch
+local window_index = math.floor(current_millis / window_millis)
+local window_start = window_index * window_millis
+local current_field = tostring(window_index)
+local previous_field = tostring(window_index - 1)
+
+local counts = redis.call('HMGET', key, current_field, previous_field)
+local current_count = tonumber(counts[1]) or 0
+local previous_count = tonumber(counts[2]) or 0
+
+-- Weight the previous window by how much of it still overlaps the sliding window
+local elapsed_fraction = (current_millis - window_start) / window_millis
+local estimated = previous_count * (1 - elapsed_fraction) + current_count
+
+if estimated + cost <= limit then
+    -- ALLOWED: Increment the current window counter by the request's cost
+    redis.call('HINCRBY', key, current_field, cost)
+    
+    -- Drop the counter that no longer overlaps the sliding window
+    redis.call('HDEL', key, tostring(window_index - 2))
+    
+    -- The previous window is still needed during the next window
+    redis.call('EXPIRE', key, ttl_seconds + math.ceil(window_millis / 1000))
+    
+    local reset_time = math.floor((window_start + window_millis) / 1000)
+    return {1, math.floor(limit - estimated - cost), reset_time, 0}
+else
+    -- DENIED: Estimate when the weighted count leaves room for this request
+    local retry_millis
+    if current_count + cost <= limit and previous_count > 0 then
+        -- Within the current window, as the previous window's weight decays
+        local fraction = 1 - (limit - cost - current_count) / previous_count
+        retry_millis = window_start + fraction * window_millis
+    elseif current_count > 0 then
+        -- In the next window, as the current window's weight decays
+        local fraction = math.max(0, 1 - (limit - cost) / current_count)
+        retry_millis = window_start + window_millis + fraction * window_millis
+    else
+        retry_millis = window_start + window_millis
+    end
+    
+    return {0, 0, math.ceil(retry_millis / 1000), math.ceil(retry_millis - current_millis)}
+end
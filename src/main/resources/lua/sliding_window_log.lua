@@ -1,16 +1,23 @@
 -- Sliding Window Log Rate Limiting Algorithm
 -- This script atomically checks and updates rate limit state in Redis
--- 
+--
+-- A request costing N permits is stored as a single member "#N:<request_id>".
+-- The extra weight of all weighted members (sum of N - 1) is kept as the
+-- negated score of the '#w' member: the count is ZCARD plus that extra weight,
+-- and a negative score is never removed by the window trim.
+--
 -- KEYS[1] = rate limit key (e.g., "ratelimit:user:12345:60")
 -- ARGV[1] = limit (max requests allowed)
 -- ARGV[2] = window size in milliseconds
 -- ARGV[3] = request ID (UUID for uniqueness)
 -- ARGV[4] = TTL in seconds
+-- ARGV[5] = cost in permits (optional, default 1)
 --
--- Returns: {allowed, remaining, reset_time}
+-- Returns: {allowed, remaining, reset_time, retry_after_ms}
 --   allowed: 1 if allowed, 0 if denied
 --   remaining: number of requests remaining in window
 --   reset_time: Unix timestamp when window resets
+--   retry_after_ms: milliseconds until the oldest request leaves the window (0 if allowed)
 
 -- Get current time from Redis server (avoids clock drift across app instances)
 local current_time = redis.call('TIME')
@@ -22,33 +29,76 @@ local limit = tonumber(ARGV[1])
 local window_millis = tonumber(ARGV[2])
 local request_id = ARGV[3]
 local ttl_seconds = tonumber(ARGV[4])
+local cost = tonumber(ARGV[5]) or 1
 
 -- Calculate window boundaries
 local window_start = current_millis - window_millis
 
+-- Extra weight of the weighted members; subtract the weight of those about to expire
+local extra = -(tonumber(redis.call('ZSCORE', key, '#w')) or 0)
+local weighted = extra > 0
+if weighted then
+    for _, member in ipairs(redis.call('ZRANGEBYSCORE', key, 0, window_start)) do
+        local weight = tonumber(string.match(member, '^#(%d+):'))
+        if weight then
+            extra = extra - (weight - 1)
+        end
+    end
+end
+
 -- Remove expired entries (requests outside the sliding window)
 -- This keeps memory usage bounded
 redis.call('ZREMRANGEBYSCORE', key, 0, window_start)
 
 -- Count current requests in the window
-local current_count = redis.call('ZCARD', key)
+local current_count = redis.call('ZCARD', key) + extra
+if weighted then
+    current_count = current_count - 1
+end
 
 -- Calculate when the window resets (in seconds)
 local reset_time = math.floor((current_millis + window_millis) / 1000)
 
 -- Check if limit is exceeded
-if current_count < limit then
+if current_count + cost <= limit then
     -- ALLOWED: Add new request to sorted set with unique timestamp/counter
     -- Use request_id as member to ensure uniqueness
-    redis.call('ZADD', key, current_millis, request_id)
-    
+    if cost > 1 then
+        redis.call('ZADD', key, current_millis, '#' .. cost .. ':' .. request_id)
+        extra = extra + cost - 1
+    else
+        redis.call('ZADD', key, current_millis, request_id)
+    end
+
+    if extra > 0 then
+        redis.call('ZADD', key, -extra, '#w')
+    elseif weighted then
+        redis.call('ZREM', key, '#w')
+    end
+
     -- Set expiration to prevent memory leaks
     redis.call('EXPIRE', key, ttl_seconds)
-    
-    -- Return: [allowed=1, remaining, reset_time]
-    return {1, limit - current_count - 1, reset_time}
+
+    -- Return: [allowed=1, remaining, reset_time, retry_after_ms=0]
+    return {1, limit - current_count - cost, reset_time, 0}
 else
     -- DENIED: Limit exceeded
-    -- Return: [allowed=0, remaining=0, reset_time]
-    return {0, 0, reset_time}
+    -- Keep the extra weight in step with the trim
+    if weighted then
+        if extra > 0 then
+            redis.call('ZADD', key, -extra, '#w')
+        else
+            redis.call('ZREM', key, '#w')
+        end
+    end
+
+    -- A slot frees up when the oldest request in the window expires
+    local oldest = redis.call('ZRANGEBYSCORE', key, 0, '+inf', 'WITHSCORES', 'LIMIT', 0, 1)
+    local retry_after = window_millis
+    if oldest[2] then
+        retry_after = math.max(0, tonumber(oldest[2]) + window_millis - current_millis)
+    end
+
+    -- Return: [allowed=0, remaining=0, reset_time, retry_after_ms]
+    return {0, 0, reset_time, retry_after}
 end
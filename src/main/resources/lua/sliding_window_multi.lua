@@ -1,17 +1,23 @@
--- Multi-Dimension Sliding Window Log Rate Limiting
+-- Multi-Dimension Rate Limiting
 -- This script atomically checks ALL applicable rate limits before incrementing ANY counters
 -- This prevents partial increments when multiple dimensions are being checked
+-- Each dimension may use its own algorithm (sliding window log, token bucket,
+-- sliding window counter or GCRA)
 --
 -- KEYS[1..N] = rate limit keys (one per dimension)
 -- ARGV[1] = number of dimensions
--- ARGV[2..N] = triplets of (limit, window_millis, ttl_seconds) for each dimension
+-- ARGV[2..N] = quintuplets of (algorithm, limit, window_millis, ttl_seconds, cost) for each dimension
 -- ARGV[last] = request_id (UUID)
 --
--- Returns: {allowed, failed_dimension_index, remaining, reset_time}
+-- Weighted sliding window log entries use the encoding of sliding_window_log.lua:
+-- one member "#N:<id>" per request, extra weight in the '#w' member's negated score.
+--
+-- Returns: {allowed, failed_dimension_index, remaining, reset_time, retry_after_ms}
 --   allowed: 1 if all limits pass, 0 if any limit fails
 --   failed_dimension_index: index of first failed dimension (0 if all pass)
 --   remaining: minimum remaining across all dimensions
 --   reset_time: earliest reset time across all dimensions
+--   retry_after_ms: milliseconds until the failed dimension allows a request (0 if all pass)
 
 -- Get current time from Redis
 local current_time = redis.call('TIME')
@@ -21,43 +27,146 @@ local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(cu
 local num_dimensions = tonumber(ARGV[1])
 local request_id = ARGV[#ARGV]
 
+-- State computed in the first pass and written in the second
+local pending_tokens = {}       -- token bucket: tokens left after this request
+local pending_window_index = {} -- sliding window counter: current fixed window
+local pending_tat = {}          -- GCRA: new theoretical arrival time
+local pending_extra = {}        -- sliding window log: extra weight after expiry (nil if unweighted)
+
 -- First pass: CHECK all limits without modifying anything
 local min_remaining = -1
-local earliest_reset = current_millis + 86400000 -- 24 hours from now
+local earliest_reset = math.floor(current_millis / 1000) + 86400 -- 24 hours from now (seconds)
 
 for i = 1, num_dimensions do
     local key = KEYS[i]
-    
-    -- Calculate argument positions (limit, window_millis, ttl_seconds)
-    local arg_base = 2 + (i - 1) * 3
-    local limit = tonumber(ARGV[arg_base])
-    local window_millis = tonumber(ARGV[arg_base + 1])
-    local ttl_seconds = tonumber(ARGV[arg_base + 2])
-    
-    local window_start = current_millis - window_millis
-    
-    -- Remove expired entries
-    redis.call('ZREMRANGEBYSCORE', key, 0, window_start)
-    
-    -- Count current requests
-    local current_count = redis.call('ZCARD', key)
-    
-    -- Calculate reset time for this dimension
-    local reset_time = math.floor((current_millis + window_millis) / 1000)
-    
+
+    -- Calculate argument positions (algorithm, limit, window_millis, ttl_seconds, cost)
+    local arg_base = 2 + (i - 1) * 5
+    local algorithm = ARGV[arg_base]
+    local limit = tonumber(ARGV[arg_base + 1])
+    local window_millis = tonumber(ARGV[arg_base + 2])
+    local cost = tonumber(ARGV[arg_base + 4])
+
+    local remaining
+    local reset_time
+
+    if algorithm == 'token_bucket' then
+        local refill_rate = limit / window_millis
+
+        -- Load bucket state (missing key = full bucket) and refill
+        local state = redis.call('HMGET', key, 'tokens', 'ts')
+        local tokens = tonumber(state[1])
+        local last_refill = tonumber(state[2])
+        if tokens == nil or last_refill == nil then
+            tokens = limit
+            last_refill = current_millis
+        end
+        tokens = math.min(limit, tokens + math.max(0, current_millis - last_refill) * refill_rate)
+
+        if tokens < cost then
+            -- DENIED: Return immediately without incrementing anything
+            local retry_after = math.ceil((cost - tokens) / refill_rate)
+            return {0, i, 0, math.ceil((current_millis + retry_after) / 1000), retry_after}
+        end
+
+        pending_tokens[i] = tokens - cost
+        remaining = math.floor(tokens - cost)
+        reset_time = math.ceil((current_millis + (limit - tokens + cost) / refill_rate) / 1000)
+    elseif algorithm == 'sliding_window_counter' then
+        -- Weighted blend of the current and previous fixed window counters
+        local window_index = math.floor(current_millis / window_millis)
+        local window_start = window_index * window_millis
+        local counts = redis.call('HMGET', key, tostring(window_index), tostring(window_index - 1))
+        local current_count = tonumber(counts[1]) or 0
+        local previous_count = tonumber(counts[2]) or 0
+        local estimated = previous_count * (1 - (current_millis - window_start) / window_millis) + current_count
+
+        reset_time = math.floor((window_start + window_millis) / 1000)
+
+        if estimated + cost > limit then
+            -- DENIED: Return immediately without incrementing anything
+            -- (estimate when the decaying weight leaves room for this request)
+            local retry_millis = window_start + window_millis
+            if current_count + cost <= limit and previous_count > 0 then
+                retry_millis = window_start + (1 - (limit - cost - current_count) / previous_count) * window_millis
+            elseif current_count > 0 then
+                retry_millis = retry_millis + math.max(0, 1 - (limit - cost) / current_count) * window_millis
+            end
+            return {0, i, 0, math.ceil(retry_millis / 1000), math.ceil(retry_millis - current_millis)}
+        end
+
+        pending_window_index[i] = window_index
+        remaining = math.floor(limit - estimated - cost)
+    elseif algorithm == 'gcra' then
+        -- Theoretical arrival time, spaced by window / limit per request
+        local emission_interval = window_millis / limit
+        local tat = math.max(tonumber(redis.call('GET', key)) or current_millis, current_millis)
+        local new_tat = tat + emission_interval * cost
+        local allow_at = new_tat - window_millis
+
+        if current_millis < allow_at then
+            -- DENIED: Return immediately without incrementing anything
+            return {0, i, 0, math.ceil(tat / 1000), math.ceil(allow_at - current_millis)}
+        end
+
+        pending_tat[i] = new_tat
+        remaining = math.floor((current_millis - allow_at) / emission_interval)
+        reset_time = math.ceil(new_tat / 1000)
+    else
+        local window_start = current_millis - window_millis
+
+        -- Extra weight of weighted members, less the weight of those about to expire
+        local extra = -(tonumber(redis.call('ZSCORE', key, '#w')) or 0)
+        local weighted = extra > 0
+        if weighted then
+            for _, member in ipairs(redis.call('ZRANGEBYSCORE', key, 0, window_start)) do
+                local weight = tonumber(string.match(member, '^#(%d+):'))
+                if weight then
+                    extra = extra - (weight - 1)
+                end
+            end
+        end
+
+        -- Remove expired entries
+        redis.call('ZREMRANGEBYSCORE', key, 0, window_start)
+
+        -- Count current requests
+        local current_count = redis.call('ZCARD', key) + extra
+        if weighted then
+            current_count = current_count - 1
+
+            -- Keep the extra weight in step with the trim, whatever the outcome
+            if extra > 0 then
+                redis.call('ZADD', key, -extra, '#w')
+            else
+                redis.call('ZREM', key, '#w')
+            end
+        end
+
+        -- Calculate reset time for this dimension
+        reset_time = math.floor((current_millis + window_millis) / 1000)
+
+        -- Check if this dimension's limit is exceeded
+        if current_count + cost > limit then
+            -- DENIED: Return immediately without incrementing anything
+            local oldest = redis.call('ZRANGEBYSCORE', key, 0, '+inf', 'WITHSCORES', 'LIMIT', 0, 1)
+            local retry_after = window_millis
+            if oldest[2] then
+                retry_after = math.max(0, tonumber(oldest[2]) + window_millis - current_millis)
+            end
+            return {0, i, 0, reset_time, retry_after}
+        end
+
+        pending_extra[i] = extra
+        remaining = limit - current_count - cost
+    end
+
     -- Track earliest reset time
     if reset_time < earliest_reset then
         earliest_reset = reset_time
     end
-    
-    -- Check if this dimension's limit is exceeded
-    if current_count >= limit then
-        -- DENIED: Return immediately without incrementing anything
-        return {0, i, 0, reset_time}
-    end
-    
+
     -- Track minimum remaining
-    local remaining = limit - current_count - 1
     if min_remaining == -1 or remaining < min_remaining then
         min_remaining = remaining
     end
@@ -66,17 +175,40 @@ end
 -- Second pass: ALL limits passed - now increment ALL counters
 for i = 1, num_dimensions do
     local key = KEYS[i]
-    
+
     -- Calculate argument positions
-    local arg_base = 2 + (i - 1) * 3
-    local ttl_seconds = tonumber(ARGV[arg_base + 2])
-    
-    -- Add request to this dimension
-    redis.call('ZADD', key, current_millis, request_id .. ':' .. i)
-    
-    -- Set expiration
-    redis.call('EXPIRE', key, ttl_seconds)
+    local arg_base = 2 + (i - 1) * 5
+    local algorithm = ARGV[arg_base]
+    local ttl_seconds = tonumber(ARGV[arg_base + 3])
+    local cost = tonumber(ARGV[arg_base + 4])
+
+    if algorithm == 'token_bucket' then
+        -- Take the request's tokens from this dimension's bucket
+        redis.call('HSET', key, 'tokens', tostring(pending_tokens[i]), 'ts', current_millis)
+        redis.call('EXPIRE', key, ttl_seconds)
+    elseif algorithm == 'sliding_window_counter' then
+        -- Increment the current window and drop the one that no longer overlaps
+        local window_index = pending_window_index[i]
+        redis.call('HINCRBY', key, tostring(window_index), cost)
+        redis.call('HDEL', key, tostring(window_index - 2))
+
+        -- The previous window is still needed during the next window
+        redis.call('EXPIRE', key, ttl_seconds + math.ceil(tonumber(ARGV[arg_base + 2]) / 1000))
+    elseif algorithm == 'gcra' then
+        -- Advance the TAT; the key is worthless once the TAT has passed
+        local new_tat = pending_tat[i]
+        redis.call('SET', key, tostring(new_tat), 'PX', math.ceil(new_tat - current_millis))
+    else
+        -- Add request to this dimension
+        if cost > 1 then
+            redis.call('ZADD', key, current_millis, '#' .. cost .. ':' .. request_id .. ':' .. i)
+            redis.call('ZADD', key, -(pending_extra[i] + cost - 1), '#w')
+        else
+            redis.call('ZADD', key, current_millis, request_id .. ':' .. i)
+        end
+        redis.call('EXPIRE', key, ttl_seconds)
+    end
 end
 
 -- ALLOWED: All limits passed and all counters incremented
-return {1, 0, min_remaining, math.floor(earliest_reset / 1000)}
+return {1, 0, min_remaining, earliest_reset, 0}
@@ -0,0 +1,62 @@
+-- Token Bucket Rate Limiting Algorithm
+-- Keeps O(1) state per key: a hash with the current token count and the
+-- timestamp of the last refill. The bucket holds up to `limit` tokens and
+-- refills continuously at limit / window tokens per millisecond.
+--
+-- KEYS[1] = rate limit key (e.g., "ratelimit:apikey:abc123:60:tb")
+-- ARGV[1] = limit (bucket capacity)
+-- ARGV[2] = window size in milliseconds (time to refill an empty bucket)
+-- ARGV[3] = request ID (unused, kept for argument compatibility)
+-- ARGV[4] = TTL in seconds
+-- ARGV[5] = cost in tokens (optional, default 1)
+--
+-- Returns: {allowed, remaining, reset_time, retry_after_ms}
+--   allowed: 1 if allowed, 0 if denied
+--   remaining: whole tokens left in the bucket
+--   reset_time: Unix timestamp when the bucket is full again (allowed)
+--               or when the next token is available (denied)
+--   retry_after_ms: milliseconds until enough tokens are available (0 if allowed)
+
+-- Get current time from Redis server (avoids clock drift across app instances)
+local current_time = redis.call('TIME')
+local current_millis = tonumber(current_time[1]) * 1000 + math.floor(tonumber(current_time[2]) / 1000)
+
+-- Parse arguments
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window_millis = tonumber(ARGV[2])
+local ttl_seconds = tonumber(ARGV[4])
+local cost = tonumber(ARGV[5]) or 1
+
+local refill_rate = limit / window_millis  -- tokens per millisecond
+
+-- Load bucket state (missing key = full bucket)
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local last_refill = tonumber(state[2])
+
+if tokens == nil or last_refill == nil then
+    tokens = limit
+    last_refill = current_millis
+end
+
+-- Refill tokens for the time elapsed since the last update
+local elapsed = math.max(0, current_millis - last_refill)
+tokens = math.min(limit, tokens + elapsed * refill_rate)
+
+if tokens >= cost then
+    -- ALLOWED: Take the request's tokens and persist the new state
+    tokens = tokens - cost
+    redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', current_millis)
+    
+    -- An idle bucket is full again after one window, so the key can expire
+    redis.call('EXPIRE', key, ttl_seconds)
+    
+    local reset_time = math.ceil((current_millis + (limit - tokens) / refill_rate) / 1000)
+    return {1, math.floor(tokens), reset_time, 0}
+else
+    -- DENIED: Not enough tokens, state is left untouched
+    local retry_after = math.ceil((cost - tokens) / refill_rate)
+    local reset_time = math.ceil((current_millis + retry_after) / 1000)
+    return {0, 0, reset_time, retry_after}
+end
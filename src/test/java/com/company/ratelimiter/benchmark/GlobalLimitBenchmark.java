@@ -0,0 +1,111 @@
+package com.company.ratelimiter.benchmark;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a GLOBAL rule split over K sub-keys.
+ *
+ * Runs the sharded executor over the Redis nodes listed in
+ * {@code -Dbenchmark.redis.ports} (default 6380), so sub-keys are spread over
+ * the nodes by consistent hashing. With K=1 every check hits one key on one
+ * node; throughput should grow with K up to the number of nodes.
+ *
+ * Run: mvn test-compile, then
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.company.ratelimiter.benchmark.GlobalLimitBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(32)
+public class GlobalLimitBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int subKeys;
+
+    private ConfigurableApplicationContext context;
+    private RateLimiterService rateLimiterService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> properties = new ArrayList<>(List.of(
+            "ratelimiter.executor-mode=SHARDED",
+            "ratelimiter.redis.timeout=1s",
+            "ratelimiter.global-sharding.enabled=true",
+            "ratelimiter.global-sharding.sub-keys=" + subKeys,
+            "logging.level.root=WARN",
+            "logging.level.com.company.ratelimiter=WARN"));
+
+        String[] ports = System.getProperty("benchmark.redis.ports", "6380").split(",");
+        for (int i = 0; i < ports.length; i++) {
+            properties.add("ratelimiter.redis.shards[" + i + "].name=node-" + i);
+            properties.add("ratelimiter.redis.shards[" + i + "].port=" + ports[i].trim());
+        }
+
+        context = new SpringApplicationBuilder(RateLimiterApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(properties.toArray(new String[0]))
+            .run();
+
+        // Only the global rule; high enough that every check is allowed
+        context.getBean(RateLimitStrategyResolver.class).registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.GLOBAL)
+                .limit(1_000_000_000L)
+                .window(Duration.ofSeconds(60))
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build()));
+
+        rateLimiterService = context.getBean(RateLimiterService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RateLimitDecision globalCheck() {
+        return rateLimiterService.evaluateRateLimit(RateLimitContext.builder().build());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(GlobalLimitBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
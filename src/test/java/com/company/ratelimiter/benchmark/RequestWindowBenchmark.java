@@ -0,0 +1,116 @@
+package com.company.ratelimiter.benchmark;
+
+import com.company.ratelimiter.fallback.RequestWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LOCAL_CACHE fallback check on one hot key: ring of sub-window counters vs.
+ * the previous timestamp map.
+ *
+ * A simulated clock spaces {@code requestsPerWindow} requests evenly over a
+ * 60s window, so after warm-up the window holds that many requests (at most
+ * one map entry per millisecond for the timestamp map).
+ *
+ * Run: mvn test-compile, then
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.company.ratelimiter.benchmark.RequestWindowBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestWindowBenchmark {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    @Param({"1000", "10000", "100000"})
+    public int requestsPerWindow;
+
+    private long limit;
+    private long request;
+    private RequestWindow ring;
+    private TimestampMapWindow timestampMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limit = requestsPerWindow + 1L;
+        ring = new RequestWindow(WINDOW_MILLIS);
+        timestampMap = new TimestampMapWindow();
+
+        // Fill one window so measurements start in steady state
+        for (request = 0; request < requestsPerWindow; request++) {
+            ring.tryAcquire(now(), 1, limit);
+            timestampMap.tryAcquire(now(), WINDOW_MILLIS, 1, limit);
+        }
+    }
+
+    @Benchmark
+    public long ringBuffer() {
+        request++;
+        return ring.tryAcquire(now(), 1, limit);
+    }
+
+    @Benchmark
+    public long timestampMap() {
+        request++;
+        return timestampMap.tryAcquire(now(), WINDOW_MILLIS, 1, limit);
+    }
+
+    private long now() {
+        return request * WINDOW_MILLIS / requestsPerWindow;
+    }
+
+    /**
+     * The fallback window before the ring: permits per timestamp in a map,
+     * trimmed and summed on every check
+     */
+    static class TimestampMapWindow {
+
+        private final ConcurrentHashMap<Long, AtomicLong> timestamps = new ConcurrentHashMap<>();
+
+        long tryAcquire(long currentMillis, long windowMillis, long permits, long limit) {
+            synchronized (this) {
+                long windowStart = currentMillis - windowMillis;
+                timestamps.entrySet().removeIf(entry -> entry.getKey() < windowStart);
+
+                long currentCount = timestamps.values().stream()
+                    .mapToLong(AtomicLong::get)
+                    .sum();
+
+                if (currentCount + permits > limit) {
+                    // Denials also scanned for the oldest timestamp (reset time)
+                    long oldest = timestamps.keySet().stream().min(Long::compare).orElse(currentMillis);
+                    return oldest < 0 ? oldest : -1;
+                }
+
+                timestamps.computeIfAbsent(currentMillis, k -> new AtomicLong(0)).addAndGet(permits);
+                return limit - currentCount - permits;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(RequestWindowBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,167 @@
+package com.company.ratelimiter.benchmark;
+
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule resolution: compiled rule index vs. the previous per-context cache.
+ *
+ * Requests come from {@code distinctUsers} users; with many users the
+ * per-context cache misses on almost every request and takes the rules lock.
+ *
+ * Run: mvn test-compile, then
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.company.ratelimiter.benchmark.RuleResolverBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RuleResolverBenchmark {
+
+    @Param({"100", "1000000"})
+    public int distinctUsers;
+
+    private String[] users;
+    private RateLimitStrategyResolver compiledResolver;
+    private CachedRuleResolver cachedResolver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<RateLimitRule> rules = List.of(
+            rule(RateLimitDimension.USER, 100, null, 1),
+            rule(RateLimitDimension.USER, 1000, "premium-user-1", 0),
+            rule(RateLimitDimension.IP, 1000, null, 2),
+            rule(RateLimitDimension.API_KEY, 5000, null, 3),
+            rule(RateLimitDimension.TENANT, 20000, null, 4),
+            rule(RateLimitDimension.GLOBAL, 1_000_000, null, 100));
+
+        compiledResolver = new RateLimitStrategyResolver();
+        compiledResolver.registerRules(rules);
+        cachedResolver = new CachedRuleResolver(rules);
+
+        users = new String[distinctUsers];
+        for (int i = 0; i < distinctUsers; i++) {
+            users[i] = "user-" + i;
+        }
+    }
+
+    @Benchmark
+    public List<RateLimitRule> compiledIndex() {
+        return compiledResolver.resolveRules(nextContext());
+    }
+
+    @Benchmark
+    public List<RateLimitRule> perContextCache() {
+        return cachedResolver.resolveRules(nextContext());
+    }
+
+    private RateLimitContext nextContext() {
+        return RateLimitContext.builder()
+            .requestId("bench")
+            .userId(users[ThreadLocalRandom.current().nextInt(users.length)])
+            .ipAddress("10.0.0.1")
+            .requestUri("/api/demo/hello")
+            .build();
+    }
+
+    private static RateLimitRule rule(RateLimitDimension dimension, long limit, String identifier, int priority) {
+        return RateLimitRule.builder()
+            .dimension(dimension)
+            .limit(limit)
+            .window(Duration.ofSeconds(60))
+            .algorithm(RateLimitAlgorithm.SLIDING_WINDOW_LOG)
+            .identifier(identifier)
+            .priority(priority)
+            .build();
+    }
+
+    /**
+     * The resolver before the compiled index: 1000-entry per-context cache over a locked rule list
+     */
+    static class CachedRuleResolver {
+
+        private final List<RateLimitRule> globalRules = new ArrayList<>();
+        private final Cache<String, List<RateLimitRule>> ruleCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(60, TimeUnit.SECONDS)
+            .build();
+
+        CachedRuleResolver(List<RateLimitRule> rules) {
+            globalRules.addAll(rules);
+            globalRules.sort(Comparator.comparingInt(RateLimitRule::getPriority));
+        }
+
+        List<RateLimitRule> resolveRules(RateLimitContext context) {
+            return ruleCache.get(buildCacheKey(context), k -> {
+                List<RateLimitRule> applicableRules = new ArrayList<>();
+                synchronized (globalRules) {
+                    for (RateLimitRule rule : globalRules) {
+                        if (rule.isEnabled()
+                                && context.hasIdentifier(rule.getDimension())
+                                && rule.appliesTo(context.getIdentifier(rule.getDimension()))) {
+                            applicableRules.add(rule);
+                        }
+                    }
+                }
+                return applicableRules;
+            });
+        }
+
+        private String buildCacheKey(RateLimitContext context) {
+            StringBuilder key = new StringBuilder();
+            if (context.getUserId() != null) {
+                key.append("U:").append(context.getUserId()).append("|");
+            }
+            if (context.getIpAddress() != null) {
+                key.append("IP:").append(context.getIpAddress()).append("|");
+            }
+            if (context.getApiKey() != null) {
+                key.append("API:").append(context.getApiKey()).append("|");
+            }
+            if (context.getTenantId() != null) {
+                key.append("T:").append(context.getTenantId()).append("|");
+            }
+            if (context.getRequestUri() != null) {
+                key.append("EP:").append(context.getRequestUri());
+            }
+            return key.length() > 0 ? key.toString() : "EMPTY";
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(RuleResolverBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
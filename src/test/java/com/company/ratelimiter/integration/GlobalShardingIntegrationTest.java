@@ -0,0 +1,158 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.executor.GlobalLimitSharder;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Integration tests for GLOBAL rules spread over sub-keys.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s",
+    "ratelimiter.global-sharding.enabled=true",
+    "ratelimiter.global-sharding.sub-keys=4",
+    "ratelimiter.global-sharding.rebalance-interval=1h",  // Rebalanced explicitly
+    "ratelimiter.global-sharding.min-share=0.25"
+})
+class GlobalShardingIntegrationTest {
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private GlobalLimitSharder globalSharder;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+        globalSharder.rebalance();  // No demand recorded yet: back to equal shares
+
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.GLOBAL)
+                .limit(40)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build()
+        ));
+    }
+
+    @Test
+    void testGlobalLimitIsSplitOverSubKeys() {
+        int allowed = 0;
+        for (int i = 0; i < 200; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(RateLimitContext.builder().build());
+            assertThat(decision.isFromFallback()).isFalse();
+            if (decision.isAllowed()) {
+                allowed++;
+            }
+        }
+
+        // Four sub-keys of 10 each; 200 requests fill all of them
+        assertThat(allowed).isEqualTo(40);
+        assertThat(redisTemplate.keys("ratelimit:global:global#*")).hasSize(4);
+    }
+
+    @Test
+    void testSharesFollowDemand() {
+        long interval = System.currentTimeMillis() / Duration.ofHours(1).toMillis();
+        redisTemplate.opsForHash().putAll("ratelimit:global:demand:" + (interval - 1), Map.of("0", "300", "1", "100"));
+
+        globalSharder.rebalance();
+
+        // Each share keeps 25% of an equal share; the rest follows demand
+        double[] shares = globalSharder.getShares();
+        assertThat(shares[0]).isCloseTo(0.0625 + 0.75 * 0.75, within(1e-9));
+        assertThat(shares[1]).isCloseTo(0.0625 + 0.75 * 0.25, within(1e-9));
+        assertThat(shares[2]).isCloseTo(0.0625, within(1e-9));
+        assertThat(shares[3]).isCloseTo(0.0625, within(1e-9));
+    }
+
+    @Test
+    void testSubKeyLimitsAddUpToLimit() {
+        registerGlobalRule(5);
+
+        int allowed = 0;
+        for (int i = 0; i < 200; i++) {
+            if (rateLimiterService.evaluateRateLimit(RateLimitContext.builder().build()).isAllowed()) {
+                allowed++;
+            }
+        }
+
+        // Largest-remainder split 2/1/1/1, not one permit floor per sub-key on top
+        assertThat(allowed).isEqualTo(5);
+    }
+
+    @Test
+    void testLimitBelowSubKeysStaysUnsharded() {
+        registerGlobalRule(3);
+
+        int allowed = 0;
+        for (int i = 0; i < 50; i++) {
+            if (rateLimiterService.evaluateRateLimit(RateLimitContext.builder().build()).isAllowed()) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(3);
+        assertThat(redisTemplate.keys("ratelimit:global:global#*")).isEmpty();
+    }
+
+    @Test
+    void testPeeksDoNotCountAsDemand() {
+        for (int i = 0; i < 50; i++) {
+            rateLimiterService.peek(RateLimitContext.builder().build());
+        }
+
+        globalSharder.rebalance();
+
+        long interval = System.currentTimeMillis() / Duration.ofHours(1).toMillis();
+        assertThat(redisTemplate.opsForHash().entries("ratelimit:global:demand:" + interval)).isEmpty();
+    }
+
+    private void registerGlobalRule(long limit) {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.GLOBAL)
+                .limit(limit)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build()
+        ));
+    }
+}
@@ -0,0 +1,139 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the LEASING executor mode.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s",
+    "ratelimiter.executor-mode=LEASING",
+    "ratelimiter.leasing.lease-ttl=5s"
+})
+class LeasingRateLimitExecutorIntegrationTest {
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+    }
+
+    @Test
+    void testHotKeyServedFromLeases() {
+        registerUserRule(1000);
+        resetCommandStats();
+
+        for (int i = 0; i < 200; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId("hot-user").build());
+            assertThat(decision.isAllowed()).isTrue();
+        }
+
+        // Leases of 5-10% of the limit: a handful of Redis calls for 200 requests
+        assertThat(scriptInvocations()).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void testLeasesNeverExceedLimit() {
+        registerUserRule(20);
+
+        long allowed = 0;
+        for (int i = 0; i < 30; i++) {
+            if (rateLimiterService.evaluateRateLimit(
+                    RateLimitContext.builder().userId("bounded-user").build()).isAllowed()) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(20);
+    }
+
+    @Test
+    void testAsyncChecksRenewLeasesWithoutExceedingLimit() {
+        registerUserRule(20);
+
+        List<CompletableFuture<RateLimitDecision>> checks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            checks.add(rateLimiterService.evaluateRateLimitAsync(
+                RateLimitContext.builder().userId("async-user").build()).toCompletableFuture());
+        }
+
+        long allowed = checks.stream().map(CompletableFuture::join).filter(RateLimitDecision::isAllowed).count();
+        assertThat(allowed).isEqualTo(20);
+        assertThat(checks.stream().map(CompletableFuture::join).noneMatch(RateLimitDecision::isFromFallback)).isTrue();
+    }
+
+    private void registerUserRule(long limit) {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(limit)
+                .window(Duration.ofSeconds(60))
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build()
+        ));
+    }
+
+    private void resetCommandStats() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().resetConfigStats();
+            return null;
+        });
+    }
+
+    private long scriptInvocations() {
+        Properties stats = redisTemplate.execute(
+            (RedisCallback<Properties>) connection -> connection.serverCommands().info("commandstats"));
+        return callCount(stats, "cmdstat_eval") + callCount(stats, "cmdstat_evalsha");
+    }
+
+    private long callCount(Properties stats, String command) {
+        String value = stats.getProperty(command);
+        if (value == null) {
+            return 0;
+        }
+        String calls = value.split(",")[0];
+        return Long.parseLong(calls.substring(calls.indexOf('=') + 1));
+    }
+}
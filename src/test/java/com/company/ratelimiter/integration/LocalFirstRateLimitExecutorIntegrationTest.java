@@ -0,0 +1,245 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the LOCAL_FIRST executor mode.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s",
+    "ratelimiter.executor-mode=LOCAL_FIRST",
+    "ratelimiter.local-first.sync-interval=500ms",
+    "ratelimiter.local-first.max-staleness=5s",
+    "ratelimiter.local-first.view-refresh-interval=1s",
+    "ratelimiter.local-first.max-unsynced-fraction=0.1",
+    "ratelimiter.local-first.dimensions=USER"
+})
+class LocalFirstRateLimitExecutorIntegrationTest {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+    }
+
+    @Test
+    void testLocalDecisionsAreWrittenBehind() throws InterruptedException {
+        registerUserRule(1000);
+
+        for (int i = 0; i < 50; i++) {
+            RateLimitDecision decision = evaluate("writer");
+            assertThat(decision.isAllowed()).isTrue();
+        }
+
+        // Counted as a sliding window counter, whatever the rule's algorithm
+        assertThat(eventually(() -> fleetCount("writer") == 50)).isTrue();
+    }
+
+    @Test
+    void testUnsyncedPermitsAreBounded() {
+        registerUserRule(100);
+
+        long allowed = 0;
+        RateLimitDecision denied = null;
+        for (int i = 0; i < 30; i++) {
+            RateLimitDecision decision = evaluate("bursty");
+            if (decision.isAllowed()) {
+                allowed++;
+            } else if (denied == null) {
+                denied = decision;
+            }
+        }
+
+        // 10% of the limit per fleet view; a sync during the burst may allow one more share
+        assertThat(allowed).isBetween(10L, 20L);
+        assertThat(denied).isNotNull();
+        assertThat(denied.getRetryAfterMillis()).isBetween(1L, 500L);
+    }
+
+    @Test
+    void testFleetTotalsAreMergedIntoLocalView() throws InterruptedException {
+        registerUserRule(100);
+        // Stay within one window: after a boundary the fleet count would be weighted down
+        if (redisMillis() % WINDOW_MILLIS > WINDOW_MILLIS - 5000) {
+            Thread.sleep(5000);
+        }
+        assertThat(evaluate("shared").isAllowed()).isTrue();
+        assertThat(eventually(() -> fleetCount("shared") == 1)).isTrue();
+
+        // Other instances admitted 95 permits in the current window
+        long index = redisMillis() / WINDOW_MILLIS;
+        redisTemplate.opsForHash().increment(redisKey("shared"), String.valueOf(index), 95);
+        Thread.sleep(2200);
+
+        long allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (evaluate("shared").isAllowed()) {
+                allowed++;
+            }
+        }
+        // 96 of 100 used fleet-wide; without the merged view, 10 would be allowed
+        assertThat(allowed).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void testAsyncCheckGivesBackLocalPermitsWhenRedisDenies() throws InterruptedException {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(100)
+                .window(Duration.ofMillis(WINDOW_MILLIS))
+                .priority(1)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.IP)
+                .limit(3)
+                .window(Duration.ofMillis(WINDOW_MILLIS))
+                .priority(2)
+                .build()
+        ));
+
+        long allowed = 0;
+        for (int i = 0; i < 5; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimitAsync(
+                RateLimitContext.builder().userId("mixed").ipAddress("10.0.0.9").build())
+                .toCompletableFuture().join();
+            assertThat(decision.isFromFallback()).isFalse();
+            if (decision.isAllowed()) {
+                allowed++;
+            }
+        }
+
+        // IP is checked in Redis; user permits of the denied requests are given back before syncing
+        assertThat(allowed).isEqualTo(3);
+        assertThat(redisTemplate.opsForZSet().zCard("ratelimit:ip:10.0.0.9:60")).isEqualTo(3);
+        assertThat(eventually(() -> fleetCount("mixed") == 3)).isTrue();
+    }
+
+    @Test
+    void testOvershootIsRecordedOncePerWindow() throws InterruptedException {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(10)
+                .window(Duration.ofSeconds(2))
+                .build()
+        ));
+        DistributionSummary overshoot = meterRegistry.get("ratelimiter.localfirst.overshoot").summary();
+        long before = overshoot.count();
+
+        assertThat(evaluate("over").isAllowed()).isTrue();
+        // Start of a window, so every sync in it sees the excess
+        assertThat(eventually(() -> redisMillis() % 2000 < 200)).isTrue();
+        long index = redisMillis() / 2000;
+        redisTemplate.opsForHash().increment("ratelimit:user:over:2:swc", String.valueOf(index), 15);
+
+        // Several syncs per window see the excess; each window's maximum is recorded once it ends
+        Thread.sleep(4500);
+        assertThat(overshoot.count() - before).isBetween(1L, 2L);
+        assertThat(overshoot.max()).isGreaterThanOrEqualTo(5.0);
+    }
+
+    @Test
+    void testQuietKeysAreNotSyncedEveryRound() throws InterruptedException {
+        registerUserRule(100);
+        Counter syncs = meterRegistry.get("ratelimiter.localfirst.syncs").tag("result", "ok").counter();
+        double before = syncs.count();
+
+        int requests = 50;
+        for (int i = 0; i < requests; i++) {
+            assertThat(evaluate("quiet-" + i).isAllowed()).isTrue();
+        }
+        Thread.sleep(2800);
+
+        // One sync with the delta, then a re-read per view-refresh-interval; every 500ms round would be 6
+        double callsPerRequest = (syncs.count() - before) / requests;
+        assertThat(callsPerRequest).isBetween(1.0, 3.0);
+    }
+
+    private RateLimitDecision evaluate(String userId) {
+        return rateLimiterService.evaluateRateLimit(RateLimitContext.builder().userId(userId).build());
+    }
+
+    private void registerUserRule(long limit) {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(limit)
+                .window(Duration.ofMillis(WINDOW_MILLIS))
+                .algorithm(RateLimitAlgorithm.SLIDING_WINDOW_LOG)
+                .build()
+        ));
+    }
+
+    private String redisKey(String userId) {
+        return "ratelimit:user:" + userId + ":60:swc";
+    }
+
+    private long fleetCount(String userId) {
+        return redisTemplate.opsForHash().values(redisKey(userId)).stream()
+            .mapToLong(value -> Long.parseLong(value.toString()))
+            .sum();
+    }
+
+    private long redisMillis() {
+        Long time = redisTemplate.execute((RedisCallback<Long>) connection -> connection.serverCommands().time());
+        return time == null ? System.currentTimeMillis() : time;
+    }
+
+    private boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 40; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+}
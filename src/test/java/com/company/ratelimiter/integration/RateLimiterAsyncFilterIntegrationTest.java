@@ -0,0 +1,157 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for RateLimiterFilter in ASYNC filter mode, on a real
+ * servlet container so that async dispatches go through the filter chain.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s",
+    "ratelimiter.filter-mode=ASYNC"
+})
+class RateLimiterAsyncFilterIntegrationTest {
+
+    private static final String REQUEST_FILTER_HEADER = "X-Request-Filter";
+
+    @TestConfiguration
+    static class RequestOnlyFilterConfig {
+
+        /**
+         * Filter after the rate limiter, registered for REQUEST dispatches only
+         */
+        @Bean
+        FilterRegistrationBean<Filter> requestOnlyFilter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                ((HttpServletResponse) response).setHeader(REQUEST_FILTER_HEADER, "ran");
+                chain.doFilter(request, response);
+            });
+            registration.setDispatcherTypes(DispatcherType.REQUEST);
+            registration.setOrder(0);
+            return registration;
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(5)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build()
+        ));
+    }
+
+    @Test
+    void testAllowedRequestsResumeChainWithHeaders() {
+        for (int i = 0; i < 5; i++) {
+            ResponseEntity<String> response = hello("async-user");
+
+            assertThat(response.getStatusCode().value()).isEqualTo(200);
+            assertThat(response.getBody()).contains("Hello from rate-limited API!");
+            assertThat(response.getHeaders().getFirst("X-RateLimit-Limit")).isEqualTo("5");
+            assertThat(response.getHeaders().getFirst("X-RateLimit-Remaining")).isEqualTo(String.valueOf(4 - i));
+        }
+    }
+
+    @Test
+    void testDeniedRequestWritesTooManyRequests() {
+        for (int i = 0; i < 5; i++) {
+            hello("async-denied-user");
+        }
+
+        ResponseEntity<String> response = hello("async-denied-user");
+
+        assertThat(response.getStatusCode().value()).isEqualTo(429);
+        assertThat(response.getBody()).contains("Rate limit exceeded");
+        assertThat(response.getHeaders().getFirst("Retry-After")).isNotNull();
+    }
+
+    @Test
+    void testConcurrentAsyncRequestsEnforceLimit() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(10);
+        try {
+            List<CompletableFuture<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                statuses.add(CompletableFuture.supplyAsync(
+                    () -> hello("async-concurrent-user").getStatusCode().value(), clients));
+            }
+
+            long allowed = statuses.stream().map(CompletableFuture::join).filter(s -> s == 200).count();
+            long denied = statuses.stream().map(CompletableFuture::join).filter(s -> s == 429).count();
+
+            assertThat(allowed).isEqualTo(5);
+            assertThat(denied).isEqualTo(15);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    void testRequestOnlyDownstreamFilterDoesNotRun() {
+        ResponseEntity<String> response = hello("async-request-filter-user");
+
+        // The chain after the rate limiter runs on the ASYNC dispatch only
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getFirst(REQUEST_FILTER_HEADER)).isNull();
+    }
+
+    private ResponseEntity<String> hello(String userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-User-Id", userId);
+        return restTemplate.exchange("/api/demo/hello", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
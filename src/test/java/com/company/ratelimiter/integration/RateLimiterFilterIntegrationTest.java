@@ -0,0 +1,241 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Integration tests for the servlet filter.
+ * Verifies that each request costs exactly one Redis script invocation.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s",
+    "ratelimiter.batch-endpoint.enabled=true"
+})
+class RateLimiterFilterIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(5)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build(),
+
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.IP)
+                .limit(50)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .build()
+        ));
+    }
+
+    @Test
+    void testSingleScriptInvocationPerAllowedRequest() throws Exception {
+        // Warm up so the script is already cached on the server (EVALSHA hit)
+        mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "warmup-user"));
+        resetCommandStats();
+
+        MvcResult result = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "filter-user"))
+            .andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(scriptInvocations()).isEqualTo(1);
+
+        // Headers come from the one decision: only a single permit was consumed
+        assertThat(result.getResponse().getHeader("X-RateLimit-Limit")).isEqualTo("5");
+        assertThat(result.getResponse().getHeader("X-RateLimit-Remaining")).isEqualTo("4");
+        assertThat(Long.parseLong(result.getResponse().getHeader("X-RateLimit-Reset")))
+            .isGreaterThan(Instant.now().getEpochSecond());
+    }
+
+    @Test
+    void testSingleScriptInvocationPerDeniedRequest() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MvcResult result = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "denied-user"))
+                .andReturn();
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            assertThat(result.getResponse().getHeader("X-RateLimit-Remaining")).isEqualTo(String.valueOf(4 - i));
+        }
+        resetCommandStats();
+
+        MvcResult result = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "denied-user"))
+            .andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(429);
+        assertThat(scriptInvocations()).isEqualTo(1);
+    }
+
+    @Test
+    void testDeniedKeyAnsweredFromDenyCache() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "cached-user"));
+        }
+        resetCommandStats();
+
+        // Still within the window: the known-denied key never reaches Redis
+        for (int i = 0; i < 10; i++) {
+            MvcResult result = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "cached-user"))
+                .andReturn();
+            assertThat(result.getResponse().getStatus()).isEqualTo(429);
+            assertThat(Long.parseLong(result.getResponse().getHeader("Retry-After"))).isBetween(1L, 60L);
+        }
+        assertThat(scriptInvocations()).isZero();
+
+        // Other users are unaffected
+        MvcResult other = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "other-user"))
+            .andReturn();
+        assertThat(other.getResponse().getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void testRaisedLimitClearsCachedDenials() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "upgraded-user"));
+        }
+        MvcResult denied = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "upgraded-user"))
+            .andReturn();
+        assertThat(denied.getResponse().getStatus()).isEqualTo(429);
+
+        // Premium override: same key, higher limit
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(20)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build()
+        ));
+
+        MvcResult result = mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "upgraded-user"))
+            .andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getHeader("X-RateLimit-Limit")).isEqualTo("20");
+    }
+
+    @Test
+    void testBatchEndpointPipelinesOneScriptPerRequest() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 6; i++) {
+            body.append(i > 0 ? "," : "").append("{\"userId\":\"batch-user\",\"ipAddress\":\"10.9.0.1\"}");
+        }
+        body.append("]");
+        mockMvc.perform(get("/api/demo/hello").header("X-User-Id", "warmup-user"));
+        resetCommandStats();
+
+        MvcResult pending = mockMvc.perform(post("/ratelimiter/evaluate")
+                .header("X-User-Id", "gateway")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString()))
+            .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(pending)).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        String json = result.getResponse().getContentAsString();
+        assertThat(json).startsWith("{\"results\":[[1,5,4,");
+        assertThat(json).contains("[0,5,0,").endsWith(",\"user\"]]}");
+
+        // The gateway's own request plus one script per item
+        assertThat(scriptInvocations()).isEqualTo(7);
+    }
+
+    @Test
+    void testBatchEndpointRejectsInvalidItems() throws Exception {
+        List<String> invalidItems = new ArrayList<>();
+        for (String cost : List.of("0", "-5", "1001", String.valueOf(Long.MAX_VALUE))) {
+            invalidItems.add("{\"userId\":\"cost-user\",\"cost\":" + cost + "}");
+        }
+        invalidItems.add("null");
+
+        for (String item : invalidItems) {
+            MvcResult pending = mockMvc.perform(post("/ratelimiter/evaluate")
+                    .header("X-User-Id", "gateway")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"userId\":\"cost-user\"}," + item + "]"))
+                .andReturn();
+            MvcResult result = pending.getRequest().isAsyncStarted()
+                ? mockMvc.perform(asyncDispatch(pending)).andReturn()
+                : pending;
+
+            assertThat(result.getResponse().getStatus()).isEqualTo(400);
+        }
+
+        // No item of a rejected batch was evaluated
+        assertThat(redisTemplate.hasKey("ratelimit:user:cost-user:60")).isFalse();
+    }
+
+    private void resetCommandStats() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().resetConfigStats();
+            return null;
+        });
+    }
+
+    /**
+     * Count EVAL + EVALSHA calls recorded by the Redis server
+     */
+    private long scriptInvocations() {
+        Properties stats = redisTemplate.execute(
+            (RedisCallback<Properties>) connection -> connection.serverCommands().info("commandstats"));
+        return callCount(stats, "cmdstat_eval") + callCount(stats, "cmdstat_evalsha");
+    }
+
+    private long callCount(Properties stats, String command) {
+        String value = stats.getProperty(command);
+        if (value == null) {
+            return 0;
+        }
+        // Format: calls=N,usec=...,usec_per_call=...
+        String calls = value.split(",")[0];
+        return Long.parseLong(calls.substring(calls.indexOf('=') + 1));
+    }
+}
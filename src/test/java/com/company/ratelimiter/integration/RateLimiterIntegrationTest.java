@@ -4,7 +4,15 @@ import com.company.ratelimiter.RateLimiterApplication;
 import com.company.ratelimiter.config.RateLimiterProperties;
 import com.company.ratelimiter.core.RateLimitContext;
 import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimitReservation;
 import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.exception.RateLimitExceededException;
+import com.company.ratelimiter.executor.ClusterKeyTagger;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.executor.RateLimitExecutor;
+import com.company.ratelimiter.fallback.InstanceRegistry;
+import com.company.ratelimiter.fallback.LocalCacheFallback;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
 import com.company.ratelimiter.model.RateLimitDimension;
 import com.company.ratelimiter.model.RateLimitRule;
 import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
@@ -14,16 +22,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.data.redis.core.RedisTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Integration tests for distributed rate limiter.
@@ -51,10 +63,23 @@ class RateLimiterIntegrationTest {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @Autowired
+    private ClusterKeyTagger keyTagger;
+
+    @Autowired
+    private RateLimitExecutor executor;
+
+    @Autowired
+    private LocalCacheFallback localCacheFallback;
+
     @BeforeEach
     void setUp() {
         // Clear Redis data before each test
         redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
         
         // Register test rules
         List<RateLimitRule> rules = List.of(
@@ -140,6 +165,42 @@ class RateLimiterIntegrationTest {
         assertThat(decision.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
     }
 
+    @Test
+    void testAsyncEvaluationSharesStateWithBlockingPath() {
+        String uniqueId = "test-user-async-" + System.currentTimeMillis();
+
+        // Half of the user limit through the blocking path...
+        for (int i = 0; i < 5; i++) {
+            RateLimitContext context = RateLimitContext.builder()
+                .userId(uniqueId)
+                .ipAddress("192.168.1.3")
+                .build();
+            assertThat(rateLimiterService.evaluateRateLimit(context).isAllowed()).isTrue();
+        }
+
+        // ...the rest through the async path
+        for (int i = 0; i < 5; i++) {
+            RateLimitContext context = RateLimitContext.builder()
+                .userId(uniqueId)
+                .ipAddress("192.168.1.3")
+                .build();
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimitAsync(context)
+                .toCompletableFuture().join();
+            assertThat(decision.isAllowed()).isTrue();
+            assertThat(decision.isFromFallback()).isFalse();
+            assertThat(decision.getRemaining()).isEqualTo(10 - 5 - i - 1);
+        }
+
+        RateLimitContext finalContext = RateLimitContext.builder()
+            .userId(uniqueId)
+            .ipAddress("192.168.1.3")
+            .build();
+        RateLimitDecision decision = rateLimiterService.evaluateRateLimitAsync(finalContext)
+            .toCompletableFuture().join();
+        assertThat(decision.isAllowed()).isFalse();
+        assertThat(decision.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+    }
+
     @Test
     void testConcurrentRequests() throws InterruptedException {
         String userId = "concurrent-user";
@@ -209,6 +270,543 @@ class RateLimiterIntegrationTest {
         }
     }
 
+    @Test
+    void testTokenBucketAlgorithm() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.API_KEY)
+                .limit(10)
+                .window(Duration.ofSeconds(60))
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build()
+        ));
+
+        // Bucket starts full: 10 requests allowed, state is a single hash
+        for (int i = 0; i < 10; i++) {
+            RateLimitContext context = RateLimitContext.builder()
+                .apiKey("tb-key")
+                .build();
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(context);
+            assertThat(decision.isAllowed()).isTrue();
+            assertThat(decision.getRemaining()).isEqualTo(10 - i - 1);
+        }
+
+        RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().apiKey("tb-key").build());
+        assertThat(decision.isAllowed()).isFalse();
+        assertThat(decision.getDeniedBy()).isEqualTo(RateLimitDimension.API_KEY);
+        assertThat(redisTemplate.type("ratelimit:apikey:tb-key:60:tb").code()).isEqualTo("hash");
+    }
+
+    @Test
+    void testMixedAlgorithmsAcrossDimensions() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(5)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.IP)
+                .limit(3)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .build()
+        ));
+
+        // IP log limit (3) is hit first; denied requests must not take user tokens
+        for (int i = 0; i < 3; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId("mixed-user").ipAddress("10.0.0.1").build());
+            assertThat(decision.isAllowed()).isTrue();
+        }
+        RateLimitDecision denied = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("mixed-user").ipAddress("10.0.0.1").build());
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedBy()).isEqualTo(RateLimitDimension.IP);
+
+        // From another IP the user still has exactly 2 tokens left
+        for (int i = 0; i < 2; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId("mixed-user").ipAddress("10.0.0.2").build());
+            assertThat(decision.isAllowed()).isTrue();
+        }
+        RateLimitDecision userDenied = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("mixed-user").ipAddress("10.0.0.2").build());
+        assertThat(userDenied.isAllowed()).isFalse();
+        assertThat(userDenied.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+    }
+
+    @Test
+    void testCompositeUserEndpointRule() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .combinedWith(List.of(RateLimitDimension.ENDPOINT))
+                .limit(2)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.ENDPOINT)
+                .identifier("/api/users/{id}")
+                .limit(100)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(5)
+                .window(Duration.ofSeconds(60))
+                .priority(3)
+                .build()
+        ));
+
+        // Two per user per endpoint template, checked in one script with the other rules
+        for (int i = 0; i < 2; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId("composite-user").requestUri("/api/users/" + i).build());
+            assertThat(decision.isAllowed()).isTrue();
+        }
+        RateLimitDecision denied = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("composite-user").requestUri("/api/users/9").build());
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+        assertThat(redisTemplate.hasKey("ratelimit:user+endpoint:composite-user|/api/users/:id:60")).isTrue();
+
+        // Another endpoint has its own composite counter; the plain USER rule still counts across both
+        RateLimitDecision otherEndpoint = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("composite-user").requestUri("/api/orders").build());
+        assertThat(otherEndpoint.isAllowed()).isTrue();
+        assertThat(otherEndpoint.getRemaining()).isEqualTo(1);
+
+        // Without a user the composite rule does not apply
+        RateLimitDecision anonymous = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().requestUri("/api/users/9").build());
+        assertThat(anonymous.isAllowed()).isTrue();
+    }
+
+    @Test
+    void testWeightedCostAcrossAlgorithms() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(100)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.API_KEY)
+                .limit(1000)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build()
+        ));
+
+        // Three requests of cost 30 fit into the user's 100 permits, a fourth does not
+        for (int i = 0; i < 3; i++) {
+            RateLimitContext context = RateLimitContext.builder().userId("heavy-user").apiKey("heavy-key").build();
+            context.setCost(30);
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(context);
+            assertThat(decision.isAllowed()).isTrue();
+            assertThat(decision.getRemaining()).isEqualTo(100 - 30 * (i + 1));
+        }
+        RateLimitContext tooHeavy = RateLimitContext.builder().userId("heavy-user").apiKey("heavy-key").build();
+        tooHeavy.setCost(30);
+        RateLimitDecision denied = rateLimiterService.evaluateRateLimit(tooHeavy);
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+
+        // One member per request, not per permit; the cached denial does not block cheaper requests
+        assertThat(redisTemplate.opsForZSet().zCard("ratelimit:user:heavy-user:60")).isEqualTo(4);
+        RateLimitDecision cheap = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("heavy-user").apiKey("heavy-key").build());
+        assertThat(cheap.isAllowed()).isTrue();
+        assertThat(cheap.getRemaining()).isEqualTo(9);
+
+        // The bucket was charged the same permits (4 allowed requests: 91, plus a little refill)
+        Object tokens = redisTemplate.opsForHash().get("ratelimit:apikey:heavy-key:60:tb", "tokens");
+        assertThat(Double.parseDouble(String.valueOf(tokens))).isBetween(909.0, 920.0);
+    }
+
+    @Test
+    void testOverflowingCostIsDeniedWithoutChargingKey() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(100)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .cost(4)
+                .build()
+        ));
+
+        assertThat(rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("overflow-user").build()).isAllowed()).isTrue();
+
+        // 4 * Long.MAX_VALUE / 2 wraps to a negative count without clamping
+        RateLimitContext huge = RateLimitContext.builder().userId("overflow-user").build();
+        huge.setCost(Long.MAX_VALUE / 2);
+        assertThat(huge.getPermits(strategyResolver.resolveRules(huge).get(0))).isEqualTo(RateLimitContext.MAX_PERMITS);
+        assertThat(rateLimiterService.evaluateRateLimit(huge).isAllowed()).isFalse();
+
+        // Earlier usage is still counted
+        RateLimitDecision next = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("overflow-user").build());
+        assertThat(next.isAllowed()).isTrue();
+        assertThat(next.getRemaining()).isEqualTo(92);
+    }
+
+    @Test
+    void testWeightedSlidingWindowLogExpiry() throws InterruptedException {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(10)
+                .window(Duration.ofSeconds(1))
+                .build()
+        ));
+
+        RateLimitContext first = RateLimitContext.builder().userId("expiring-user").build();
+        first.setCost(10);
+        assertThat(rateLimiterService.evaluateRateLimit(first).isAllowed()).isTrue();
+        assertThat(rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("expiring-user").build()).isAllowed()).isFalse();
+
+        // Once the weighted request leaves the window its whole weight is released
+        Thread.sleep(1100);
+        denyCache.clear();
+        RateLimitContext second = RateLimitContext.builder().userId("expiring-user").build();
+        second.setCost(10);
+        assertThat(rateLimiterService.evaluateRateLimit(second).isAllowed()).isTrue();
+    }
+
+    @Test
+    void testReservationRefundReturnsPermits() throws InterruptedException {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(3)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.API_KEY)
+                .limit(100)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build()
+        ));
+
+        RateLimitContext heavy = RateLimitContext.builder().userId("refund-user").apiKey("refund-key").build();
+        heavy.setCost(2);
+        RateLimitReservation reservation = rateLimiterService.reserve(heavy);
+        rateLimiterService.reserve(RateLimitContext.builder().userId("refund-user").apiKey("refund-key").build());
+        assertThat(reservation.getPermits()).hasSize(2);
+        assertThatThrownBy(() -> rateLimiterService.reserve(
+            RateLimitContext.builder().userId("refund-user").apiKey("refund-key").build()))
+            .isInstanceOf(RateLimitExceededException.class);
+
+        // Refunding twice gives the permits back once
+        rateLimiterService.refund(reservation);
+        rateLimiterService.refund(reservation);
+        waitFor(() -> redisTemplate.opsForZSet().zCard("ratelimit:user:refund-user:60") == 1);
+        Thread.sleep(100);
+
+        Object tokens = redisTemplate.opsForHash().get("ratelimit:apikey:refund-key:60:tb", "tokens");
+        assertThat(Double.parseDouble(String.valueOf(tokens))).isBetween(99.0, 100.0);
+
+        // The refunded weight is available again, past the cached denial
+        RateLimitContext retry = RateLimitContext.builder().userId("refund-user").apiKey("refund-key").build();
+        retry.setCost(2);
+        RateLimitDecision decision = rateLimiterService.evaluateRateLimit(retry);
+        assertThat(decision.isAllowed()).isTrue();
+        assertThat(decision.getRemaining()).isZero();
+    }
+
+    @Test
+    void testRefundAcrossCounterAlgorithms() throws InterruptedException {
+        for (RateLimitAlgorithm algorithm : List.of(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER, RateLimitAlgorithm.GCRA)) {
+            strategyResolver.registerRules(List.of(
+                RateLimitRule.builder()
+                    .dimension(RateLimitDimension.USER)
+                    .limit(2)
+                    .window(Duration.ofSeconds(60))
+                    .algorithm(algorithm)
+                    .build()
+            ));
+            String userId = "refund-" + algorithm.getValue();
+
+            RateLimitReservation first = rateLimiterService.reserve(RateLimitContext.builder().userId(userId).build());
+            rateLimiterService.reserve(RateLimitContext.builder().userId(userId).build());
+            rateLimiterService.refund(first);
+
+            // Wait for the async refund without consuming permits
+            String key = "ratelimit:user:" + userId + ":60:" + (algorithm == RateLimitAlgorithm.GCRA ? "gcra" : "swc");
+            if (algorithm == RateLimitAlgorithm.GCRA) {
+                String initialTat = redisTemplate.opsForValue().get(key);
+                waitFor(() -> !String.valueOf(redisTemplate.opsForValue().get(key)).equals(initialTat));
+            } else {
+                waitFor(() -> redisTemplate.opsForHash().values(key).stream()
+                    .mapToLong(count -> Long.parseLong(String.valueOf(count))).sum() == 1);
+            }
+
+            assertThat(rateLimiterService.evaluateRateLimit(RateLimitContext.builder().userId(userId).build())
+                .isAllowed()).as(algorithm.name()).isTrue();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testPeekDoesNotConsume() throws InterruptedException {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(3)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.API_KEY)
+                .limit(10)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .algorithm(RateLimitAlgorithm.TOKEN_BUCKET)
+                .build()
+        ));
+
+        for (int i = 0; i < 2; i++) {
+            rateLimiterService.evaluateRateLimit(RateLimitContext.builder().userId("peek-user").apiKey("peek-key").build());
+        }
+
+        for (int i = 0; i < 5; i++) {
+            RateLimitDecision peeked = rateLimiterService.peek(
+                RateLimitContext.builder().userId("peek-user").apiKey("peek-key").build());
+            assertThat(peeked.isAllowed()).isTrue();
+            assertThat(peeked.getRemaining()).isEqualTo(1);
+            assertThat(peeked.getLimit()).isEqualTo(3);
+        }
+        assertThat(redisTemplate.opsForZSet().zCard("ratelimit:user:peek-user:60")).isEqualTo(2);
+
+        // A request of cost 2 would not fit
+        RateLimitContext heavy = RateLimitContext.builder().userId("peek-user").apiKey("peek-key").build();
+        heavy.setCost(2);
+        RateLimitDecision heavyPeek = rateLimiterService.peek(heavy);
+        assertThat(heavyPeek.isAllowed()).isFalse();
+        assertThat(heavyPeek.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+
+        // Cached answers expire after the cache TTL
+        rateLimiterService.evaluateRateLimit(RateLimitContext.builder().userId("peek-user").apiKey("peek-key").build());
+        Thread.sleep(600);
+        RateLimitDecision exhausted = rateLimiterService.peek(
+            RateLimitContext.builder().userId("peek-user").apiKey("peek-key").build());
+        assertThat(exhausted.isAllowed()).isFalse();
+        assertThat(exhausted.getRetryAfterMillis()).isPositive();
+    }
+
+    @Test
+    void testPeekAcrossCounterAlgorithms() {
+        for (RateLimitAlgorithm algorithm : List.of(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER, RateLimitAlgorithm.GCRA)) {
+            strategyResolver.registerRules(List.of(
+                RateLimitRule.builder()
+                    .dimension(RateLimitDimension.USER)
+                    .limit(4)
+                    .window(Duration.ofSeconds(60))
+                    .algorithm(algorithm)
+                    .build()
+            ));
+            String userId = "peek-" + algorithm.getValue();
+
+            assertThat(rateLimiterService.peek(RateLimitContext.builder().userId(userId).build()).getRemaining())
+                .as(algorithm.name()).isEqualTo(4);
+            RateLimitDecision checked = rateLimiterService.evaluateRateLimit(RateLimitContext.builder().userId(userId).build());
+
+            // Peek reports before the next request, checks after the current one
+            RateLimitContext other = RateLimitContext.builder().userId(userId).build();
+            other.setCost(2);
+            RateLimitDecision peeked = rateLimiterService.peek(other);
+            assertThat(peeked.isAllowed()).as(algorithm.name()).isTrue();
+            assertThat(peeked.getRemaining()).as(algorithm.name()).isEqualTo(checked.getRemaining());
+        }
+    }
+
+    @Test
+    void testEvaluateBatchInOrder() {
+        List<RateLimitContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            contexts.add(RateLimitContext.builder().userId("batch-user").ipAddress("10.0.3.1").build());
+        }
+        contexts.add(RateLimitContext.builder().userId("batch-other").ipAddress("10.0.3.1").build());
+
+        List<RateLimitDecision> decisions = rateLimiterService.evaluateBatch(contexts);
+
+        assertThat(decisions).hasSize(13);
+        for (int i = 0; i < 10; i++) {
+            assertThat(decisions.get(i).isAllowed()).isTrue();
+            assertThat(decisions.get(i).getRemaining()).isEqualTo(10 - i - 1);
+        }
+        assertThat(decisions.get(10).isAllowed()).isFalse();
+        assertThat(decisions.get(11).getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+        assertThat(decisions.get(12).isAllowed()).isTrue();
+
+        // Denied requests took no permit from their other dimensions
+        assertThat(redisTemplate.opsForZSet().zCard("ratelimit:ip:10.0.3.1:60")).isEqualTo(11);
+    }
+
+    @Test
+    void testSlidingWindowCounterAcrossDimensions() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(5)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .algorithm(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.IP)
+                .limit(100)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .build()
+        ));
+
+        for (int i = 0; i < 5; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId("swc-user").ipAddress("10.0.1.1").build());
+            assertThat(decision.isAllowed()).isTrue();
+        }
+        RateLimitDecision denied = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("swc-user").ipAddress("10.0.1.1").build());
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+        assertThat(redisTemplate.type("ratelimit:user:swc-user:60:swc").code()).isEqualTo("hash");
+    }
+
+    @Test
+    void testGcraAlgorithm() {
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(6)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .algorithm(RateLimitAlgorithm.GCRA)
+                .build(),
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.IP)
+                .limit(100)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .build()
+        ));
+
+        // Burst of `limit` requests is allowed
+        for (int i = 0; i < 6; i++) {
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId("gcra-user").ipAddress("10.0.2.1").build());
+            assertThat(decision.isAllowed()).isTrue();
+            assertThat(decision.getRemaining()).isEqualTo(6 - i - 1);
+        }
+
+        // Next request is one emission interval (60s / 6 = 10s) away
+        RateLimitDecision denied = rateLimiterService.evaluateRateLimit(
+            RateLimitContext.builder().userId("gcra-user").ipAddress("10.0.2.1").build());
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+        assertThat(denied.getRetryAfterMillis()).isBetween(9_000L, 10_000L);
+        assertThat(denied.getRetryAfterSeconds()).isEqualTo(10);
+        assertThat(redisTemplate.type("ratelimit:user:gcra-user:60:gcra").code()).isEqualTo("string");
+    }
+
+    @Test
+    void testFallbackDividesLimitByLiveInstances() {
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getInstanceRegistry().setEnabled(true);
+        properties.getInstanceRegistry().setHeartbeatInterval(Duration.ofHours(1));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InstanceRegistry first = new InstanceRegistry(properties, redisTemplate, meterRegistry);
+        InstanceRegistry second = new InstanceRegistry(properties, redisTemplate, new SimpleMeterRegistry());
+        try {
+            first.heartbeat();
+            second.heartbeat();
+            first.heartbeat();
+            assertThat(first.getLiveInstances()).isEqualTo(2);
+            assertThat(meterRegistry.get("ratelimiter.fallback.divisor").gauge().value()).isEqualTo(2.0);
+
+            // Each of the two instances enforces half of the limit of 10
+            LocalCacheFallback fallback = new LocalCacheFallback(properties, meterRegistry, first, keyTagger);
+            List<RateLimitRule> rules = List.of(RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(10)
+                .window(Duration.ofSeconds(60))
+                .build());
+            for (int i = 0; i < 5; i++) {
+                RateLimitDecision decision = fallback.onExecutorUnavailable(rules,
+                    RateLimitContext.builder().userId("fleet-user").build());
+                assertThat(decision.isAllowed()).isTrue();
+            }
+            RateLimitDecision denied = fallback.onExecutorUnavailable(rules,
+                RateLimitContext.builder().userId("fleet-user").build());
+            assertThat(denied.isAllowed()).isFalse();
+            assertThat(denied.getLimit()).isEqualTo(5);
+
+            // A stopped instance leaves the count
+            second.shutdown();
+            first.heartbeat();
+            assertThat(first.getLiveInstances()).isEqualTo(1);
+            assertThat(first.localLimit(10)).isEqualTo(10);
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    void testFallbackUsageIsReconciledWhenRedisIsBack() throws Exception {
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            List<RateLimitRule> rules = List.of(RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(10)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .algorithm(algorithm)
+                .build());
+            strategyResolver.registerRules(rules);
+            String userId = "reconcile-" + algorithm.getValue();
+
+            // Four permits allowed locally during an outage (one weighted)
+            localCacheFallback.onExecutorUnavailable(rules, RateLimitContext.builder().userId(userId).build());
+            RateLimitContext weighted = RateLimitContext.builder().userId(userId).build();
+            weighted.setCost(3);
+            localCacheFallback.onExecutorUnavailable(rules, weighted);
+
+            assertThat(localCacheFallback.onExecutorRecovered(executor).toCompletableFuture().get())
+                .as(algorithm.name()).isEqualTo(1);
+
+            // Redis continues from the local usage instead of a clean slate
+            RateLimitDecision decision = rateLimiterService.evaluateRateLimit(
+                RateLimitContext.builder().userId(userId).build());
+            assertThat(decision.isAllowed()).as(algorithm.name()).isTrue();
+            assertThat(decision.getRemaining()).as(algorithm.name()).isEqualTo(5);
+
+            // Drained: nothing left to replay
+            assertThat(localCacheFallback.onExecutorRecovered(executor).toCompletableFuture().get()).isZero();
+        }
+    }
+
     @Test
     void testHealthCheck() {
         boolean isHealthy = rateLimiterService.isHealthy();
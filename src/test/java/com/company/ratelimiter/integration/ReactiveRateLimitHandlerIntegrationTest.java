@@ -0,0 +1,140 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.filter.RateLimiterGatewayFilterFactory;
+import com.company.ratelimiter.filter.ReactiveRateLimitHandler;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the reactive handler shared by the WebFlux filter and
+ * the Spring Cloud Gateway filter factory.
+ *
+ * The application under test is a servlet app, so the reactive beans are
+ * created here on top of the real RateLimiterService.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s"
+})
+class ReactiveRateLimitHandlerIntegrationTest {
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private RateLimiterProperties properties;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    private ReactiveRateLimitHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(3)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build()
+        ));
+
+        handler = new ReactiveRateLimitHandler(rateLimiterService, properties);
+    }
+
+    @Test
+    void testWebFilterAllowsAndDenies() {
+        AtomicInteger chainCalls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            MockServerWebExchange exchange = exchange("reactive-user");
+            handler.filter(exchange, e -> {
+                chainCalls.incrementAndGet();
+                return Mono.empty();
+            }).block(Duration.ofSeconds(5));
+
+            assertThat(exchange.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(exchange.getResponse().getHeaders().getFirst("X-RateLimit-Limit")).isEqualTo("3");
+            assertThat(exchange.getResponse().getHeaders().getFirst("X-RateLimit-Remaining"))
+                .isEqualTo(String.valueOf(2 - i));
+        }
+
+        MockServerWebExchange denied = exchange("reactive-user");
+        handler.filter(denied, e -> {
+            chainCalls.incrementAndGet();
+            return Mono.empty();
+        }).block(Duration.ofSeconds(5));
+
+        assertThat(chainCalls.get()).isEqualTo(3);
+        assertThat(denied.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(denied.getResponse().getHeaders().getFirst("Retry-After")).isNotNull();
+        assertThat(denied.getResponse().getBodyAsString().block(Duration.ofSeconds(5)))
+            .contains("\"error\":\"Rate limit exceeded\"");
+    }
+
+    @Test
+    void testGatewayFilterUsesSameLimits() {
+        GatewayFilter filter = new RateLimiterGatewayFilterFactory(handler)
+            .apply(new RateLimiterGatewayFilterFactory.Config());
+
+        AtomicInteger chainCalls = new AtomicInteger();
+        int denied = 0;
+        for (int i = 0; i < 5; i++) {
+            MockServerWebExchange exchange = exchange("gateway-user");
+            filter.filter(exchange, e -> {
+                chainCalls.incrementAndGet();
+                return Mono.empty();
+            }).block(Duration.ofSeconds(5));
+
+            if (exchange.getResponse().getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                denied++;
+            }
+        }
+
+        assertThat(chainCalls.get()).isEqualTo(3);
+        assertThat(denied).isEqualTo(2);
+    }
+
+    private MockServerWebExchange exchange(String userId) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/demo/hello")
+            .header("X-User-Id", userId)
+            .build());
+    }
+}
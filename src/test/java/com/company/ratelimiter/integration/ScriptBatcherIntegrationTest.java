@@ -0,0 +1,153 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for micro-batched (pipelined) script execution.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s",
+    "ratelimiter.batching.enabled=true",
+    "ratelimiter.batching.window=2ms",
+    "ratelimiter.batching.max-batch-size=64",
+    "ratelimiter.deny-cache.enabled=false"  // Every check must reach the batcher
+})
+class ScriptBatcherIntegrationTest {
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private RateLimitStrategyResolver strategyResolver;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+
+        strategyResolver.registerRules(List.of(
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.USER)
+                .limit(10)
+                .window(Duration.ofSeconds(60))
+                .priority(1)
+                .build(),
+
+            RateLimitRule.builder()
+                .dimension(RateLimitDimension.IP)
+                .limit(1000)
+                .window(Duration.ofSeconds(60))
+                .priority(2)
+                .build()
+        ));
+    }
+
+    @Test
+    void testConcurrentBlockingChecksAreBatched() throws InterruptedException {
+        DistributionSummary batchSize = meterRegistry.get("ratelimiter.batch.size").summary();
+        long batchesBefore = batchSize.count();
+        double callsBefore = batchSize.totalAmount();
+
+        int threadCount = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+        AtomicInteger allowed = new AtomicInteger();
+        AtomicInteger fallback = new AtomicInteger();
+
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    RateLimitDecision decision = rateLimiterService.evaluateRateLimit(RateLimitContext.builder()
+                        .userId("batched-user")
+                        .ipAddress("10.2.2.2")
+                        .build());
+                    if (decision.isAllowed()) {
+                        allowed.incrementAndGet();
+                    }
+                    if (decision.isFromFallback()) {
+                        fallback.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        // Batching must not change decisions...
+        assertThat(fallback.get()).isZero();
+        assertThat(allowed.get()).isEqualTo(10);
+
+        // ...while sending them in fewer pipelined writes
+        long batches = batchSize.count() - batchesBefore;
+        double calls = batchSize.totalAmount() - callsBefore;
+        assertThat(calls).isEqualTo(threadCount);
+        assertThat(batches).isLessThan(threadCount);
+    }
+
+    @Test
+    void testAsyncChecksAreBatched() {
+        List<CompletableFuture<RateLimitDecision>> decisions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            decisions.add(rateLimiterService.evaluateRateLimitAsync(RateLimitContext.builder()
+                .userId("batched-async-user")
+                .ipAddress("10.2.2.3")
+                .build()).toCompletableFuture());
+        }
+
+        long allowed = decisions.stream().map(CompletableFuture::join).filter(RateLimitDecision::isAllowed).count();
+        long fallback = decisions.stream().map(CompletableFuture::join).filter(RateLimitDecision::isFromFallback).count();
+
+        assertThat(fallback).isZero();
+        assertThat(allowed).isEqualTo(10);
+    }
+}
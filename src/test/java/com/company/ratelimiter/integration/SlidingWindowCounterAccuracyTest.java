@@ -0,0 +1,98 @@
+package com.company.ratelimiter.integration;
+
+import com.company.ratelimiter.RateLimiterApplication;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.executor.LocalDenyCache;
+import com.company.ratelimiter.executor.RedisRateLimitExecutor;
+import com.company.ratelimiter.model.RateLimitAlgorithm;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the error of the sliding window counter approximation against the
+ * exact sliding window log by replaying the same traffic through both.
+ *
+ * Note: Requires Redis running on localhost:6380
+ */
+@SpringBootTest(classes = RateLimiterApplication.class)
+@TestPropertySource(properties = {
+    "ratelimiter.enabled=true",
+    "ratelimiter.redis.host=localhost",
+    "ratelimiter.redis.port=6380",
+    "ratelimiter.redis.timeout=1s"
+})
+@Slf4j
+class SlidingWindowCounterAccuracyTest {
+
+    private static final long LIMIT = 20;
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    @Autowired
+    private RedisRateLimitExecutor executor;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LocalDenyCache denyCache;
+
+    @Test
+    void testCounterErrorAgainstExactLog() throws InterruptedException {
+        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        denyCache.clear();
+
+        RateLimitRule exactRule = rule(RateLimitAlgorithm.SLIDING_WINDOW_LOG);
+        RateLimitRule counterRule = rule(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER);
+
+        // Bursty traffic averaging ~2x the limit, identical for both algorithms
+        Random random = new Random(42);
+        long exactAllowed = 0;
+        long counterAllowed = 0;
+        long attempts = 0;
+        long deadline = System.currentTimeMillis() + 4 * WINDOW.toMillis();
+
+        while (System.currentTimeMillis() < deadline) {
+            int burst = 1 + random.nextInt(4);
+            for (int i = 0; i < burst; i++) {
+                RateLimitContext context = RateLimitContext.builder()
+                    .ipAddress("10.1.1.1")
+                    .build();
+                if (executor.checkLimit(exactRule, context).isAllowed()) {
+                    exactAllowed++;
+                }
+                if (executor.checkLimit(counterRule, context).isAllowed()) {
+                    counterAllowed++;
+                }
+                attempts++;
+            }
+            Thread.sleep(random.nextInt(100));
+        }
+
+        double error = Math.abs(counterAllowed - exactAllowed) / (double) exactAllowed;
+        log.info("Sliding window counter accuracy: attempts={}, exactAllowed={}, counterAllowed={}, error={}%",
+            attempts, exactAllowed, counterAllowed, String.format("%.2f", error * 100));
+
+        assertThat(exactAllowed).isGreaterThan(0);
+        assertThat(error).isLessThan(0.10);
+    }
+
+    private RateLimitRule rule(RateLimitAlgorithm algorithm) {
+        return RateLimitRule.builder()
+            .dimension(RateLimitDimension.IP)
+            .limit(LIMIT)
+            .window(WINDOW)
+            .algorithm(algorithm)
+            .build();
+    }
+}
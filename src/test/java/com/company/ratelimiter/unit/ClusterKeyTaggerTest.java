@@ -0,0 +1,100 @@
+package com.company.ratelimiter.unit;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.executor.ClusterKeyTagger;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for Redis Cluster hash tagging of rate limit keys
+ */
+class ClusterKeyTaggerTest {
+
+    private final RateLimitContext context = RateLimitContext.builder()
+        .userId("user-42")
+        .ipAddress("10.0.0.1")
+        .apiKey("key-1")
+        .tenantId("acme")
+        .build();
+
+    @Test
+    void testPrincipalKeysShareSlot() {
+        ClusterKeyTagger tagger = new ClusterKeyTagger(clusterProperties());
+
+        String tenantKey = tagger.keyFor(rule(RateLimitDimension.TENANT), "acme", context).toRedisKey();
+        String compositeKey = tagger.keyFor(
+            composite(RateLimitDimension.TENANT, RateLimitDimension.ENDPOINT), "acme|/api/orders", context)
+            .toRedisKey();
+
+        assertThat(tenantKey).isEqualTo("ratelimit:{tenant:acme}:tenant:acme:60");
+        assertThat(compositeKey).startsWith("ratelimit:{tenant:acme}:");
+        assertThat(tagger.slotOf(compositeKey)).isEqualTo(tagger.slotOf(tenantKey));
+    }
+
+    @Test
+    void testOtherDimensionsKeepPlainKey() {
+        ClusterKeyTagger tagger = new ClusterKeyTagger(clusterProperties());
+
+        assertThat(tagger.keyFor(rule(RateLimitDimension.IP), "10.0.0.1", context).toRedisKey())
+            .isEqualTo("ratelimit:ip:10.0.0.1:60");
+        assertThat(tagger.keyFor(rule(RateLimitDimension.API_KEY), "key-1", context).toRedisKey())
+            .isEqualTo("ratelimit:apikey:key-1:60");
+    }
+
+    @Test
+    void testChangingTenantDoesNotResetUserCounter() {
+        ClusterKeyTagger tagger = new ClusterKeyTagger(clusterProperties());
+        RateLimitRule userRule = rule(RateLimitDimension.USER);
+
+        // Rotating or dropping X-Tenant-Id must not give the user a fresh counter
+        RateLimitContext rotated = RateLimitContext.builder().userId("user-42").tenantId("other").build();
+        RateLimitContext anonymous = RateLimitContext.builder().userId("user-42").build();
+
+        String userKey = tagger.keyFor(userRule, "user-42", context).toRedisKey();
+        assertThat(userKey).isEqualTo("ratelimit:user:user-42:60");
+        assertThat(tagger.keyFor(userRule, "user-42", rotated).toRedisKey()).isEqualTo(userKey);
+        assertThat(tagger.keyFor(userRule, "user-42", anonymous).toRedisKey()).isEqualTo(userKey);
+    }
+
+    @Test
+    void testStandaloneModeIgnoresTagging() {
+        RateLimiterProperties properties = clusterProperties();
+        properties.getRedis().setMode(RateLimiterProperties.RedisMode.STANDALONE);
+        ClusterKeyTagger tagger = new ClusterKeyTagger(properties);
+
+        assertThat(tagger.isClusterMode()).isFalse();
+        assertThat(tagger.keyFor(rule(RateLimitDimension.USER), "user-42", context).toRedisKey())
+            .isEqualTo("ratelimit:user:user-42:60");
+    }
+
+    private static RateLimiterProperties clusterProperties() {
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getRedis().setMode(RateLimiterProperties.RedisMode.CLUSTER);
+        properties.getRedis().getCluster().setKeyTagDimension(RateLimitDimension.TENANT);
+        return properties;
+    }
+
+    private static RateLimitRule rule(RateLimitDimension dimension) {
+        return RateLimitRule.builder()
+            .dimension(dimension)
+            .limit(10)
+            .window(Duration.ofSeconds(60))
+            .build();
+    }
+
+    private static RateLimitRule composite(RateLimitDimension dimension, RateLimitDimension combinedWith) {
+        return RateLimitRule.builder()
+            .dimension(dimension)
+            .combinedWith(List.of(combinedWith))
+            .limit(10)
+            .window(Duration.ofSeconds(60))
+            .build();
+    }
+}
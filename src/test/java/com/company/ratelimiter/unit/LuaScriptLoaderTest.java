@@ -42,6 +42,34 @@ class LuaScriptLoaderTest {
         assertThat(script).contains("for i = 1, num_dimensions do");
     }
 
+    @Test
+    void testLoadTokenBucketScript() {
+        String script = scriptLoader.getTokenBucketScript();
+        
+        assertThat(script).isNotNull();
+        assertThat(script).contains("KEYS[1]");
+        assertThat(script).contains("HMGET");
+        assertThat(script).doesNotContain("ZADD");
+    }
+
+    @Test
+    void testLoadSlidingWindowCounterScript() {
+        String script = scriptLoader.getSlidingWindowCounterScript();
+        
+        assertThat(script).isNotNull();
+        assertThat(script).contains("HINCRBY");
+        assertThat(script).doesNotContain("ZADD");
+    }
+
+    @Test
+    void testLoadGcraScript() {
+        String script = scriptLoader.getGcraScript();
+        
+        assertThat(script).isNotNull();
+        assertThat(script).contains("emission_interval");
+        assertThat(script).contains("retry_after");
+    }
+
     @Test
     void testScriptCaching() {
         String script1 = scriptLoader.getSlidingWindowLogScript();
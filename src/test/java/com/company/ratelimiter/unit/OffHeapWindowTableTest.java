@@ -0,0 +1,76 @@
+package com.company.ratelimiter.unit;
+
+import com.company.ratelimiter.fallback.OffHeapWindowTable;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the off-heap table of window counters behind the LOCAL_CACHE fallback
+ */
+class OffHeapWindowTableTest {
+
+    private static final long WINDOW = 60_000;
+    private static final long START = 28_333_333L * WINDOW;  // Start of a fixed window
+
+    @Test
+    void testLimitAndWeightedPermits() {
+        OffHeapWindowTable table = new OffHeapWindowTable(1024);
+
+        assertThat(table.tryAcquire("user:1", START, 3, 10, WINDOW)).isEqualTo(7);
+        assertThat(table.tryAcquire("user:1", START + 10, 1, 10, WINDOW)).isEqualTo(6);
+        assertThat(table.tryAcquire("user:1", START + 20, 7, 10, WINDOW)).isEqualTo(-1);
+        assertThat(table.tryAcquire("user:1", START + 20, 6, 10, WINDOW)).isZero();
+
+        // Other keys have their own counters
+        assertThat(table.tryAcquire("user:2", START + 30, 1, 10, WINDOW)).isEqualTo(9);
+        assertThat(table.getOccupancy()).isEqualTo(2);
+    }
+
+    @Test
+    void testPreviousWindowIsWeightedByOverlap() {
+        OffHeapWindowTable table = new OffHeapWindowTable(1024);
+        assertThat(table.tryAcquire("ip:1", START, 10, 10, WINDOW)).isZero();
+
+        // Half way into the next window, half of the previous window still counts
+        long halfWay = START + WINDOW + WINDOW / 2;
+        assertThat(table.tryAcquire("ip:1", halfWay, 6, 10, WINDOW)).isEqualTo(-1);
+        assertThat(table.retryAfterMillis("ip:1", halfWay, 6, 10, WINDOW)).isEqualTo(WINDOW / 10);
+        assertThat(table.tryAcquire("ip:1", halfWay, 5, 10, WINDOW)).isZero();
+
+        // Two windows later nothing counts
+        assertThat(table.tryAcquire("ip:1", START + 3 * WINDOW, 10, 10, WINDOW)).isZero();
+    }
+
+    @Test
+    void testExpiredKeysAreReusedBeforeEvicting() {
+        OffHeapWindowTable table = new OffHeapWindowTable(1024);
+        for (int i = 0; i < 5_000; i++) {
+            table.tryAcquire("ip:" + i, START, 1, 10, WINDOW);
+        }
+        long evictions = table.getEvictions();
+        assertThat(evictions).isPositive();
+        assertThat(table.getOccupancy()).isLessThanOrEqualTo(table.getCapacity());
+
+        // Windows of all earlier keys have passed: their slots are reclaimed
+        for (int i = 5_000; i < 5_300; i++) {
+            table.tryAcquire("ip:" + i, START + 3 * WINDOW, 1, 10, WINDOW);
+        }
+        assertThat(table.getEvictions()).isEqualTo(evictions);
+    }
+
+    @Test
+    void testClockEvictionKeepsKeysInUse() {
+        OffHeapWindowTable table = new OffHeapWindowTable(1024);
+        table.tryAcquire("user:hot", START, 10, 10, WINDOW);
+
+        // A flood of one-off keys, with the hot key used in between
+        for (int i = 0; i < 100_000; i++) {
+            table.tryAcquire("ip:" + i, START + 1, 1, 10, WINDOW);
+            assertThat(table.tryAcquire("user:hot", START + 1, 1, 10, WINDOW)).isEqualTo(-1);
+        }
+
+        assertThat(table.getEvictions()).isGreaterThan(90_000);
+        assertThat(table.getOccupancy()).isEqualTo(table.getCapacity());
+    }
+}
@@ -0,0 +1,188 @@
+package com.company.ratelimiter.unit;
+
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.model.EndpointCost;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for rule resolution through the compiled rule index
+ */
+class RateLimitStrategyResolverTest {
+
+    private final RateLimitRule userRule = rule(RateLimitDimension.USER, 10, null, 1);
+    private final RateLimitRule ipRule = rule(RateLimitDimension.IP, 100, null, 2);
+    private final RateLimitRule premiumRule = rule(RateLimitDimension.USER, 1000, "premium-user", 0);
+    private final RateLimitRule globalRule = rule(RateLimitDimension.GLOBAL, 100_000, null, 100);
+
+    private RateLimitStrategyResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new RateLimitStrategyResolver();
+        resolver.registerRules(List.of(globalRule, ipRule, userRule, premiumRule));
+    }
+
+    @Test
+    void testDefaultRulesInPriorityOrder() {
+        List<RateLimitRule> rules = resolver.resolveRules(RateLimitContext.builder()
+            .userId("user-1")
+            .ipAddress("10.0.0.1")
+            .build());
+
+        assertThat(rules).containsExactly(userRule, ipRule, globalRule);
+    }
+
+    @Test
+    void testRulesWithoutIdentifierOnRequestAreSkipped() {
+        List<RateLimitRule> rules = resolver.resolveRules(RateLimitContext.builder()
+            .ipAddress("10.0.0.1")
+            .build());
+
+        assertThat(rules).containsExactly(ipRule, globalRule);
+    }
+
+    @Test
+    void testOverrideMergedByPriority() {
+        List<RateLimitRule> rules = resolver.resolveRules(RateLimitContext.builder()
+            .userId("premium-user")
+            .ipAddress("10.0.0.1")
+            .build());
+
+        assertThat(rules).containsExactly(premiumRule, userRule, ipRule, globalRule);
+    }
+
+    @Test
+    void testRuleChangesAreVisibleAndDisabledRulesSkipped() {
+        RateLimitRule disabled = rule(RateLimitDimension.IP, 5, null, 0);
+        disabled.setEnabled(false);
+        RateLimitRule tenantRule = rule(RateLimitDimension.TENANT, 50, null, 3);
+
+        resolver.addRule(disabled);
+        resolver.addRule(tenantRule);
+
+        List<RateLimitRule> rules = resolver.resolveRules(RateLimitContext.builder()
+            .ipAddress("10.0.0.1")
+            .tenantId("acme")
+            .build());
+
+        assertThat(rules).containsExactly(ipRule, tenantRule, globalRule);
+        assertThat(resolver.getAllRules()).hasSize(6);
+    }
+
+    @Test
+    void testEndpointPatternMatchesAndNormalizesIdentifier() {
+        RateLimitRule byId = rule(RateLimitDimension.ENDPOINT, 50, "/api/users/{id}", 5);
+        RateLimitRule literal = rule(RateLimitDimension.ENDPOINT, 5, "/api/users/me", 5);
+        RateLimitRule files = rule(RateLimitDimension.ENDPOINT, 20, "/static/**", 5);
+        resolver.addRule(byId);
+        resolver.addRule(literal);
+        resolver.addRule(files);
+
+        RateLimitContext context = RateLimitContext.builder()
+            .ipAddress("10.0.0.1")
+            .requestUri("/api/users/42")
+            .build();
+        assertThat(resolver.resolveRules(context)).containsExactly(ipRule, byId, globalRule);
+        assertThat(context.getIdentifier(RateLimitDimension.ENDPOINT)).isEqualTo("/api/users/:id");
+
+        // Literal segments win over variables
+        assertThat(resolver.resolveRules(RateLimitContext.builder()
+            .requestUri("/api/users/me")
+            .build())).containsExactly(literal, globalRule);
+
+        assertThat(resolver.resolveRules(RateLimitContext.builder()
+            .requestUri("/static/css/site.css")
+            .build())).containsExactly(files, globalRule);
+
+        RateLimitContext unmatched = RateLimitContext.builder()
+            .requestUri("/api/orders/7")
+            .build();
+        assertThat(resolver.resolveRules(unmatched)).containsExactly(globalRule);
+        assertThat(unmatched.getIdentifier(RateLimitDimension.ENDPOINT)).isEqualTo("/api/orders/7");
+    }
+
+    @Test
+    void testEndpointRuleRestrictedToHttpMethod() {
+        RateLimitRule create = rule(RateLimitDimension.ENDPOINT, 10, "/api/orders", 5);
+        create.setHttpMethod("POST");
+        resolver.addRule(create);
+
+        assertThat(resolver.resolveRules(RateLimitContext.builder()
+            .httpMethod("post")
+            .requestUri("/api/orders")
+            .build())).containsExactly(create, globalRule);
+
+        assertThat(resolver.resolveRules(RateLimitContext.builder()
+            .httpMethod("GET")
+            .requestUri("/api/orders")
+            .build())).containsExactly(globalRule);
+    }
+
+    @Test
+    void testCompositeRuleRequiresAllDimensions() {
+        RateLimitRule perUserEndpoint = rule(RateLimitDimension.USER, 5, null, 3);
+        perUserEndpoint.setCombinedWith(List.of(RateLimitDimension.ENDPOINT));
+        resolver.addRule(perUserEndpoint);
+
+        RateLimitContext context = RateLimitContext.builder()
+            .userId("a|b")
+            .requestUri("/api/orders")
+            .build();
+        assertThat(resolver.resolveRules(context)).containsExactly(userRule, perUserEndpoint, globalRule);
+        assertThat(context.getIdentifier(perUserEndpoint)).isEqualTo("a%7Cb|/api/orders");
+
+        assertThat(resolver.resolveRules(RateLimitContext.builder()
+            .userId("user-1")
+            .build())).containsExactly(userRule, globalRule);
+    }
+
+    @Test
+    void testEndpointCostSetsRequestCost() {
+        resolver.registerEndpointCosts(List.of(
+            EndpointCost.builder().pattern("/api/reports/**").httpMethod("POST").cost(50).build()));
+
+        RateLimitContext report = RateLimitContext.builder()
+            .httpMethod("POST")
+            .requestUri("/api/reports/monthly")
+            .build();
+        resolver.resolveRules(report);
+        assertThat(report.getCost()).isEqualTo(50);
+        assertThat(report.getPermits(rule(RateLimitDimension.USER, 1000, null, 0).toBuilder().cost(2).build()))
+            .isEqualTo(100);
+
+        RateLimitContext read = RateLimitContext.builder()
+            .httpMethod("GET")
+            .requestUri("/api/reports/monthly")
+            .build();
+        resolver.resolveRules(read);
+        assertThat(read.getCost()).isEqualTo(1);
+
+        // An explicit per-request cost wins
+        RateLimitContext explicit = RateLimitContext.builder()
+            .httpMethod("POST")
+            .requestUri("/api/reports/monthly")
+            .build();
+        explicit.setCost(5);
+        resolver.resolveRules(explicit);
+        assertThat(explicit.getCost()).isEqualTo(5);
+    }
+
+    private static RateLimitRule rule(RateLimitDimension dimension, long limit, String identifier, int priority) {
+        return RateLimitRule.builder()
+            .dimension(dimension)
+            .limit(limit)
+            .window(Duration.ofSeconds(60))
+            .identifier(identifier)
+            .priority(priority)
+            .build();
+    }
+}
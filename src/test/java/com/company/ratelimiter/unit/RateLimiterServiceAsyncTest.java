@@ -0,0 +1,102 @@
+package com.company.ratelimiter.unit;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.core.RateLimiterService;
+import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.executor.RateLimitExecutor;
+import com.company.ratelimiter.fallback.AllowAllFallback;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitRule;
+import com.company.ratelimiter.strategy.RateLimitStrategyResolver;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the async evaluation path of RateLimiterService
+ */
+class RateLimiterServiceAsyncTest {
+
+    private RateLimitExecutor executor;
+    private RateLimiterService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = mock(RateLimitExecutor.class);
+        when(executor.getExecutorType()).thenReturn("MOCK");
+
+        RateLimitStrategyResolver resolver = new RateLimitStrategyResolver();
+        resolver.registerRules(List.of(RateLimitRule.builder()
+            .dimension(RateLimitDimension.USER)
+            .limit(10)
+            .window(Duration.ofSeconds(60))
+            .build()));
+
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getRedis().setTimeout(Duration.ofMillis(50));
+
+        service = new RateLimiterService(
+            executor,
+            resolver,
+            new AllowAllFallback(),
+            CircuitBreakerRegistry.ofDefaults(),
+            new SimpleMeterRegistry(),
+            properties
+        );
+    }
+
+    @Test
+    void testAsyncDecisionFromExecutor() {
+        when(executor.checkLimitsAsync(anyList(), any()))
+            .thenReturn(CompletableFuture.completedFuture(RateLimitDecision.allowed(10, 9, 0)));
+
+        RateLimitDecision decision = service.evaluateRateLimitAsync(context()).toCompletableFuture().join();
+
+        assertThat(decision.isAllowed()).isTrue();
+        assertThat(decision.isFromFallback()).isFalse();
+        assertThat(decision.getRemaining()).isEqualTo(9);
+    }
+
+    @Test
+    void testAsyncTimeoutCompletesWithFallback() {
+        // Executor that never answers
+        when(executor.checkLimitsAsync(anyList(), any())).thenReturn(new CompletableFuture<>());
+
+        CompletionStage<RateLimitDecision> stage = service.evaluateRateLimitAsync(context());
+        RateLimitDecision decision = stage.toCompletableFuture().join();
+
+        assertThat(decision.isAllowed()).isTrue();
+        assertThat(decision.isFromFallback()).isTrue();
+        assertThat(service.getCircuitBreakerMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void testAsyncFailureCompletesWithFallback() {
+        when(executor.checkLimitsAsync(anyList(), any())).thenReturn(
+            CompletableFuture.failedFuture(new RedisUnavailableException("down", new RuntimeException())));
+
+        RateLimitDecision decision = service.evaluateRateLimitAsync(context()).toCompletableFuture().join();
+
+        assertThat(decision.isFromFallback()).isTrue();
+    }
+
+    private RateLimitContext context() {
+        return RateLimitContext.builder()
+            .userId("async-user")
+            .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.company.ratelimiter.unit;
+
+import com.company.ratelimiter.fallback.RequestWindow;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the ring of sub-window counters behind the LOCAL_CACHE fallback
+ */
+class RequestWindowTest {
+
+    private static final long WINDOW = 60_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void testLimitAndWeightedPermits() {
+        RequestWindow window = new RequestWindow(WINDOW);
+
+        assertThat(window.tryAcquire(START, 3, 10)).isEqualTo(7);
+        assertThat(window.tryAcquire(START + 10, 1, 10)).isEqualTo(6);
+        assertThat(window.tryAcquire(START + 20, 7, 10)).isEqualTo(-1);
+        assertThat(window.tryAcquire(START + 20, 6, 10)).isZero();
+        assertThat(window.getCount(START + 30)).isEqualTo(10);
+    }
+
+    @Test
+    void testPermitsLeaveAfterTheFullWindow() {
+        RequestWindow window = new RequestWindow(WINDOW);
+        window.tryAcquire(START, 5, 5);
+        window.tryAcquire(START + 30_000, 5, 10);
+
+        // Never released early, at most one sub-window late
+        assertThat(window.getCount(START + WINDOW - 1)).isEqualTo(10);
+        assertThat(window.getCount(START + WINDOW + WINDOW / 32)).isEqualTo(5);
+        assertThat(window.getCount(START + 3 * WINDOW)).isZero();
+    }
+
+    @Test
+    void testRetryAfterCoversEnoughExpiringPermits() {
+        RequestWindow window = new RequestWindow(WINDOW);
+        window.tryAcquire(START, 2, 10);
+        window.tryAcquire(START + 20_000, 8, 10);
+
+        long now = START + 30_000;
+        long oldestExpires = window.retryAfterMillis(now, 2, 10);
+        assertThat(oldestExpires).isBetween(30_000L, 30_000L + WINDOW / 32);
+
+        // Three permits need the second batch to expire too
+        long bothExpire = window.retryAfterMillis(now, 3, 10);
+        assertThat(bothExpire).isBetween(50_000L, 50_000L + WINDOW / 32);
+
+        assertThat(window.tryAcquire(now + oldestExpires, 2, 10)).isZero();
+    }
+
+    @Test
+    void testDrainUsageReturnsPermitsInTheWindow() {
+        RequestWindow window = new RequestWindow(WINDOW);
+        window.tryAcquire(START, 2, 10);
+        window.tryAcquire(START + 30_000, 3, 10);
+        window.tryAcquire(START + 30_001, 1, 10);
+
+        long[] usage = window.drainUsage(START + 30_002);
+
+        // Oldest first, stamped at the end of their sub-window, never after now
+        assertThat(usage).hasSize(4);
+        assertThat(usage[0]).isBetween(START, START + WINDOW / 32);
+        assertThat(usage[1]).isEqualTo(2);
+        assertThat(usage[2]).isBetween(START + 30_001, START + 30_002);
+        assertThat(usage[3]).isEqualTo(4);
+        assertThat(window.getCount(START + 30_002)).isZero();
+        assertThat(window.drainUsage(START + 30_003)).isEmpty();
+    }
+}
@@ -0,0 +1,184 @@
+package com.company.ratelimiter.unit;
+
+import com.company.ratelimiter.config.RateLimiterProperties;
+import com.company.ratelimiter.core.RateLimitContext;
+import com.company.ratelimiter.core.RateLimitDecision;
+import com.company.ratelimiter.exception.RedisUnavailableException;
+import com.company.ratelimiter.executor.ClusterKeyTagger;
+import com.company.ratelimiter.executor.ConsistentHashRing;
+import com.company.ratelimiter.executor.GlobalLimitSharder;
+import com.company.ratelimiter.executor.RateLimitExecutor;
+import com.company.ratelimiter.executor.ShardedRateLimitExecutor;
+import com.company.ratelimiter.fallback.AllowAllFallback;
+import com.company.ratelimiter.model.RateLimitDimension;
+import com.company.ratelimiter.model.RateLimitKey;
+import com.company.ratelimiter.model.RateLimitRule;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for consistent-hash sharding over stub shard executors
+ */
+class ShardedRateLimitExecutorTest {
+
+    private static final RateLimitRule USER_RULE = rule(RateLimitDimension.USER, 1);
+    private static final RateLimitRule IP_RULE = rule(RateLimitDimension.IP, 2);
+
+    private RateLimitExecutor shardA;
+    private RateLimitExecutor shardB;
+    private ShardedRateLimitExecutor executor;
+    private ConsistentHashRing<RateLimitExecutor> ring;
+
+    @BeforeEach
+    void setUp() {
+        shardA = mock(RateLimitExecutor.class);
+        shardB = mock(RateLimitExecutor.class);
+
+        Map<String, RateLimitExecutor> shards = new LinkedHashMap<>();
+        shards.put("shard-a", shardA);
+        shards.put("shard-b", shardB);
+
+        executor = new ShardedRateLimitExecutor(
+            shards,
+            160,
+            new ClusterKeyTagger(new RateLimiterProperties()),
+            new GlobalLimitSharder(new RateLimiterProperties(), null),
+            new AllowAllFallback(),
+            CircuitBreakerRegistry.ofDefaults(),
+            new SimpleMeterRegistry(),
+            Duration.ofMillis(100));
+
+        // Same ring as the executor, to find which shard owns a key
+        ring = new ConsistentHashRing<>(shards, 160);
+    }
+
+    @Test
+    void testRingSpreadsKeysAndMovesFewOnNewNode() {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        nodes.put("shard-a", "shard-a");
+        nodes.put("shard-b", "shard-b");
+        nodes.put("shard-c", "shard-c");
+        ConsistentHashRing<String> threeNodes = new ConsistentHashRing<>(nodes, 160);
+
+        nodes.put("shard-d", "shard-d");
+        ConsistentHashRing<String> fourNodes = new ConsistentHashRing<>(nodes, 160);
+
+        int keys = 30_000;
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String key = "ratelimit:user:user-" + i + ":60";
+            String owner = threeNodes.nodeFor(key);
+            counts.merge(owner, 1, Integer::sum);
+            if (!owner.equals(fourNodes.nodeFor(key))) {
+                moved++;
+            }
+        }
+
+        // Roughly a third each, and only ~1/4 of the keys move to the new node
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(8_000, 12_000));
+        assertThat(moved).isBetween(keys / 8, keys * 3 / 8);
+    }
+
+    @Test
+    void testFailedShardOnlyDegradesItsOwnKeys() {
+        String healthyUser = userOwnedBy(shardA);
+        String lostUser = userOwnedBy(shardB);
+
+        when(shardA.checkLimits(anyList(), any())).thenReturn(RateLimitDecision.allowed(10, 9, 0));
+        when(shardB.checkLimits(anyList(), any())).thenThrow(new RedisUnavailableException("down"));
+
+        RateLimitDecision healthy = executor.checkLimits(List.of(USER_RULE), context(healthyUser, null));
+        RateLimitDecision degraded = executor.checkLimits(List.of(USER_RULE), context(lostUser, null));
+
+        assertThat(healthy.isAllowed()).isTrue();
+        assertThat(healthy.isFromFallback()).isFalse();
+        assertThat(degraded.isAllowed()).isTrue();
+        assertThat(degraded.isFromFallback()).isTrue();
+    }
+
+    @Test
+    void testCrossShardCheckStopsAtFirstDenial() {
+        String user = userOwnedBy(shardA);
+        String ip = ipOwnedBy(shardB);
+
+        RateLimitDecision denied = RateLimitDecision.denied(10, 0, RateLimitDimension.USER, "user:" + user);
+        when(shardA.checkLimits(anyList(), any())).thenReturn(denied);
+
+        RateLimitDecision decision = executor.checkLimits(List.of(USER_RULE, IP_RULE), context(user, ip));
+
+        assertThat(decision.isAllowed()).isFalse();
+        assertThat(decision.getDeniedBy()).isEqualTo(RateLimitDimension.USER);
+        verify(shardB, never()).checkLimits(anyList(), any());
+    }
+
+    @Test
+    void testCrossShardCheckMergesAllowedDecisions() {
+        String user = userOwnedBy(shardA);
+        String ip = ipOwnedBy(shardB);
+
+        when(shardA.checkLimitsAsync(anyList(), any()))
+            .thenReturn(CompletableFuture.completedFuture(RateLimitDecision.allowed(10, 7, 200)));
+        when(shardB.checkLimitsAsync(anyList(), any()))
+            .thenReturn(CompletableFuture.completedFuture(RateLimitDecision.allowed(1000, 900, 100)));
+
+        RateLimitDecision decision = executor.checkLimitsAsync(List.of(USER_RULE, IP_RULE), context(user, ip))
+            .toCompletableFuture()
+            .join();
+
+        assertThat(decision.isAllowed()).isTrue();
+        assertThat(decision.getLimit()).isEqualTo(10);
+        assertThat(decision.getRemaining()).isEqualTo(7);
+        assertThat(decision.getResetTime()).isEqualTo(100);
+    }
+
+    private String userOwnedBy(RateLimitExecutor shard) {
+        for (int i = 0; ; i++) {
+            if (ring.nodeFor(RateLimitKey.of(USER_RULE, "user-" + i).toRedisKey()) == shard) {
+                return "user-" + i;
+            }
+        }
+    }
+
+    private String ipOwnedBy(RateLimitExecutor shard) {
+        for (int i = 0; ; i++) {
+            if (ring.nodeFor(RateLimitKey.of(IP_RULE, "10.0.0." + i).toRedisKey()) == shard) {
+                return "10.0.0." + i;
+            }
+        }
+    }
+
+    private static RateLimitContext context(String userId, String ipAddress) {
+        return RateLimitContext.builder()
+            .requestId("req-1")
+            .userId(userId)
+            .ipAddress(ipAddress)
+            .build();
+    }
+
+    private static RateLimitRule rule(RateLimitDimension dimension, int priority) {
+        return RateLimitRule.builder()
+            .dimension(dimension)
+            .limit(10)
+            .window(Duration.ofSeconds(60))
+            .priority(priority)
+            .build();
+    }
+}